@@ -0,0 +1,130 @@
+package com.timpanix.yatzy.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.timpanix.yatzy.DiceSource;
+import com.timpanix.yatzy.Player;
+import com.timpanix.yatzy.ScannerInput;
+import com.timpanix.yatzy.ScoringTable;
+import com.timpanix.yatzy.SplittableDiceSource;
+import com.timpanix.yatzy.Yatzy;
+import com.timpanix.yatzy.YatzyEngine;
+
+/**
+ * benchmarks for the hot paths of a turn: rolling the dice, establishing the valid options and updating the game card.
+ * The console output of rollDiceOnce() is written to a stream that discards everything, so the benchmark measures
+ * building the output but not the terminal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+
+	private static final boolean[] ROLL_ALL = {true, true, true, true, true};
+	private PrintStream console;
+	private Yatzy game;
+	private DiceSource diceSource;
+	private Player player;
+	private Player bonusPlayer;
+	private int[][] combinations;
+	private int nextCombination;
+
+	@Setup(Level.Trial)
+	public void setUp(){
+
+		console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		diceSource = new SplittableDiceSource(42);
+		game = new Yatzy(new SplittableDiceSource(42));
+		game.setNumOfPlayers(ScannerInput.fromCommands(Arrays.asList("1")));
+		player = game.getPlayers()[0];
+		// a card in the middle of a game: some fields filled, upper section below 63
+		player.updateGameCard(0, 3);
+		player.updateGameCard(3, 12);
+		player.updateGameCard(5, 18);
+		player.updateGameCard(9, 25);
+		player.updateGameCard(12, 50);
+		bonusPlayer = new Player();
+		for(int i = 0; i < 6; i++)
+			bonusPlayer.updateGameCard(i, 3 * (i + 1));
+
+		// the face counters of all 252 combinations, used in turn by setValidOptions()
+		combinations = new int[ScoringTable.NUM_OF_COMBINATIONS][YatzyEngine.NUM_OF_FACES];
+		for(int c = 0; c < ScoringTable.NUM_OF_COMBINATIONS; c++)
+			for(int f = 0; f < YatzyEngine.NUM_OF_FACES; f++)
+				combinations[c][f] = ScoringTable.getCounter(c, f);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		System.setOut(console);
+	}
+
+	@Benchmark
+	public int[] rollDiceOnce(){
+
+		game.rollDiceOnce(ROLL_ALL);
+		game.getSession().getScreen().flush();		// the dice are written like before the next question of the game
+		return game.getCurrentDiceValueCounters();
+	}
+
+	@Benchmark
+	public int[] engineRollDice(){
+
+		YatzyEngine.rollDice(game.getCurrentDiceValues(), ROLL_ALL, game.getCurrentDiceValueCounters());
+		return game.getCurrentDiceValueCounters();
+	}
+
+	@Benchmark
+	public int[] diceSourceRollDice(){
+
+		YatzyEngine.rollDice(game.getCurrentDiceValues(), ROLL_ALL, game.getCurrentDiceValueCounters(), diceSource);
+		return game.getCurrentDiceValueCounters();
+	}
+
+	@Benchmark
+	public boolean[] setValidOptions(){
+
+		int[] counters = combinations[nextCombination];
+		nextCombination = nextCombination == ScoringTable.NUM_OF_COMBINATIONS - 1 ? 0 : nextCombination + 1;
+		System.arraycopy(counters, 0, game.getCurrentDiceValueCounters(), 0, counters.length);
+		game.setValidOptions(0);
+		return game.getValidOptions();
+	}
+
+	@Benchmark
+	public int updateGameCard(){
+
+		player.updateGameCard(13, 20);
+		return player.getGameCard(15);
+	}
+
+	@Benchmark
+	public boolean checkForUpperBonus(){
+		return YatzyEngine.checkForUpperBonus(player);		// upper section below 63: the bonus is not won
+	}
+
+	@Benchmark
+	public boolean checkForUpperBonusWon(){
+		return YatzyEngine.checkForUpperBonus(bonusPlayer);	// upper section at 63: the bonus is won
+	}
+}
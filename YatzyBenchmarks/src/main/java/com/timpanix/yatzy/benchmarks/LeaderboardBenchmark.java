@@ -0,0 +1,71 @@
+package com.timpanix.yatzy.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.timpanix.yatzy.Highscore;
+import com.timpanix.yatzy.TopScores;
+
+/**
+ * benchmarks for many games submitting their results to one TopScores table at the same time.
+ * The scores are spread like the scores of real games (mostly 150 - 300), so most submissions are rejected by the fast path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LeaderboardBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Table {
+
+		TopScores scores;
+
+		@Setup(Level.Iteration)
+		public void setUp(){
+			scores = new TopScores(10);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Results {
+
+		final Highscore[] highscores = new Highscore[1024];
+		int next;
+
+		@Setup(Level.Trial)
+		public void setUp(){
+
+			SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+			for(int i = 0; i < highscores.length; i++)
+				highscores[i] = new Highscore("Player", "today", 150 + random.nextInt(100) + random.nextInt(60));
+		}
+	}
+
+	@Benchmark
+	public boolean submit(Table table, Results results){
+
+		Highscore highscore = results.highscores[results.next++ & (results.highscores.length - 1)];
+		return table.scores.submit(highscore);
+	}
+
+	@Benchmark
+	public Object snapshot(Table table){
+		return table.scores.getHighscores();
+	}
+}
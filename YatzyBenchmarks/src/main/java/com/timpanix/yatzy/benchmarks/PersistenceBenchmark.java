@@ -0,0 +1,110 @@
+package com.timpanix.yatzy.benchmarks;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.timpanix.yatzy.Player;
+import com.timpanix.yatzy.ScannerInput;
+import com.timpanix.yatzy.Yatzy;
+
+/**
+ * benchmarks for the file operations at the end of a game (high scores) and for saving/restoring a game.
+ * The game writes its files into the working directory, so the benchmarks should be started from a scratch directory.
+ * The files are deleted before and after each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PersistenceBenchmark {
+
+	private static final String[] FILES = {"highscores.ser", "highscores.log", "highscores.log.idx", "highscores.log.lock", "savedGames.idx", "savedGames.dat"};
+	private PrintStream console;
+	private Yatzy game;
+
+	@Setup(Level.Trial)
+	public void setUp(){
+
+		console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		deleteFiles();
+		game = new Yatzy();
+		game.setNumOfPlayers(ScannerInput.fromCommands(Arrays.asList("4")));
+		game.setPlayers(ScannerInput.fromCommands(Arrays.asList("Anna Ben Chris Dana")));
+		// fill the cards as at the end of a game
+		for(int p = 0; p < game.getNumOfPlayers(); p++){
+			Player player = game.getPlayers()[p];
+			for(int i = 0; i < 14; i++)
+				if(i != 6)
+					player.updateGameCard(i, 10 + p + i);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown(){
+
+		deleteFiles();
+		System.setOut(console);
+	}
+
+	private static void deleteFiles(){
+		for(String name : FILES)
+			new File(name).delete();
+	}
+
+	// the highscores are updated by the persistence thread: the benchmarks wait for it, so the work of that thread is measured
+
+	@Benchmark
+	public void updateHighScores(){
+		game.updateHighScores(0).join();
+	}
+
+	@Benchmark
+	public void updateAllHighScores(){
+		game.updateHighScores().join();		// the 4 players of a game in one write
+	}
+
+	@Benchmark
+	public void writeHighScores(){
+
+		game.updateHighScores(0).join();
+		Yatzy.flushHighScores().join();		// like updateHighScores before the highscores were written in the background
+	}
+
+	@Benchmark
+	public void displayHighScores(){
+
+		game.displayHighScores();
+		game.getSession().getScreen().flush();		// the highscores are written like before the next question of the game
+	}
+
+	@Benchmark
+	public boolean saveGameState(){
+		return game.saveGameState(game.getPlayers(), 7, 2);
+	}
+
+	@Benchmark
+	public int[] saveAndRestoreGame(){
+
+		game.saveGameState(game.getPlayers(), 7, 2);
+		return game.restoreGame();
+	}
+}
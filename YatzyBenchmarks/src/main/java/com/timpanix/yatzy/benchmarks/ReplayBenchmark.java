@@ -0,0 +1,117 @@
+package com.timpanix.yatzy.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.timpanix.yatzy.DiceSource;
+import com.timpanix.yatzy.GameRecorder;
+import com.timpanix.yatzy.GameReplayer;
+import com.timpanix.yatzy.PersistenceExecutor;
+import com.timpanix.yatzy.Player;
+import com.timpanix.yatzy.SplittableDiceSource;
+import com.timpanix.yatzy.YatzyEngine;
+
+/**
+ * benchmark for replaying recorded games (2 players, all 13 rounds). The games are recorded in the file replays.dat
+ * in the working directory before the trial: the players keep the dice with the most common face and select the first
+ * valid option. The score is the time per game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReplayBenchmark {
+
+	private static final int NUM_OF_GAMES = 100000;
+	private final Path file = Paths.get(GameRecorder.DEFAULT_FILE_NAME);
+	private final GameReplayer replayer = new GameReplayer();
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException{
+
+		Files.deleteIfExists(file);
+		GameRecorder recorder = new GameRecorder(file);
+		DiceSource dice = new SplittableDiceSource(1);
+		for(int i = 0; i < NUM_OF_GAMES; i++)
+			recordGame(recorder, dice);
+		PersistenceExecutor.getShared().drain();		// the games are appended in the background
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException{
+		Files.deleteIfExists(file);
+	}
+
+	private static void recordGame(GameRecorder recorder, DiceSource dice){
+
+		Player[] players = {new Player(), new Player()};
+		for(Player player : players){
+			player.setName("Player");
+			player.resetGameCard();
+		}
+		int[] values = new int[YatzyEngine.NUM_OF_DICE];
+		int[] counters = new int[YatzyEngine.NUM_OF_FACES];
+		boolean[] validOptions = new boolean[YatzyEngine.NUM_OF_FIELDS];
+		boolean[] rollAll = {true, true, true, true, true};
+		boolean[] rollThese = new boolean[YatzyEngine.NUM_OF_DICE];
+
+		recorder.onGameStart(players, 0, 0);
+		for(int turn = 0; turn < YatzyEngine.NUM_OF_ROUNDS * players.length; turn++){
+			int p = turn % players.length;
+			YatzyEngine.rollDice(values, rollAll, counters, dice);
+			recorder.onRoll(p, 1, rollAll, values);
+			for(int roll = 2; roll <= YatzyEngine.MAX_ROLLS; roll++){
+				// keep the dice with the most common face
+				int face = 0;
+				for(int i = 1; i < YatzyEngine.NUM_OF_FACES; i++)
+					if(counters[i] >= counters[face])
+						face = i;
+				if(counters[face] == YatzyEngine.NUM_OF_DICE)
+					break;
+				for(int i = 0; i < YatzyEngine.NUM_OF_DICE; i++)
+					rollThese[i] = values[i] != face;
+				YatzyEngine.rollDice(values, rollThese, counters, dice);
+				recorder.onRoll(p, roll, rollThese, values);
+			}
+			YatzyEngine.setValidOptions(players[p].getGameCard(), counters, validOptions);
+			int field = -1;
+			for(int i = 0; i < YatzyEngine.NUM_OF_FIELDS - 2 && field == -1; i++)
+				if(validOptions[i])
+					field = i;
+			if(field != -1){
+				recorder.onSelection(p, field, YatzyEngine.makeSelection(players[p], field, counters, validOptions));
+			}else{
+				for(int i = 0; i < YatzyEngine.NUM_OF_FIELDS - 2 && field == -1; i++)
+					if(i != YatzyEngine.UPPER_BONUS_FIELD && YatzyEngine.isEmptyField(players[p].getGameCard(), i))
+						field = i;
+				recorder.onCrossOut(p, field, YatzyEngine.crossOutField(players[p], field, validOptions));
+			}
+		}
+		recorder.onGameEnd(players, true);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_OF_GAMES)
+	public long replayFile() throws IOException{
+		return replayer.replayFile(file);
+	}
+}
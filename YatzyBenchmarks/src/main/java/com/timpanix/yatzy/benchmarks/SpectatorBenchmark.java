@@ -0,0 +1,57 @@
+package com.timpanix.yatzy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.timpanix.yatzy.SpectatorFeed;
+
+/**
+ * benchmarks for publishing the events of a game to spectators (see SpectatorFeed). The game publishes a roll with
+ * 1000 subscriptions open: the cost must not depend on the number of spectators and nothing must be allocated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpectatorBenchmark {
+
+	private static final int NUM_OF_SPECTATORS = 1000;
+	private final boolean[] rollAll = {true, true, true, true, true};
+	private final int[] diceValues = {0, 1, 2, 3, 4};
+	private SpectatorFeed feed;
+	private SpectatorFeed.Subscription[] subscriptions;
+
+	@Setup(Level.Trial)
+	public void setUp(){
+
+		feed = new SpectatorFeed();
+		subscriptions = new SpectatorFeed.Subscription[NUM_OF_SPECTATORS];
+		for(int i = 0; i < NUM_OF_SPECTATORS; i++)
+			subscriptions[i] = feed.subscribe();
+	}
+
+	@Benchmark
+	public void publishRoll(){
+		feed.onRoll(0, 1, rollAll, diceValues);
+	}
+
+	@Benchmark
+	public long publishAndPoll(){
+
+		feed.onRoll(0, 1, rollAll, diceValues);
+		return subscriptions[0].poll();
+	}
+}
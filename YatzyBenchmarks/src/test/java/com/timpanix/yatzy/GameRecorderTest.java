@@ -0,0 +1,174 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * tests of the replay file format: the games written by the GameRecorder are replayed by the GameReplayer
+ * with the same totals, and damaged recordings are rejected (or cut off) instead of crashing the reader
+ */
+public class GameRecorderTest {
+
+	private static final boolean[] ALL_DICE = {true, true, true, true, true};
+	private static final boolean[] FIRST_TWO_DICE = {true, true, false, false, false};
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void varintsAreReadAsTheyWereWritten(){
+
+		int[] values = {0, 1, 127, 128, 16383, 16384, 1 << 21, 1 << 28, Integer.MAX_VALUE};
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for(int value : values)
+			GameRecorder.writeVarint(out, value);
+		ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+		for(int value : values)
+			assertEquals(value, GameRecorder.readVarint(in));
+		assertFalse(in.hasRemaining());
+	}
+
+	@Test
+	public void varintsOfNegativeNumbersAreRejected(){
+
+		// a fifth byte of 0x08 - 0x0F would set bit 31
+		ByteBuffer in = ByteBuffer.wrap(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08});
+		assertThrows(IllegalArgumentException.class, () -> GameRecorder.readVarint(in));
+		ByteBuffer tooLong = ByteBuffer.wrap(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01});
+		assertThrows(IllegalArgumentException.class, () -> GameRecorder.readVarint(tooLong));
+	}
+
+	@Test
+	public void recordedGamesAreReplayedWithTheRecordedTotals() throws IOException{
+
+		Path file = dir.resolve(GameRecorder.DEFAULT_FILE_NAME);
+		PersistenceExecutor persistence = new PersistenceExecutor(16);
+		GameRecorder recorder = new GameRecorder(file, persistence);
+		DiceSource dice = new SplittableDiceSource(42);
+		playGame(recorder, newPlayers(1), 0, dice);
+		playGame(recorder, newPlayers(4), 0, dice);
+		// a game that was continued in the 7th round starts with the game cards of the players (snapshot)
+		Player[] players = newPlayers(2);
+		playRounds(recorder, players, 0, 6, dice);
+		recorder.onGameEnd(players, false);
+		playGame(recorder, players, 6, dice);
+		assertTrue(persistence.drain());
+
+		GameReplayer replayer = new GameReplayer();
+		assertEquals(4, replayer.replayFile(file));
+		assertEquals(0, replayer.getNumOfFailedGames());
+		assertEquals(players[1].getGameCard(TOTALS_FIELD), replayer.getTotal(1));
+	}
+
+	@Test
+	public void aDamagedGameLengthIsCutOffBeforeTheNextGame() throws IOException{
+
+		Path recorded = dir.resolve("recorded.dat");
+		PersistenceExecutor persistence = new PersistenceExecutor(16);
+		DiceSource dice = new SplittableDiceSource(7);
+		playGame(new GameRecorder(recorded, persistence), newPlayers(2), 0, dice);
+		assertTrue(persistence.drain());
+
+		// a length with bit 31 set (and some bytes of the game) after the complete game
+		Path file = dir.resolve("damaged.dat");
+		byte[] garbage = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 1, 2, 3};
+		Files.write(file, Files.readAllBytes(recorded));
+		Files.write(file, garbage, StandardOpenOption.APPEND);
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			assertEquals(Files.size(recorded), GameReplayer.findEnd(channel));
+		}
+
+		playGame(new GameRecorder(file, persistence), newPlayers(3), 0, dice);
+		assertTrue(persistence.drain());
+		GameReplayer replayer = new GameReplayer();
+		assertEquals(2, replayer.replayFile(file));
+		assertEquals(0, replayer.getNumOfFailedGames());
+	}
+
+	@Test
+	public void damagedLengthsInAGameAreRejected(){
+
+		// a snapshot that is longer than the game
+		ByteArrayOutputStream game = new ByteArrayOutputStream();
+		GameRecorder.writeVarint(game, GameRecorder.SNAPSHOT_FLAG);
+		GameRecorder.writeVarint(game, 1);
+		GameRecorder.writeVarint(game, 0);
+		GameRecorder.writeVarint(game, 1000);
+		assertThrows(IllegalArgumentException.class, () -> new GameReplayer().replay(ByteBuffer.wrap(game.toByteArray())));
+
+		// a name with a negative length
+		game.reset();
+		GameRecorder.writeVarint(game, 0);
+		GameRecorder.writeVarint(game, 1);
+		GameRecorder.writeVarint(game, 0);
+		game.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 'A'});
+		assertThrows(IllegalArgumentException.class, () -> new GameReplayer().replay(ByteBuffer.wrap(game.toByteArray())));
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										HELPER METHODS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	private static Player[] newPlayers(int numOfPlayers){
+
+		Player[] players = new Player[numOfPlayers];
+		for(int i = 0; i < numOfPlayers; i++){
+			players[i] = new Player();
+			players[i].setName("Player" + (i + 1));
+		}
+		return players;
+	}
+
+	/**
+	 * this method plays the rounds from the specified round to the end of the game and ends the game
+	 */
+	private static void playGame(GameRecorder recorder, Player[] players, int round, DiceSource dice){
+
+		playRounds(recorder, players, round, NUM_OF_ROUNDS, dice);
+		recorder.onGameEnd(players, true);
+	}
+
+	/**
+	 * this method plays rounds like the game: every player rolls all dice, then the first two dice again, and selects
+	 * the first valid option (or crosses out the first empty field)
+	 */
+	private static void playRounds(GameRecorder recorder, Player[] players, int fromRound, int toRound, DiceSource dice){
+
+		int[] diceValues = new int[NUM_OF_DICE];
+		int[] counters = new int[NUM_OF_FACES];
+		boolean[] validOptions = new boolean[NUM_OF_FIELDS];
+		recorder.onGameStart(players, fromRound, 0);
+		for(int round = fromRound; round < toRound; round++){
+			for(int p = 0; p < players.length; p++){
+				YatzyEngine.rollDice(diceValues, ALL_DICE, counters, dice);
+				recorder.onRoll(p, 1, ALL_DICE, diceValues);
+				YatzyEngine.rollDice(diceValues, FIRST_TWO_DICE, counters, dice);
+				recorder.onRoll(p, 2, FIRST_TWO_DICE, diceValues);
+				YatzyEngine.setValidOptions(players[p].getGameCard(), counters, validOptions);
+				int field = 0;
+				if(YatzyEngine.hasValidOptions(validOptions)){
+					while(!validOptions[field])
+						field++;
+					recorder.onSelection(p, field, YatzyEngine.makeSelection(players[p], field, counters, validOptions));
+				}else{
+					while(!YatzyEngine.isEmptyField(players[p].getGameCard(), field))
+						field++;
+					recorder.onCrossOut(p, field, YatzyEngine.crossOutField(players[p], field, validOptions));
+				}
+			}
+		}
+	}
+}
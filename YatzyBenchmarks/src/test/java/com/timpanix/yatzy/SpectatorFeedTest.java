@@ -0,0 +1,114 @@
+package com.timpanix.yatzy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * tests of the spectator feed: readers on other threads see the events in the order they were published (or know how many
+ * they missed), and the SpectatorServer sends the events of a table to its spectators
+ */
+public class SpectatorFeedTest {
+
+	private static final int NUM_OF_EVENTS = 10000000;
+	private static final int NUM_OF_READERS = 6;
+
+	@Test
+	public void readersSeeEveryEventInOrderOrCountItAsDropped() throws InterruptedException{
+
+		SpectatorFeed feed = new SpectatorFeed();
+		long[] received = new long[NUM_OF_READERS];
+		long[] dropped = new long[NUM_OF_READERS];
+		boolean[] outOfOrder = new boolean[NUM_OF_READERS];
+		CountDownLatch subscribed = new CountDownLatch(NUM_OF_READERS);
+		Thread[] readers = new Thread[NUM_OF_READERS];
+		for(int r = 0; r < NUM_OF_READERS; r++){
+			int reader = r;
+			readers[r] = new Thread(() -> {
+				SpectatorFeed.Subscription subscription = feed.subscribe();
+				subscribed.countDown();
+				long last = -1;
+				while(true){
+					long event = subscription.poll();
+					if(event == SpectatorFeed.NO_EVENT){
+						Thread.yield();
+						continue;
+					}
+					if(SpectatorFeed.getType(event) == SpectatorFeed.GAME_END)
+						break;
+					int value = SpectatorFeed.getValue(event);
+					if(value <= last)
+						outOfOrder[reader] = true;
+					last = value;
+					received[reader]++;
+				}
+				dropped[reader] = subscription.getDropped();
+			});
+			readers[r].start();
+		}
+		subscribed.await();
+
+		for(int i = 0; i < NUM_OF_EVENTS; i++)
+			feed.onSelection(0, 1, i);		// the points are the number of the event
+		feed.onGameEnd(new Player[0], true);
+		for(Thread reader : readers)
+			reader.join();
+
+		for(int r = 0; r < NUM_OF_READERS; r++){
+			assertFalse(outOfOrder[r], "reader " + r + " saw the events out of order");
+			assertEquals(NUM_OF_EVENTS, received[r] + dropped[r], "reader " + r + ": received + dropped");
+		}
+	}
+
+	@Test
+	public void spectatorsReceiveTheEventsOfTheirTable() throws IOException, InterruptedException{
+
+		ConcurrentHashMap<Integer, SpectatorFeed> tables = new ConcurrentHashMap<Integer, SpectatorFeed>();
+		SpectatorFeed feed = new SpectatorFeed();
+		tables.put(1, feed);
+		SpectatorServer server = new SpectatorServer(0, tables);
+		Thread thread = new Thread(() -> {
+			try{
+				server.run();
+			}catch(IOException ioe){
+				fail(ioe);
+			}
+		});
+		thread.start();
+		try(Socket spectator = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+				Socket unknownTable = new Socket(InetAddress.getLoopbackAddress(), server.getPort())){
+			BufferedReader in = new BufferedReader(new InputStreamReader(spectator.getInputStream(), StandardCharsets.UTF_8));
+			assertEquals("TABLES 1", in.readLine());
+			spectator.getOutputStream().write("1\n".getBytes(StandardCharsets.UTF_8));
+
+			BufferedReader unknown = new BufferedReader(new InputStreamReader(unknownTable.getInputStream(), StandardCharsets.UTF_8));
+			assertEquals("TABLES 1", unknown.readLine());
+			unknownTable.getOutputStream().write("7\n".getBytes(StandardCharsets.UTF_8));
+			assertEquals("Which table would you like to watch? There is no table 7.", unknown.readLine());
+			assertNull(unknown.readLine());
+
+			// a spectator receives the events published after the table was chosen
+			String prompt = "Which table would you like to watch? ";
+			Thread.sleep(200);
+			feed.onTurnStart(1, 0);
+			feed.onRoll(0, 1, new boolean[]{true, true, true, true, true}, new int[]{0, 1, 2, 3, 4});
+			tables.remove(1);		// the session ends: the events published before are sent, then END
+			assertEquals(prompt + "TURN 1 0", in.readLine());
+			assertEquals("ROLL 0 1 1 2 3 4 5", in.readLine());
+			assertEquals("END", in.readLine());
+			assertNull(in.readLine());
+		}finally{
+			server.close();
+			thread.join();
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.timpanix.yatzy;
+
+
+/**
+ * this interface is implemented by the sources of the random numbers of a game (rolling the dice, selecting the starting player).
+ * Every game has its own source, so games don't share any state and a game can be replayed from its seed.
+ * An instance of a source keeps state, so it must only be used by one thread at a time. Use split() to create an
+ * independent source for another thread.
+ */
+public interface DiceSource{
+
+	/**
+	 * this method rolls one dice
+	 *
+	 * @return: the face in the range 0 - 5 (represents the dice values 1 - 6)
+	 */
+	public int nextFace();
+
+	/**
+	 * this method returns a random number in the range 0 - (bound - 1)
+	 */
+	public int nextInt(int bound);
+
+	/**
+	 * this method creates a new source whose random numbers are independent of this source.
+	 * The new source is determined by the state of this source, so splitting is reproducible as well.
+	 */
+	public DiceSource split();
+
+	/**
+	 * this method returns the seed this source (or the source it was split from) was created with.
+	 * A game can be reproduced with a new source created with the same seed.
+	 */
+	public long getSeed();
+}
@@ -0,0 +1,400 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * this class writes a journal of the game that is played, so a game can be continued after the program crashed.
+ * Every roll and every selected or crossed out field is appended to the journal file as a small record and forced to the disk
+ * (one sequential write per move, the game cards are not written). At the start of the game and at the end of every round,
+ * the journal is replaced by a snapshot of the game (see SavedGame), so at most the moves of one round have to be replayed.
+ * When the game ends (or the players quit), the journal is deleted.
+ * The records are prepared by the thread of the game, but written by the PersistenceExecutor (in the order of the moves),
+ * so the game doesn't wait for the disk. If the program crashes, the last moves may be missing: they are played again.
+ *
+ * To continue a game, recover() reads the snapshot and replays the moves with the YatzyEngine. A turn that was not finished
+ * (the dice were rolled, but no field was selected) is continued with the dice and the number of its last roll, so the dice
+ * can't be rolled again by ending the program. When the recovered game starts again, the moves are appended to the same
+ * journal (after the last complete record).
+ *
+ * Record (big endian): int length of type and data, byte type, data, int CRC32 of type and data
+ * - SNAPSHOT:  the saved game (see SavedGame), round = the rounds played, next player = the player who starts each round
+ * - ROLL:      byte player, byte number of the roll, 5 bytes values of the dice
+ * - SELECTION: byte player, byte field
+ * - CROSS_OUT: byte player, byte field
+ */
+public class GameJournal implements GameListener {
+
+	public static final String DEFAULT_FILE_NAME = "gameJournal.log";
+	private static final byte SNAPSHOT = 1;
+	private static final byte ROLL = 2;
+	private static final byte SELECTION = 3;
+	private static final byte CROSS_OUT = 4;
+
+	private final Path file;
+	private final PersistenceExecutor persistence;
+	private final ByteBuffer record = ByteBuffer.allocate(16);	// ROLL, SELECTION and CROSS_OUT records
+	private final CRC32 crc = new CRC32();
+	private FileChannel channel;		// null if no game is played (or the journal could not be written), only used by the executor
+	private Player[] players;
+	private int firstPlayer;
+	private GameSession session;		// the session whose players are told about the problems (null: they are printed on the console)
+	private long recoveredLength = -1;	// the length of the complete records of a recovered journal (-1 if no game was recovered)
+
+	/**
+	 * this class holds a game that was continued from the journal
+	 */
+	public static class RecoveredGame {
+
+		private final Player[] players;
+		private final int round;
+		private final int firstPlayer;
+		private final int turnsPlayed;
+		private final int rollsMade;
+		private final int[] diceValues;
+
+		// constructor
+		RecoveredGame(Player[] players, int round, int firstPlayer, int turnsPlayed, int rollsMade, int[] diceValues){
+			this.players = players;
+			this.round = round;
+			this.firstPlayer = firstPlayer;
+			this.turnsPlayed = turnsPlayed;
+			this.rollsMade = rollsMade;
+			this.diceValues = diceValues;
+		}
+
+		// getters
+		public Player[] getPlayers(){
+			return this.players;
+		}
+
+		/**
+		 * @return: the number of rounds played completely
+		 */
+		public int getRound(){
+			return this.round;
+		}
+
+		/**
+		 * @return: the index of the player who starts each round
+		 */
+		public int getFirstPlayer(){
+			return this.firstPlayer;
+		}
+
+		/**
+		 * @return: the number of turns played in the current round
+		 */
+		public int getTurnsPlayed(){
+			return this.turnsPlayed;
+		}
+
+		/**
+		 * @return: the index of the player who plays next
+		 */
+		public int getNextPlayer(){
+			return (firstPlayer + turnsPlayed) % players.length;
+		}
+
+		/**
+		 * @return: the number of rolls the next player made in the turn which was not finished (0: the turn wasn't started)
+		 */
+		public int getRollsMade(){
+			return this.rollsMade;
+		}
+
+		/**
+		 * @return: the values of the dice after the last roll of the turn which was not finished
+		 */
+		public int[] getDiceValues(){
+			return this.diceValues;
+		}
+	}
+
+	// constructor: the journal is written by the executor shared by all games
+	public GameJournal(Path file){
+		this(file, PersistenceExecutor.getShared());
+	}
+
+	// constructor
+	public GameJournal(Path file, PersistenceExecutor persistence){
+		this.file = file;
+		this.persistence = persistence;
+	}
+
+	// setters
+	/**
+	 * @param: the session which displays the problems of the journal (they happen on the thread of the executor)
+	 */
+	public void setSession(GameSession session){
+		this.session = session;
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										WRITE OPERATIONS (GAME LISTENER)
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	@Override
+	public void onGameStart(Player[] players, int round, int firstPlayer){
+
+		this.players = players;
+		this.firstPlayer = firstPlayer;
+		ByteBuffer snapshot = encodeSnapshot(round);
+		long length = recoveredLength;
+		recoveredLength = -1;
+		if(length == -1){
+			persistence.run(() -> writeSnapshot(snapshot));
+			return;
+		}
+		// a recovered game: continue the journal (an incomplete record at the end is cut off)
+		persistence.run(() -> {
+			try{
+				channel = FileChannel.open(file, StandardOpenOption.WRITE);
+				channel.truncate(length);
+				channel.position(length);
+			}catch(IOException ioe){
+				closeChannel();
+				writeSnapshot(snapshot);
+			}
+		});
+	}
+
+	@Override
+	public void onRoll(int playerIndex, int rollNumber, boolean[] rolledDice, int[] diceValues){
+
+		record.clear();
+		record.put(ROLL).put((byte) playerIndex).put((byte) rollNumber);
+		for(int i = 0; i < NUM_OF_DICE; i++)
+			record.put((byte) diceValues[i]);
+		append();
+	}
+
+	@Override
+	public void onSelection(int playerIndex, int field, int points){
+
+		record.clear();
+		record.put(SELECTION).put((byte) playerIndex).put((byte) field);
+		append();
+	}
+
+	@Override
+	public void onCrossOut(int playerIndex, int field, int points){
+
+		record.clear();
+		record.put(CROSS_OUT).put((byte) playerIndex).put((byte) field);
+		append();
+	}
+
+	@Override
+	public void onRoundEnd(int round){
+
+		if(round == NUM_OF_ROUNDS)
+			return;
+		ByteBuffer snapshot = encodeSnapshot(round);
+		persistence.run(() -> {
+			if(channel != null)		// the journal is still written
+				writeSnapshot(snapshot);
+		});
+	}
+
+	@Override
+	public void onGameEnd(Player[] players, boolean finished){
+		delete();
+	}
+
+	/**
+	 * this method deletes the journal (eg. if the players don't want to continue the game of the journal)
+	 */
+	public void delete(){
+
+		recoveredLength = -1;
+		persistence.run(() -> {
+			closeChannel();
+			try{
+				Files.deleteIfExists(file);
+			}catch(IOException ioe){
+				reportProblem("The journal " + file + " could not be deleted: " + ioe.getMessage());
+			}
+		});
+	}
+
+	/**
+	 * this method returns the snapshot record of the game (on the thread of the game: the game cards change afterwards)
+	 */
+	private ByteBuffer encodeSnapshot(int round){
+
+		byte[] game = new SavedGame(players, round, firstPlayer).encode();
+		ByteBuffer snapshot = ByteBuffer.allocate(game.length + 9);
+		snapshot.putInt(game.length + 1).put(SNAPSHOT).put(game);
+		crc.reset();
+		crc.update(snapshot.array(), 4, game.length + 1);
+		snapshot.putInt((int) crc.getValue()).flip();
+		return snapshot;
+	}
+
+	/**
+	 * this method replaces the journal by a snapshot of the game (run by the executor). The new journal is written to
+	 * a temporary file first and then renamed, so there is always a complete journal.
+	 */
+	private void writeSnapshot(ByteBuffer snapshot){
+
+		closeChannel();
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try{
+			try(FileChannel temp = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)){
+				while(snapshot.hasRemaining())
+					temp.write(snapshot);
+				temp.force(false);
+			}
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		}catch(IOException ioe){
+			reportProblem("The journal " + file + " could not be written (" + ioe.getMessage() + "). The game is continued without a journal.");
+		}
+	}
+
+	/**
+	 * this method adds the length and the checksum to the record in the buffer and appends it to the journal
+	 * (the record is written by the executor)
+	 */
+	private void append(){
+
+		int length = record.position();
+		crc.reset();
+		crc.update(record.array(), 0, length);
+		ByteBuffer buffer = ByteBuffer.allocate(length + 8);
+		buffer.putInt(length).put(record.array(), 0, length).putInt((int) crc.getValue()).flip();
+		persistence.run(() -> {
+			if(channel == null)
+				return;
+			try{
+				while(buffer.hasRemaining())
+					channel.write(buffer);
+				channel.force(false);
+			}catch(IOException ioe){
+				reportProblem("The journal " + file + " could not be written (" + ioe.getMessage() + "). The game is continued without a journal.");
+				closeChannel();
+			}
+		});
+	}
+
+	private void reportProblem(String message){
+
+		if(session != null)
+			session.reportProblem(message);
+		else
+			System.out.println(message);
+	}
+
+	private void closeChannel(){
+
+		if(channel == null)
+			return;
+		try{
+			channel.close();
+		}catch(IOException ioe){
+			// nothing to do: the journal is not written anymore
+		}
+		channel = null;
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										RECOVERY
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method continues the game of the journal: the snapshot is read and the moves after it are applied.
+	 * The data after the last complete record (eg. the program crashed while writing) is ignored.
+	 *
+	 * @return: the recovered game, null if there is no journal (no game was interrupted)
+	 * @throws IOException if the journal cannot be read or its moves are not valid
+	 */
+	public RecoveredGame recover() throws IOException{
+
+		persistence.drain();		// the records which were not written yet
+		ByteBuffer journal;
+		try{
+			journal = ByteBuffer.wrap(Files.readAllBytes(file));
+		}catch(NoSuchFileException nsfe){
+			return null;
+		}
+		CRC32 crc = new CRC32();
+		SavedGame game = null;
+		int[] diceValues = new int[NUM_OF_DICE];
+		int[] counters = new int[NUM_OF_FACES];
+		boolean[] validOptions = new boolean[NUM_OF_FIELDS];
+		int round = 0;
+		int turnsPlayed = 0;
+		int rollsMade = 0;		// the rolls of the turn which was not finished
+		int end = 0;		// the end of the last complete record
+
+		while(journal.remaining() >= 9){
+			int length = journal.getInt();
+			if(length <= 0 || length + 4 > journal.remaining())
+				break;
+			int start = journal.position();
+			crc.reset();
+			crc.update(journal.array(), start, length);
+			if(journal.getInt(start + length) != (int) crc.getValue())
+				break;
+			byte type = journal.get();
+			if(type == SNAPSHOT){
+				byte[] data = new byte[length - 1];
+				journal.get(data);
+				game = SavedGame.decode(data);
+				round = game.getRound();
+				turnsPlayed = 0;
+				rollsMade = 0;
+			}else if(game == null){
+				throw new IOException("The journal " + file + " doesn't start with a snapshot");
+			}else{
+				Player[] players = game.getPlayers();
+				int playerIndex = journal.get();
+				if(playerIndex != (game.getNextPlayer() + turnsPlayed) % players.length)
+					throw new IOException("The journal " + file + " contains a move of the wrong player");
+				if(type == ROLL){
+					rollsMade = journal.get();
+					for(int i = 0; i < NUM_OF_DICE; i++)
+						diceValues[i] = journal.get();
+					YatzyEngine.countDice(diceValues, counters);
+				}else{
+					int field = journal.get();
+					YatzyEngine.setValidOptions(players[playerIndex].getGameCard(), counters, validOptions);
+					try{
+						if(type == SELECTION)
+							YatzyEngine.makeSelection(players[playerIndex], field, counters, validOptions);
+						else
+							YatzyEngine.crossOutField(players[playerIndex], field, validOptions);
+					}catch(IllegalArgumentException iae){
+						throw new IOException("The journal " + file + " contains an invalid move: " + iae.getMessage());
+					}
+					rollsMade = 0;
+					if(++turnsPlayed == players.length){
+						round++;
+						turnsPlayed = 0;
+					}
+				}
+			}
+			end = start + length + 4;
+			journal.position(end);
+		}
+		if(game == null)
+			return null;
+		recoveredLength = end;
+		return new RecoveredGame(game.getPlayers(), round, game.getNextPlayer(), turnsPlayed, rollsMade, diceValues);
+	}
+}
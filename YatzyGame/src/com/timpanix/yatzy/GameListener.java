@@ -0,0 +1,68 @@
+package com.timpanix.yatzy;
+
+
+/**
+ * this interface is implemented by classes which follow a game while it is played (eg. to write a journal or to record
+ * the game). The methods are called by the game after the move was applied to the game card. All methods do nothing
+ * by default, so a listener only implements the events it needs.
+ * The arrays passed to the methods belong to the game and must not be changed or kept.
+ */
+public interface GameListener{
+
+	/**
+	 * this method is called when a game starts or a saved game is restarted
+	 *
+	 * @param: the players, the number of rounds played so far, the index of the player who starts each round
+	 */
+	public default void onGameStart(Player[] players, int round, int firstPlayer){
+	}
+
+	/**
+	 * this method is called when a player's turn starts (round: 1 - 13)
+	 */
+	public default void onTurnStart(int round, int playerIndex){
+	}
+
+	/**
+	 * this method is called after the dice were rolled
+	 *
+	 * @param: the index of the player, the number of the roll (1 - 3), the dice which were rolled,
+	 * 			the values of all dice (0 - 5 represent the faces 1 - 6)
+	 */
+	public default void onRoll(int playerIndex, int rollNumber, boolean[] rolledDice, int[] diceValues){
+	}
+
+	/**
+	 * this method is called after a player selected a field (points: incl. bonuses)
+	 */
+	public default void onSelection(int playerIndex, int field, int points){
+	}
+
+	/**
+	 * this method is called after a player crossed out a field (points: the additional yatzy bonus, if it applies)
+	 */
+	public default void onCrossOut(int playerIndex, int field, int points){
+	}
+
+	/**
+	 * this method is called after every player played in the round (round: 1 - 13)
+	 */
+	public default void onRoundEnd(int round){
+	}
+
+	/**
+	 * this method is called when the winner of a finished game was established (only if there is more than one player)
+	 *
+	 * @param: the index of the winner, the total points of the winner
+	 */
+	public default void onWinner(int playerIndex, int points){
+	}
+
+	/**
+	 * this method is called when a game ends
+	 *
+	 * @param: the players, true if all rounds were played (false if the players quit the game)
+	 */
+	public default void onGameEnd(Player[] players, boolean finished){
+	}
+}
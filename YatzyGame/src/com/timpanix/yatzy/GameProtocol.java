@@ -0,0 +1,186 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * this class contains the binary protocol of the YatzyNioServer: the commands of the players and the changes of the game
+ * (deltas) which are sent back. Instead of the console output (dice, menus, game cards), only the values which changed are
+ * sent, so a turn takes about 10 - 40 bytes and a client (eg. a bot) doesn't have to parse any text.
+ *
+ * Every message is a frame: byte length (of the type and the payload), byte type, payload. Numbers are big endian.
+ *
+ * Commands (client -> server), one for each input of the console game:
+ * - NEW_GAME:  byte first player (FIRST_PLAYER_RANDOM: the dice decide), byte number of players,
+ *              for every player: byte length, name (UTF-8)
+ * - ROLL:      byte dice to roll (bit i for dice i). The first roll of a turn rolls all dice (ALL_DICE), later rolls
+ *              roll the dice which are not held, like the input of rollWhichDiceAgain() ("1,3" is 0b00101)
+ * - SELECT:    byte field, like makeSelection()
+ * - CROSS_OUT: byte field, like crossOutField() (only if there are no valid options after the last roll)
+ * - QUIT:      no payload, the game ends without a winner
+ *
+ * Deltas (server -> client):
+ * - GAME_START: byte number of players, byte index of the player who starts each round
+ * - TURN:       byte round (1 - 13), byte index of the player
+ * - DICE:       byte index of the player, byte roll (1 - 3), short values of the dice (3 bits per dice, dice 0 in bits 0 - 2,
+ *               0 - 5 represent the faces 1 - 6), short valid options (see ScoringTable.getValidOptionsMask())
+ * - CARD:       byte index of the player, byte field, short value of the field, short total of the player
+ *               (one frame for every field that changed, incl. the bonuses)
+ * - GAME_END:   byte index of the winner (NO_WINNER if the game was quit)
+ * - ERROR:      byte error code, the game is not changed (the player can send another command)
+ */
+public final class GameProtocol {
+
+	public static final int MAX_FRAME_SIZE = 256;		// incl. the length byte
+	public static final int ALL_DICE = (1 << NUM_OF_DICE) - 1;
+	public static final int FIRST_PLAYER_RANDOM = 0xFF;
+	public static final int NO_WINNER = 0xFF;
+	public static final int MAX_NUM_OF_PLAYERS = 8;
+
+	// commands
+	public static final byte NEW_GAME = 1;
+	public static final byte ROLL = 2;
+	public static final byte SELECT = 3;
+	public static final byte CROSS_OUT = 4;
+	public static final byte QUIT = 5;
+	// deltas
+	public static final byte GAME_START = 16;
+	public static final byte TURN = 17;
+	public static final byte DICE = 18;
+	public static final byte CARD = 19;
+	public static final byte GAME_END = 20;
+	public static final byte ERROR = 21;
+	// error codes
+	public static final int UNKNOWN_COMMAND = 1;
+	public static final int INVALID_FRAME = 2;
+	public static final int NO_GAME = 3;			// there is no game (NEW_GAME first)
+	public static final int INVALID_PLAYERS = 4;
+	public static final int INVALID_DICE = 5;		// the first roll must roll all dice, later rolls at least one
+	public static final int NO_ROLLS_LEFT = 6;
+	public static final int NOT_ROLLED = 7;			// the dice must be rolled before a field is selected
+	public static final int INVALID_FIELD = 8;		// the field is not a valid option (or not empty)
+	public static final int OPTIONS_AVAILABLE = 9;	// a field can only be crossed out if there are no valid options
+
+	// no instances: all methods are static
+	private GameProtocol(){
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										FRAMES
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method returns the size of the first frame in the buffer (between position and limit)
+	 *
+	 * @return: the size of the frame incl. the length byte, or -1 if the frame wasn't received completely
+	 */
+	public static int frameSize(ByteBuffer in){
+
+		if(!in.hasRemaining())
+			return -1;
+		int size = (in.get(in.position()) & 0xFF) + 1;
+		return (in.remaining() >= size) ? size : -1;
+	}
+
+	public static void writeNewGame(ByteBuffer out, String[] names, int firstPlayer){
+
+		int start = beginFrame(out, NEW_GAME);
+		out.put((byte) firstPlayer).put((byte) names.length);
+		for(String name : names){
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			out.put((byte) bytes.length).put(bytes);
+		}
+		endFrame(out, start);
+	}
+
+	public static void writeRoll(ByteBuffer out, int diceToRoll){
+		out.put((byte) 2).put(ROLL).put((byte) diceToRoll);
+	}
+
+	public static void writeSelect(ByteBuffer out, int field){
+		out.put((byte) 2).put(SELECT).put((byte) field);
+	}
+
+	public static void writeCrossOut(ByteBuffer out, int field){
+		out.put((byte) 2).put(CROSS_OUT).put((byte) field);
+	}
+
+	public static void writeQuit(ByteBuffer out){
+		out.put((byte) 1).put(QUIT);
+	}
+
+	public static void writeGameStart(ByteBuffer out, int numOfPlayers, int firstPlayer){
+		out.put((byte) 3).put(GAME_START).put((byte) numOfPlayers).put((byte) firstPlayer);
+	}
+
+	public static void writeTurn(ByteBuffer out, int round, int playerIndex){
+		out.put((byte) 3).put(TURN).put((byte) round).put((byte) playerIndex);
+	}
+
+	public static void writeDice(ByteBuffer out, int playerIndex, int rollNumber, int[] diceValues, int validOptions){
+		out.put((byte) 7).put(DICE).put((byte) playerIndex).put((byte) rollNumber)
+			.putShort((short) packDiceValues(diceValues)).putShort((short) validOptions);
+	}
+
+	public static void writeCard(ByteBuffer out, int playerIndex, int field, int value, int total){
+		out.put((byte) 7).put(CARD).put((byte) playerIndex).put((byte) field).putShort((short) value).putShort((short) total);
+	}
+
+	public static void writeGameEnd(ByteBuffer out, int winner){
+		out.put((byte) 2).put(GAME_END).put((byte) winner);
+	}
+
+	public static void writeError(ByteBuffer out, int code){
+		out.put((byte) 2).put(ERROR).put((byte) code);
+	}
+
+	/**
+	 * this method reserves the length byte of a frame of variable size and writes the type
+	 *
+	 * @return: the position of the length byte (see endFrame())
+	 */
+	private static int beginFrame(ByteBuffer out, byte type){
+
+		int start = out.position();
+		out.put((byte) 0).put(type);
+		return start;
+	}
+
+	private static void endFrame(ByteBuffer out, int start){
+
+		int length = out.position() - start - 1;
+		if(length >= MAX_FRAME_SIZE)
+			throw new IllegalArgumentException("The frame is too long (" + length + " bytes)");
+		out.put(start, (byte) length);
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										DICE
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method packs the values of the 5 dice (0 - 5) into 15 bits (3 bits per dice)
+	 */
+	public static int packDiceValues(int[] diceValues){
+
+		int packed = 0;
+		for(int i = 0; i < NUM_OF_DICE; i++)
+			packed |= diceValues[i] << (3 * i);
+		return packed;
+	}
+
+	/**
+	 * this method unpacks the values of the dice (see packDiceValues())
+	 */
+	public static void unpackDiceValues(int packed, int[] diceValues){
+
+		for(int i = 0; i < NUM_OF_DICE; i++)
+			diceValues[i] = (packed >>> (3 * i)) & 7;
+	}
+}
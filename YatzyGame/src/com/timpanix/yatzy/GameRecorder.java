@@ -0,0 +1,258 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * this class records every game that is played, so it can be replayed later (see GameReplayer), eg. to check the result
+ * of a game or to test changes of the scoring. The recording of a game is appended to the replay file when the game ends
+ * (by the PersistenceExecutor, the game doesn't wait for it, see PersistenceExecutor.tryRun()).
+ *
+ * The numbers are written as varints (7 bits per byte, the highest bit is set if another byte follows), so small numbers
+ * take one byte. A roll only contains the dice that were rolled again, so a turn takes about 3 - 8 bytes.
+ *
+ * File: int magic "YTZR", byte version, then the games: varint length of the game, game
+ * Game:
+ * - varint flags (bit 0: all rounds were played, bit 1: the game didn't start with empty game cards)
+ * - varint number of players, varint index of the player who plays the first turn of the recording
+ * - without bit 1: the names of the players (varint length, UTF-8), with bit 1: varint length, the game cards at the start (see SavedGame)
+ * - varint final total of each player
+ * - the turns until the end of the game
+ * Turn:
+ * - varint: number of rolls - 1 (bits 0 - 1), 1 if the field was crossed out (bit 2), field (bits 3 - 6)
+ * - varint first roll: the values of the 5 dice as a number with base 6 (the first dice is the least significant digit)
+ * - varint per additional roll: the dice rolled again (bits 0 - 4, bit i for dice i), followed by their values
+ *   as a number with base 6 (in the order of the dice)
+ */
+public class GameRecorder implements GameListener {
+
+	public static final String DEFAULT_FILE_NAME = "replays.dat";
+	static final int MAGIC = 0x59545A52;	// "YTZR"
+	static final byte VERSION = 1;
+	static final int HEADER_SIZE = 5;
+	static final int FINISHED_FLAG = 1;
+	static final int SNAPSHOT_FLAG = 2;
+	static final int ALL_DICE = (1 << NUM_OF_DICE) - 1;
+	// the recorders of all sessions (see YatzyServer) append to the same file, one game at a time
+	private static final Object APPEND_LOCK = new Object();
+	private static final Set<Path> CHECKED_FILES = new HashSet<>();		// the files whose end was checked (guarded by APPEND_LOCK)
+
+	private final Path file;
+	private final PersistenceExecutor persistence;
+	private final ByteArrayOutputStream turns = new ByteArrayOutputStream(256);
+	private final int[] rolls = new int[MAX_ROLLS];	// the rolls of the current turn
+	private int numOfRolls;
+	private Player[] players;
+	private byte[] snapshot;		// the game cards at the start (null if the game started with empty game cards)
+	private int firstPlayer;		// the player of the first turn (-1 until the first roll)
+	private GameSession session;	// the session whose players are told about the problems (null: they are printed on the console)
+
+	// constructor: the games are written by the executor shared by all games
+	public GameRecorder(Path file){
+		this(file, PersistenceExecutor.getShared());
+	}
+
+	// constructor
+	public GameRecorder(Path file, PersistenceExecutor persistence){
+		this.file = file;
+		this.persistence = persistence;
+	}
+
+	// setters
+	/**
+	 * @param: the session which displays the problems of the recorder (eg. YatzyNioServer: none, they are printed on the console)
+	 */
+	public void setSession(GameSession session){
+		this.session = session;
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										RECORDING (GAME LISTENER)
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	@Override
+	public void onGameStart(Player[] players, int round, int firstPlayer){
+
+		this.players = players;
+		this.firstPlayer = -1;
+		turns.reset();
+		numOfRolls = 0;
+		snapshot = null;
+		for(Player player : players){
+			if(PackedState.getFilledFields(PackedState.packGameCard(player.getGameCard())) != 0){
+				snapshot = new SavedGame(players, round, firstPlayer).encode();
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void onRoll(int playerIndex, int rollNumber, boolean[] rolledDice, int[] diceValues){
+
+		if(firstPlayer == -1)
+			this.firstPlayer = playerIndex;
+		if(rollNumber == 1 || numOfRolls == 0){		// (or the first roll of a continued turn, see GameJournal)
+			numOfRolls = 0;
+			rolls[numOfRolls++] = encodeDice(ALL_DICE, diceValues);
+			return;
+		}
+		int mask = 0;
+		for(int i = 0; i < NUM_OF_DICE; i++)
+			if(rolledDice[i])
+				mask |= 1 << i;
+		rolls[numOfRolls++] = mask | encodeDice(mask, diceValues) << NUM_OF_DICE;
+	}
+
+	@Override
+	public void onSelection(int playerIndex, int field, int points){
+		writeTurn(field, false);
+	}
+
+	@Override
+	public void onCrossOut(int playerIndex, int field, int points){
+		writeTurn(field, true);
+	}
+
+	@Override
+	public void onGameEnd(Player[] players, boolean finished){
+
+		if(this.players == null || turns.size() == 0)		// nothing was played
+			return;
+		byte[] game = encodeGame(finished);
+		// the recording is dropped if the disk is too slow: the game may run on a thread which must not wait (eg. YatzyNioServer)
+		persistence.tryRun(() -> append(game)).whenComplete((result, e) -> {
+			if(e == null)
+				return;
+			String message = "The game could not be recorded in " + file + ": " + e.getMessage();
+			if(session != null)
+				session.reportProblem(message);
+			else
+				System.out.println(message);
+		});
+		this.players = null;
+	}
+
+	/**
+	 * this method encodes the values of the selected dice (mask: bit i for dice i) as a number with base 6
+	 */
+	private static int encodeDice(int mask, int[] diceValues){
+
+		int code = 0;
+		for(int i = NUM_OF_DICE - 1; i >= 0; i--)
+			if((mask & (1 << i)) != 0)
+				code = code * NUM_OF_FACES + diceValues[i];
+		return code;
+	}
+
+	private void writeTurn(int field, boolean crossedOut){
+
+		writeVarint(turns, (numOfRolls - 1) | (crossedOut ? 1 << 2 : 0) | field << 3);
+		for(int i = 0; i < numOfRolls; i++)
+			writeVarint(turns, rolls[i]);
+		numOfRolls = 0;
+	}
+
+	/**
+	 * this method returns the recording of the game (header and turns)
+	 */
+	private byte[] encodeGame(boolean finished){
+
+		ByteArrayOutputStream game = new ByteArrayOutputStream(turns.size() + 64);
+		writeVarint(game, (finished ? FINISHED_FLAG : 0) | (snapshot != null ? SNAPSHOT_FLAG : 0));
+		writeVarint(game, players.length);
+		writeVarint(game, firstPlayer);
+		if(snapshot != null){
+			writeVarint(game, snapshot.length);
+			game.writeBytes(snapshot);
+		}else{
+			for(Player player : players){
+				byte[] name = player.getName().getBytes(StandardCharsets.UTF_8);
+				writeVarint(game, name.length);
+				game.writeBytes(name);
+			}
+		}
+		for(Player player : players)
+			writeVarint(game, player.getGameCard(TOTALS_FIELD));
+		game.writeBytes(turns.toByteArray());
+		return game.toByteArray();
+	}
+
+	/**
+	 * this method appends a game to the replay file (the header is written if the file is empty).
+	 * The file is not forced to the disk: the first time a game is appended to a file, a recording that was not completely
+	 * written (eg. the program crashed) is cut off.
+	 */
+	private void append(byte[] game) throws IOException{
+
+		ByteArrayOutputStream record = new ByteArrayOutputStream(game.length + HEADER_SIZE + 5);
+		synchronized(APPEND_LOCK){
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+				if(!CHECKED_FILES.contains(file.toAbsolutePath())){		// the file is only marked when its end was found
+					long end = GameReplayer.findEnd(channel);
+					if(end < channel.size())
+						channel.truncate(end);
+					CHECKED_FILES.add(file.toAbsolutePath());
+				}
+				if(channel.size() == 0)
+					record.writeBytes(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(VERSION).array());
+				writeVarint(record, game.length);
+				record.writeBytes(game);
+				ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+				channel.position(channel.size());
+				while(buffer.hasRemaining())
+					channel.write(buffer);
+			}
+		}
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										VARINTS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	static void writeVarint(ByteArrayOutputStream out, int value){
+
+		while((value & ~0x7F) != 0){
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * @return: the number (0 - Integer.MAX_VALUE)
+	 * @throws IllegalArgumentException if the varint is longer than 5 bytes or the number is negative
+	 */
+	static int readVarint(ByteBuffer in){
+
+		// unrolled: most numbers of a recording take 1 - 3 bytes
+		int b = in.get();
+		if(b >= 0)
+			return b;
+		int value = b & 0x7F;
+		if((b = in.get()) >= 0)
+			return value | b << 7;
+		value |= (b & 0x7F) << 7;
+		if((b = in.get()) >= 0)
+			return value | b << 14;
+		value |= (b & 0x7F) << 14;
+		if((b = in.get()) >= 0)
+			return value | b << 21;
+		value |= (b & 0x7F) << 21;
+		if((b = in.get()) >= 0 && b < 0x08)		// the numbers of a recording are never negative
+			return value | b << 28;
+		throw new IllegalArgumentException("Invalid varint");
+	}
+}
@@ -0,0 +1,293 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * this class replays the games recorded by the GameRecorder: every turn is scored again with the rules of the
+ * PackedState class (no console, no objects per turn) and the totals are compared with the recorded totals.
+ * The replay file is read through memory mapped windows, so files of any size can be replayed.
+ *
+ * An instance keeps working memory, so it must only be used by one thread at a time.
+ */
+public class GameReplayer {
+
+	private static final int WINDOW_SIZE = 64 << 20;	// the size of the mapped part of the file (64 MB)
+	private static final int NUM_OF_ROLLS = 7776;		// 6^5 possible results of rolling 5 dice
+	// the index of the combination in the ScoringTable for the values of the 5 dice (as a number with base 6)
+	private static final short[] COMBINATIONS = new short[NUM_OF_ROLLS];
+	// the digits of a number with base 6 (< 6^5) in 3-bit fields, the least significant digit in bits 0 - 2
+	private static final short[] DIGITS = new short[NUM_OF_ROLLS];
+
+	private long[] cards = new long[4];		// the game cards of the game that is replayed (packed, see PackedState)
+	private int[] recordedTotals = new int[4];
+	private int numOfPlayers;
+	private long numOfGames;
+	private long numOfFailedGames;
+
+	static {
+		int[] counters = new int[NUM_OF_FACES];
+		for(int roll = 0; roll < NUM_OF_ROLLS; roll++){
+			Arrays.fill(counters, 0);
+			for(int i = 0, values = roll; i < NUM_OF_DICE; i++, values /= NUM_OF_FACES){
+				counters[values % NUM_OF_FACES]++;
+				DIGITS[roll] |= (values % NUM_OF_FACES) << (3 * i);
+			}
+			COMBINATIONS[roll] = (short) ScoringTable.indexOf(counters);
+		}
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										REPLAY OF ONE GAME
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method replays the game from the position to the limit of the buffer (one game of the replay file, without
+	 * the length). Afterwards, the totals of the players can be read with getTotal().
+	 *
+	 * @return: true if the totals match the recorded totals
+	 * @throws IllegalArgumentException if the recording contains an invalid move or is damaged
+	 */
+	public boolean replay(ByteBuffer game){
+		return replay(game, game.limit());
+	}
+
+	private boolean replay(ByteBuffer game, int end){
+
+		try{
+			int flags = GameRecorder.readVarint(game);
+			numOfPlayers = GameRecorder.readVarint(game);
+			int player = GameRecorder.readVarint(game);
+			if(numOfPlayers < 1 || player >= numOfPlayers)
+				throw new IllegalArgumentException("Invalid number of players: " + numOfPlayers);
+			if(cards.length < numOfPlayers){
+				cards = new long[numOfPlayers];
+				recordedTotals = new int[numOfPlayers];
+			}
+
+			// the game cards at the start
+			if((flags & GameRecorder.SNAPSHOT_FLAG) != 0){
+				byte[] snapshot = new byte[checkLength(GameRecorder.readVarint(game), game)];
+				game.get(snapshot);
+				Player[] players = SavedGame.decode(snapshot).getPlayers();
+				if(players.length != numOfPlayers)
+					throw new IllegalArgumentException("Invalid number of players: " + players.length);
+				for(int i = 0; i < numOfPlayers; i++)
+					cards[i] = PackedState.packGameCard(players[i].getGameCard());
+			}else{
+				for(int i = 0; i < numOfPlayers; i++){
+					int nameLength = checkLength(GameRecorder.readVarint(game), game);
+					game.position(game.position() + nameLength);		// the names are not needed
+					cards[i] = PackedState.NEW_GAME;
+				}
+			}
+			for(int i = 0; i < numOfPlayers; i++)
+				recordedTotals[i] = GameRecorder.readVarint(game);
+
+			// the turns
+			while(game.position() < end){
+				int turn = GameRecorder.readVarint(game);
+				int roll = readDice(game, (turn & 3) + 1);
+				int combination = COMBINATIONS[roll];
+				long card = cards[player];
+				int validOptions = PackedState.getValidOptions(card, combination);
+				if((turn & 4) != 0)
+					cards[player] = PackedState.crossOutField(card, turn >>> 3, validOptions);
+				else
+					cards[player] = PackedState.makeSelection(card, combination, turn >>> 3, validOptions);
+				if(++player == numOfPlayers)
+					player = 0;
+			}
+		}catch(IOException | BufferUnderflowException | IndexOutOfBoundsException e){
+			throw new IllegalArgumentException("The recording is damaged", e);
+		}
+		for(int i = 0; i < numOfPlayers; i++)
+			if(getTotal(i) != recordedTotals[i])
+				return false;
+		return true;
+	}
+
+	/**
+	 * this method checks that a length read from the recording doesn't go beyond the end of the game
+	 *
+	 * @return: the length
+	 */
+	private static int checkLength(int length, ByteBuffer game){
+
+		if(length > game.remaining())
+			throw new IllegalArgumentException("Invalid length: " + length);
+		return length;
+	}
+
+	/**
+	 * this method reads the rolls of a turn. The values of the dice are kept in 3-bit fields (no divisions).
+	 *
+	 * @return: the values of the 5 dice after the last roll as a number with base 6
+	 */
+	private static int readDice(ByteBuffer game, int numOfRolls){
+
+		int roll = GameRecorder.readVarint(game);
+		if(roll >= NUM_OF_ROLLS)
+			throw new IllegalArgumentException("Invalid roll: " + roll);
+		if(numOfRolls == 1)		// no need to look at the single dice
+			return roll;
+
+		int dice = DIGITS[roll];
+		for(int r = 1; r < numOfRolls; r++){
+			int reroll = GameRecorder.readVarint(game);
+			int values = reroll >>> NUM_OF_DICE;
+			if(values >= NUM_OF_ROLLS)
+				throw new IllegalArgumentException("Invalid roll: " + reroll);
+			int digits = DIGITS[values];
+			// the next value replaces dice i if it was rolled again (without branches, the dice rolled again are random)
+			for(int i = 0; i < NUM_OF_DICE; i++){
+				int rolled = reroll >>> i & 1;
+				int field = -rolled & 7 << (3 * i);
+				dice = dice & ~field | digits << (3 * i) & field;
+				digits >>>= 3 * rolled;
+			}
+			if(digits != 0)		// more values than dice rolled again
+				throw new IllegalArgumentException("Invalid roll: " + reroll);
+		}
+		roll = 0;
+		for(int i = NUM_OF_DICE - 1; i >= 0; i--)
+			roll = roll * NUM_OF_FACES + (dice >>> (3 * i) & 7);
+		return roll;
+	}
+
+	// getters
+	public int getNumOfPlayers(){
+		return this.numOfPlayers;
+	}
+
+	/**
+	 * @return: the total of the player after the last replayed game
+	 */
+	public int getTotal(int player){
+		return PackedState.getTotal(cards[player]);
+	}
+
+	public int getRecordedTotal(int player){
+		return this.recordedTotals[player];
+	}
+
+	public long getNumOfGames(){
+		return this.numOfGames;
+	}
+
+	/**
+	 * @return: the number of games whose totals didn't match the recorded totals (or which contained invalid moves)
+	 */
+	public long getNumOfFailedGames(){
+		return this.numOfFailedGames;
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										REPLAY FILES
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method replays all games of a replay file. A recording at the end which was not completely written is ignored.
+	 *
+	 * @return: the number of games replayed (the number of games which didn't match is counted, see getNumOfFailedGames())
+	 */
+	public long replayFile(Path file) throws IOException{
+
+		long gamesBefore = numOfGames;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			scan(channel, this);
+		}
+		return numOfGames - gamesBefore;
+	}
+
+	/**
+	 * this method returns the end of the last complete recording of a replay file (0 if the file is empty)
+	 *
+	 * @throws IOException if the file is not a replay file
+	 */
+	static long findEnd(FileChannel channel) throws IOException{
+		return scan(channel, null);
+	}
+
+	/**
+	 * this method reads the games of a replay file and replays them (if replayer is not null)
+	 *
+	 * @return: the end of the last complete recording
+	 */
+	private static long scan(FileChannel channel, GameReplayer replayer) throws IOException{
+
+		long size = channel.size();
+		if(size < GameRecorder.HEADER_SIZE)		// empty or the header was not completely written
+			return 0;
+		ByteBuffer header = ByteBuffer.allocate(GameRecorder.HEADER_SIZE);
+		channel.read(header, 0);
+		if(header.getInt(0) != GameRecorder.MAGIC || header.get(4) != GameRecorder.VERSION)
+			throw new IOException("This is not a replay file (or a replay file of another version)");
+
+		long offset = GameRecorder.HEADER_SIZE;
+		while(offset < size){
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, size - offset));
+			int consumed = 0;
+			while(window.hasRemaining()){
+				int length;
+				try{
+					length = GameRecorder.readVarint(window);
+				}catch(BufferUnderflowException | IllegalArgumentException e){
+					break;
+				}
+				if(length > window.remaining())		// the rest of the game is in the next window (or wasn't written, or is damaged)
+					break;
+				int end = window.position() + length;
+				if(replayer != null){
+					replayer.numOfGames++;
+					try{
+						window.limit(end);
+						if(!replayer.replay(window, end))
+							replayer.numOfFailedGames++;
+					}catch(IllegalArgumentException iae){
+						replayer.numOfFailedGames++;
+					}
+					window.limit(window.capacity());
+				}
+				window.position(end);
+				consumed = end;
+			}
+			if(consumed == 0)		// an incomplete recording at the end of the file
+				break;
+			offset += consumed;
+		}
+		return offset;
+	}
+
+	/**
+	 * @param args: the replay file (default: replays.dat)
+	 */
+	public static void main(String[] args) throws IOException{
+
+		Path file = Paths.get(args.length > 0 ? args[0] : GameRecorder.DEFAULT_FILE_NAME);
+		GameReplayer replayer = new GameReplayer();
+		long start = System.nanoTime();
+		long games = replayer.replayFile(file);
+		long nanos = Math.max(System.nanoTime() - start, 1);
+
+		System.out.println("Replayed " + games + " games of " + file + " in " + nanos / 1000000 + " ms ("
+				+ games * 1000000000L / nanos + " games per second)");
+		if(replayer.getNumOfFailedGames() == 0)
+			System.out.println("All totals match the recorded totals.");
+		else
+			System.out.println(replayer.getNumOfFailedGames() + " games don't match the recorded totals.");
+	}
+}
@@ -0,0 +1,160 @@
+package com.timpanix.yatzy;
+
+import java.io.PrintStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * this class holds the state of a session: the players (names, game cards, wins), the source of the dice and the
+ * output of the games (the console or the connection of a player, see YatzyServer).
+ * The games of a session are played one after the other with the same players (the names are retained), and every
+ * game (class Yatzy) works on the state of its session only. So any number of sessions can be played in one program
+ * at the same time, as long as every session is only used by one thread at a time.
+ * The files shared by all sessions (highscores, saved games) are thread safe. A session can have highscores and saved
+ * games of its own (eg. automated players, whose results don't belong in the highscores of the people).
+ */
+public class GameSession {
+
+	private Player[] players;		// null until the number of players is known
+	private final DiceSource diceSource;
+	private final PrintStream output;
+	private SpectatorFeed spectatorFeed;	// null: nobody can watch the games of the session
+	private int outputMode = ScreenRenderer.PLAIN;	// how the games are displayed (see ScreenRenderer)
+	private ScreenRenderer screen;		// all the text of the session is written through it (null until it is needed)
+	private boolean interactive = true;		// false: the input is a script or a program (no cosmetic delays)
+	private Leaderboard leaderboard;		// null: the highscores of the program (see Yatzy)
+	private SaveStore saveStore;			// null: the saved games of the program (see Yatzy)
+	// the problems of the operations in the background (eg. writing the highscores) which were not displayed yet
+	private final ConcurrentLinkedQueue<String> problems = new ConcurrentLinkedQueue<String>();
+
+	// constructor: the dice are rolled with a random seed, the games are displayed on the console
+	public GameSession(){
+		this(new SplittableDiceSource());
+	}
+
+	// constructor: the dice are rolled with the specified source (eg. with a known seed to reproduce a game)
+	public GameSession(DiceSource diceSource){
+		this(diceSource, System.out);
+	}
+
+	// constructor: the games are displayed on the specified output (eg. the connection of a player)
+	public GameSession(DiceSource diceSource, PrintStream output){
+		this.diceSource = diceSource;
+		this.output = output;
+	}
+
+	// getters and setters
+	public Player[] getPlayers(){
+		return this.players;
+	}
+
+	public int getNumOfPlayers(){
+		return (players == null) ? 0 : players.length;
+	}
+
+	public DiceSource getDiceSource(){
+		return this.diceSource;
+	}
+
+	public PrintStream getOutput(){
+		return this.output;
+	}
+
+	public int getOutputMode(){
+		return this.outputMode;
+	}
+
+	/**
+	 * this method returns the renderer which writes all the text of the session to its output in the output mode of
+	 * the session (see ScreenRenderer)
+	 */
+	public ScreenRenderer getScreen(){
+
+		if(screen == null)
+			screen = new ScreenRenderer(output, outputMode);
+		return screen;
+	}
+
+	public boolean isInteractive(){
+		return this.interactive;
+	}
+
+	public SpectatorFeed getSpectatorFeed(){
+		return this.spectatorFeed;
+	}
+
+	public Leaderboard getLeaderboard(){
+		return this.leaderboard;
+	}
+
+	public SaveStore getSaveStore(){
+		return this.saveStore;
+	}
+
+	/**
+	 * this method lets the games of the session record their results in the specified highscores instead of the
+	 * highscores of the program (eg. the games of the automated players, see SessionDriver).
+	 * It must be called before the session is played.
+	 */
+	public void setLeaderboard(Leaderboard leaderboard){
+		this.leaderboard = leaderboard;
+	}
+
+	/**
+	 * this method lets the games of the session save and restore the games in the specified store instead of the
+	 * saved games of the program. It must be called before the session is played.
+	 */
+	public void setSaveStore(SaveStore saveStore){
+		this.saveStore = saveStore;
+	}
+
+	/**
+	 * this method lets spectators follow the games of the session (see SpectatorFeed).
+	 * It must be called before the next game is created, the games which were already created are not published.
+	 */
+	public void setSpectatorFeed(SpectatorFeed spectatorFeed){
+		this.spectatorFeed = spectatorFeed;
+	}
+
+	/**
+	 * this method sets how the games of the session are displayed: ScreenRenderer.PLAIN, ANSI or MACHINE.
+	 * It must be called before the session is played.
+	 */
+	public void setOutputMode(int outputMode){
+		this.outputMode = outputMode;
+		this.screen = null;
+	}
+
+	/**
+	 * this method sets if the input of the session is typed by people. Without people (eg. a script, see InputSource),
+	 * the cosmetic delays of the games are skipped.
+	 */
+	public void setInteractive(boolean interactive){
+		this.interactive = interactive;
+	}
+
+	/**
+	 * this method reports a problem of an operation in the background (eg. the highscores could not be updated).
+	 * It can be called from any thread: the problem is displayed by the thread of the session (see displayProblems()),
+	 * so it doesn't end up in the middle of a screen.
+	 */
+	public void reportProblem(String message){
+		problems.add(message);
+	}
+
+	/**
+	 * this method displays the problems which were reported since the last call (only called by the thread of the session,
+	 * eg. before the main menu)
+	 */
+	public void displayProblems(){
+
+		for(String message = problems.poll(); message != null; message = problems.poll())
+			getScreen().line(message);
+	}
+
+	/**
+	 * this method replaces the players of the session (eg. when a saved game is restored)
+	 */
+	public void setPlayers(Player[] players){
+		this.players = players;
+	}
+}
@@ -0,0 +1,47 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+/**
+ * this is a simple automated player:
+ * - it keeps the dice with the most common face (the higher face if two faces are equally common) and rolls the others again
+ * - it selects the valid option with the most points
+ * - if there are no valid options, it crosses out the first empty field of a fixed list (the fields that are hard to score first)
+ */
+public class GreedyPolicy implements Policy{
+
+	// the order in which the fields are crossed out
+	private static final int[] CROSS_OUT_ORDER = {YATZY_FIELD, 0, 1, LARGE_STRAIGHT_FIELD, FOUR_OF_A_KIND_FIELD, FULL_HOUSE_FIELD,
+		2, SMALL_STRAIGHT_FIELD, 3, THREE_OF_A_KIND_FIELD, 4, 5, CHANCE_FIELD};
+
+	@Override
+	public int chooseDiceToKeep(long card, int dice, int rollsDone){
+
+		int bestFace = 0;
+		for(int face = 1; face < NUM_OF_FACES; face++)
+			if(PackedState.getCounter(dice, face) >= PackedState.getCounter(dice, bestFace))
+				bestFace = face;
+		int keep = 0;
+		for(int i = 0; i < PackedState.getCounter(dice, bestFace); i++)
+			keep = PackedState.addDice(keep, bestFace);
+		return keep;
+	}
+
+	@Override
+	public int chooseField(long card, int dice, int validOptions){
+
+		int options = validOptions & ScoringTable.SELECTABLE_FIELDS;
+		if(options == 0){
+			int emptyFields = PackedState.getEmptyFields(card);
+			for(int field : CROSS_OUT_ORDER)
+				if((emptyFields & (1 << field)) != 0)
+					return field;
+		}
+		int combination = PackedState.getCombination(dice);
+		int best = -1;
+		for(int field = 0; field < NUM_OF_FIELDS - 2; field++)
+			if((options & (1 << field)) != 0 && (best == -1 || ScoringTable.getScore(combination, field) > ScoringTable.getScore(combination, best)))
+				best = field;
+		return best;
+	}
+}
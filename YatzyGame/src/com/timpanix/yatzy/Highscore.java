@@ -37,6 +37,6 @@ public class Highscore implements Serializable, Comparable<Highscore>{
 	@Override
 	public int compareTo(Highscore score) {
 		
-		return score.getScore() - this.getScore();	// sort in descending order!!!! (most points first!)
+		return Integer.compare(score.getScore(), this.getScore());	// sort in descending order!!!! (most points first!)
 	}
 }
@@ -0,0 +1,391 @@
+package com.timpanix.yatzy;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * this class stores the results of all games in an append-only log file. Recording a result is one sequential append
+ * to the end of the log, the file is never read, sorted and rewritten for a single result.
+ * The best results (max. 10) are kept in a small index file together with the position in the log up to which they are valid,
+ * so reading the highscores only needs the index and the records appended after it. When the log gets too long,
+ * it is compacted in the background: the log is replaced by a new generation that only contains the highscores,
+ * and the index is updated.
+ *
+ * All changes to the files are made while holding a lock on the lock file, so several programs (and several threads)
+ * can record results at the same time. Records are checked with a checksum: a record that was not written completely
+ * (eg. the program was killed) is ignored and removed by the next writer.
+ *
+ * Log file (big endian):
+ * - header: int magic number "YTZH", int format version, long generation
+ * - records: int length of the data, data (UTF name, UTF date, int score), int CRC32 of the data
+ *
+ * Index file (big endian):
+ * - int magic number "YTZI", int format version, long generation of the log, long position in the log, int number of highscores
+ * - the highscores (UTF name, UTF date, int score), best first
+ */
+public class HighscoreLog {
+
+	public static final String DEFAULT_FILE_NAME = "highscores.log";
+	public static final int MAX_NUM_OF_HIGHSCORES = 10;
+	private static final int LOG_MAGIC = 0x59545A48;		// "YTZH"
+	private static final int INDEX_MAGIC = 0x59545A49;		// "YTZI"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	private static final int MAX_RECORD_SIZE = 1024;
+	private static final long COMPACTION_THRESHOLD = 16 * 1024;	// size of the records after the index (bytes)
+	// all logs of the program share one thread for the compaction
+	private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "highscore-compactor");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// FileLocks are held by the whole program, so the threads of the program are synchronized with this lock first
+	private static final ReentrantLock WRITE_LOCK = new ReentrantLock();
+
+	private final Path logFile;
+	private final Path indexFile;
+	private final Path lockFile;
+	private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+	private long validGeneration = -1;	// generation and end of the log as this object last left it
+	private long validEnd = -1;			// (both only used while holding the locks)
+
+	// constructor
+	public HighscoreLog(Path logFile){
+		this.logFile = logFile;
+		this.indexFile = logFile.resolveSibling(logFile.getFileName() + ".idx");
+		this.lockFile = logFile.resolveSibling(logFile.getFileName() + ".lock");
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										WRITE OPERATIONS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method appends a result to the log. If the log got too long, the compaction is started in the background.
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	public void record(Highscore highscore) throws IOException{
+		recordAll(Collections.singletonList(highscore));
+	}
+
+	/**
+	 * this method appends several results to the log (eg. the results of all players of a game, or of many games)
+	 * in one write, and forces them to the disk once. If the log got too long, the compaction is started in the background.
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	public void recordAll(Collection<Highscore> highscores) throws IOException{
+
+		if(highscores.isEmpty())
+			return;
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		for(Highscore h : highscores)
+			records.write(encodeRecord(h));
+		long sizeAfterIndex;
+		WRITE_LOCK.lock();
+		try(FileChannel lock = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)){
+			lock.lock();	// released when the channel is closed
+			try(FileChannel log = openLog()){
+				ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+				long position = log.size();
+				while(buffer.hasRemaining())
+					position += log.write(buffer, position);
+				log.force(false);
+				validEnd = position;
+				sizeAfterIndex = position - readIndexPosition(readHeader(log));
+			}
+		}finally{
+			WRITE_LOCK.unlock();
+		}
+		if(sizeAfterIndex > COMPACTION_THRESHOLD && compactionScheduled.compareAndSet(false, true))
+			COMPACTOR.execute(this::compactInBackground);
+	}
+
+	/**
+	 * this method replaces the log by a new generation that only contains the highscores, and writes the index.
+	 * Both files are written to temporary files first and then renamed, so readers always see complete files.
+	 *
+	 * @throws IOException if the files cannot be written
+	 */
+	public void compact() throws IOException{
+
+		WRITE_LOCK.lock();
+		try(FileChannel lock = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)){
+			lock.lock();	// released when the channel is closed
+			List<Highscore> highscores = getHighscores();
+			long generation = readGeneration() + 1;
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(LOG_MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(generation);
+			for(Highscore h : highscores)
+				out.write(encodeRecord(h));
+			long indexPosition = bytes.size();
+			replaceFile(logFile, bytes.toByteArray());
+			validGeneration = generation;
+			validEnd = indexPosition;
+
+			bytes.reset();
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(generation);
+			out.writeLong(indexPosition);
+			out.writeInt(highscores.size());
+			for(Highscore h : highscores)
+				writeHighscore(out, h);
+			replaceFile(indexFile, bytes.toByteArray());
+		}finally{
+			WRITE_LOCK.unlock();
+		}
+	}
+
+	/**
+	 * this method is run by the compaction thread
+	 */
+	private void compactInBackground(){
+
+		try{
+			compact();
+		}catch(IOException ioe){
+			System.out.println("The highscore log " + logFile + " could not be compacted");
+		}finally{
+			compactionScheduled.set(false);
+		}
+	}
+
+	/**
+	 * this method opens the log for writing (the locks must be held). A new log gets a header. If the log does not end where
+	 * this object left it (eg. another process appended records, or crashed in the middle of an append), the records after
+	 * the last known valid end are checked, and records at the end which were not written completely are removed.
+	 */
+	private FileChannel openLog() throws IOException{
+
+		FileChannel log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try{
+			if(log.size() == 0){
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(LOG_MAGIC).putInt(VERSION).putLong(1).flip();
+				while(header.hasRemaining())
+					log.write(header, header.position());
+				validGeneration = 1;
+				validEnd = HEADER_SIZE;
+			}else{
+				long generation = readHeader(log);
+				long size = log.size();
+				if(generation != validGeneration || validEnd < HEADER_SIZE || validEnd > size){
+					validGeneration = generation;
+					validEnd = HEADER_SIZE;
+				}
+				if(validEnd < size){
+					validEnd = scanRecords(log, validEnd, new ArrayList<Highscore>());
+					if(validEnd < size)
+						log.truncate(validEnd);
+				}
+			}
+			return log;
+		}catch(IOException ioe){
+			log.close();
+			throw ioe;
+		}
+	}
+
+	/**
+	 * this method writes a file to a temporary file first, forces it to the disk and then renames it
+	 * (so the renamed file is complete even if the program or the system crashes)
+	 */
+	private static void replaceFile(Path file, byte[] data) throws IOException{
+
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try(FileChannel temp = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)){
+			ByteBuffer buffer = ByteBuffer.wrap(data);
+			while(buffer.hasRemaining())
+				temp.write(buffer);
+			temp.force(true);
+		}
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										READ OPERATIONS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method returns the highscores (max. 10), best first. The highscores of the index are merged with the records
+	 * which were appended after the index was written. No locks are needed: incomplete records are ignored.
+	 *
+	 * @throws IOException if the log cannot be read
+	 */
+	public List<Highscore> getHighscores() throws IOException{
+
+		List<Highscore> highscores = new ArrayList<Highscore>();
+		if(!Files.exists(logFile))
+			return highscores;
+		try(FileChannel log = FileChannel.open(logFile, StandardOpenOption.READ)){
+			long generation = readHeader(log);
+			long position = HEADER_SIZE;
+			// use the index if it belongs to the current generation of the log
+			if(Files.exists(indexFile)){
+				try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))){
+					if(in.readInt() == INDEX_MAGIC && in.readInt() == VERSION && in.readLong() == generation){
+						position = in.readLong();
+						int numOfHighscores = in.readInt();
+						for(int i = 0; i < numOfHighscores; i++)
+							highscores.add(readHighscore(in));
+					}
+				}catch(EOFException eofe){
+					highscores.clear();		// an incomplete index is not used
+					position = HEADER_SIZE;
+				}
+			}
+			scanRecords(log, position, highscores);
+		}
+		return highscores;
+	}
+
+	/**
+	 * this method reads the records from the specified position to the end of the log (or to the first incomplete record)
+	 * and adds them to the highscores
+	 *
+	 * @return: the position after the last complete record
+	 */
+	private static long scanRecords(FileChannel log, long position, List<Highscore> highscores) throws IOException{
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(log.position(position))));
+		CRC32 crc = new CRC32();
+		byte[] data = new byte[MAX_RECORD_SIZE];
+		long size = log.size();
+		try{
+			while(position + 8 <= size){
+				int length = in.readInt();
+				if(length <= 0 || length > MAX_RECORD_SIZE || position + 8 + length > size)
+					break;
+				in.readFully(data, 0, length);
+				crc.reset();
+				crc.update(data, 0, length);
+				if(in.readInt() != (int) crc.getValue())
+					break;
+				addHighscore(highscores, readHighscore(new DataInputStream(new ByteArrayInputStream(data, 0, length))));
+				position += 8 + length;
+			}
+		}catch(EOFException eofe){
+			// the log was truncated by a writer in the meantime: the records read so far are used
+		}
+		return position;
+	}
+
+	/**
+	 * this method checks the header of the log
+	 *
+	 * @return: the generation of the log
+	 */
+	private long readHeader(FileChannel log) throws IOException{
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while(header.hasRemaining())
+			if(log.read(header, header.position()) < 0)
+				throw new IOException("The file " + logFile + " is not a highscore log");
+		if(header.getInt(0) != LOG_MAGIC || header.getInt(4) != VERSION)
+			throw new IOException("The file " + logFile + " is not a highscore log");
+		return header.getLong(8);
+	}
+
+	/**
+	 * this method returns the generation of the log (0 if there is no log yet)
+	 */
+	private long readGeneration() throws IOException{
+
+		if(!Files.exists(logFile) || Files.size(logFile) == 0)
+			return 0;
+		try(FileChannel log = FileChannel.open(logFile, StandardOpenOption.READ)){
+			return readHeader(log);
+		}
+	}
+
+	/**
+	 * this method returns the position in the log up to which the index is valid (the header size if there is no valid index
+	 * for the specified generation of the log)
+	 */
+	private long readIndexPosition(long generation) throws IOException{
+
+		if(!Files.exists(indexFile))
+			return HEADER_SIZE;
+		try(DataInputStream in = new DataInputStream(Files.newInputStream(indexFile))){
+			if(in.readInt() != INDEX_MAGIC || in.readInt() != VERSION || in.readLong() != generation)
+				return HEADER_SIZE;
+			return in.readLong();
+		}catch(EOFException eofe){
+			return HEADER_SIZE;
+		}
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										HELPER METHODS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method adds a highscore to a list of highscores (best first): if there are less than 10 highscores it is added,
+	 * otherwise it replaces the lowest highscore if it is higher.
+	 */
+	public static void addHighscore(List<Highscore> highscores, Highscore highscore){
+
+		if(highscores.size() < MAX_NUM_OF_HIGHSCORES)
+			highscores.add(highscore);
+		else if(highscores.get(highscores.size() - 1).getScore() < highscore.getScore())
+			highscores.set(highscores.size() - 1, highscore);
+		else
+			return;
+		Collections.sort(highscores);	// sorting is done according to the implementation of the compareTo method
+	}
+
+	/**
+	 * this method converts a highscore into a log record (length, data, checksum)
+	 */
+	private static byte[] encodeRecord(Highscore highscore) throws IOException{
+
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		writeHighscore(new DataOutputStream(data), highscore);
+		if(data.size() > MAX_RECORD_SIZE)
+			throw new IOException("The highscore of " + highscore.getName() + " is too long");
+		CRC32 crc = new CRC32();
+		crc.update(data.toByteArray());
+		ByteBuffer record = ByteBuffer.allocate(data.size() + 8);
+		record.putInt(data.size()).put(data.toByteArray()).putInt((int) crc.getValue());
+		return record.array();
+	}
+
+	private static void writeHighscore(DataOutputStream out, Highscore highscore) throws IOException{
+
+		out.writeUTF(highscore.getName());
+		out.writeUTF(highscore.getDate());
+		out.writeInt(highscore.getScore());
+	}
+
+	private static Highscore readHighscore(DataInputStream in) throws IOException{
+		return new Highscore(in.readUTF(), in.readUTF(), in.readInt());
+	}
+}
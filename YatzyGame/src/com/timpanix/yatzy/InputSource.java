@@ -0,0 +1,61 @@
+package com.timpanix.yatzy;
+
+import java.util.InputMismatchException;
+
+/**
+ * this interface is implemented by the sources of the input of a session: the players on the console or a connection,
+ * a script of commands (eg. a session of a customer which is replayed, see ScannerInput) or an automated player (PolicyInput).
+ * The game asks for one token (a word or a number) at a time and passes the question, so an automated player knows
+ * what to answer.
+ *
+ * A source which is not interactive plays at full speed: the cosmetic delays of the game (eg. the progress bar) are skipped.
+ */
+public interface InputSource{
+
+	// the questions of the game
+	public static final int MAIN_MENU = 1;			// 1 - 5 (see Yatzy.displayMainMenu())
+	public static final int NUM_OF_PLAYERS = 2;		// 1 - 4
+	public static final int PLAYER_NAME = 3;		// max. 10 letters, unique
+	public static final int FIRST_PLAYER = 4;		// the name of a player or "R" (random)
+	public static final int ROLL_AGAIN = 5;			// 1: select an option, 2: roll all dice, 3: roll some dice
+	public static final int DICE_TO_ROLL = 6;		// the numbers of the dice, eg. "135"
+	public static final int SELECT_FIELD = 7;		// the abbreviation of a valid option (see Yatzy.getAbbreviations())
+	public static final int CROSS_OUT_FIELD = 8;	// the abbreviation of an empty field
+	public static final int CONTINUE_GAME = 9;		// "C" (continue) or "E" (exit) at the end of a round
+	public static final int SAVE_GAME = 10;			// "Y" or "N"
+	public static final int RECOVER_GAME = 11;		// "Y" or "N"
+	public static final int SAVED_GAME = 12;		// the slot id of a saved game
+	public static final int RULES_SECTION = 13;		// 1 - 8 (see Yatzy.displayWhichRule())
+	public static final int CLOSE = 14;				// "C" (closes the rules or the highscores)
+	public static final int ANY_KEY = 15;			// any letter or number
+
+	/**
+	 * this method returns the next token of the input
+	 *
+	 * @throws java.util.NoSuchElementException if the input has ended (eg. the end of a script or a closed connection)
+	 */
+	public String next(int question);
+
+	/**
+	 * this method returns the next token of the input as a number
+	 *
+	 * @throws InputMismatchException if the token is not a number (the token is skipped)
+	 */
+	public default int nextInt(int question){
+
+		String token = next(question);
+		try{
+			return Integer.parseInt(token);
+		}catch(NumberFormatException nfe){
+			throw new InputMismatchException(token);
+		}
+	}
+
+	/**
+	 * @return: true if the input is typed by people (the game is displayed with its delays), false if it is read from
+	 * 			a script or a program
+	 */
+	public default boolean isInteractive(){
+		return true;
+	}
+}
@@ -0,0 +1,144 @@
+package com.timpanix.yatzy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * this class keeps the highscores of the program in memory. The highscores are loaded from the HighscoreLog once,
+ * afterwards they are read from memory only. New results are added to the highscores in memory immediately and
+ * written to the log later (write-behind): the first result after a write schedules the next write, and all results
+ * that arrive until then are written together. So the log is at most maxStalenessMillis behind the highscores in memory.
+ * The results which were not written yet are written when the program ends. If a write fails, it is tried again
+ * later, and the time until the next try is doubled with every failure (max. MAX_RETRY_DELAY_MILLIS).
+ *
+ * Any number of games can submit results at the same time without a lock (see TopScores). Results which are not
+ * high enough for the highscores are rejected immediately, but they are written to the log as well.
+ *
+ * Results recorded by other programs after the highscores were loaded are not shown until the program is started again.
+ */
+public class Leaderboard {
+
+	public static final long DEFAULT_MAX_STALENESS_MILLIS = 1000;
+	public static final long MAX_RETRY_DELAY_MILLIS = 60 * 1000;
+	// all leaderboards of the program share one thread for writing
+	private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "highscore-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final HighscoreLog log;
+	private final long maxStalenessMillis;
+	private final ConcurrentLinkedQueue<Highscore> pending = new ConcurrentLinkedQueue<Highscore>();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private volatile TopScores highscores;		// null until the highscores were loaded
+	private long retryDelayMillis;		// the time until the next try after a failed write (only used by the writer thread)
+
+	// constructor
+	public Leaderboard(HighscoreLog log){
+		this(log, DEFAULT_MAX_STALENESS_MILLIS);
+	}
+
+	// constructor
+	public Leaderboard(HighscoreLog log, long maxStalenessMillis){
+		this.log = log;
+		this.maxStalenessMillis = maxStalenessMillis;
+		this.retryDelayMillis = maxStalenessMillis;
+		Runtime.getRuntime().addShutdownHook(new Thread(this::flushOnExit, "highscore-flush"));
+	}
+
+	/**
+	 * this method returns a snapshot of the highscores (max. 10), best first. Only the first call reads the log.
+	 *
+	 * @throws IOException if the highscores were not loaded yet and the log cannot be read
+	 */
+	public List<Highscore> getHighscores() throws IOException{
+		return load().getHighscores();
+	}
+
+	/**
+	 * this method adds results to the highscores in memory and schedules writing them to the log
+	 *
+	 * @throws IOException if the highscores were not loaded yet and the log cannot be read
+	 */
+	public void submit(Collection<Highscore> results) throws IOException{
+
+		TopScores scores = load();
+		for(Highscore h : results)
+			scores.submit(h);
+		pending.addAll(results);
+		if(flushScheduled.compareAndSet(false, true))
+			WRITER.schedule(this::flushInBackground, maxStalenessMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * this method writes all results which were not written yet to the log (in one write)
+	 *
+	 * @throws IOException if the log cannot be written. The results are written with the next write.
+	 */
+	public void flush() throws IOException{
+
+		List<Highscore> batch = new ArrayList<Highscore>();
+		for(Highscore h = pending.poll(); h != null; h = pending.poll())
+			batch.add(h);
+		try{
+			log.recordAll(batch);
+		}catch(IOException ioe){
+			pending.addAll(batch);
+			throw ioe;
+		}
+	}
+
+	/**
+	 * this method loads the highscores from the log, if they were not loaded yet. Only loading is synchronized.
+	 */
+	private TopScores load() throws IOException{
+
+		TopScores scores = highscores;
+		if(scores == null){
+			synchronized(this){
+				if(highscores == null)
+					highscores = new TopScores(HighscoreLog.MAX_NUM_OF_HIGHSCORES, log.getHighscores());
+				scores = highscores;
+			}
+		}
+		return scores;
+	}
+
+	/**
+	 * this method is run by the writer thread. If the write fails, the next try is scheduled (unless a new result
+	 * has scheduled a write already).
+	 */
+	private void flushInBackground(){
+
+		flushScheduled.set(false);		// results submitted from now on schedule the next write
+		try{
+			flush();
+			retryDelayMillis = maxStalenessMillis;
+		}catch(IOException ioe){
+			System.out.println("The highscores could not be written. They will be written again later.");
+			if(flushScheduled.compareAndSet(false, true))
+				WRITER.schedule(this::flushInBackground, retryDelayMillis, TimeUnit.MILLISECONDS);
+			retryDelayMillis = Math.min(Math.max(retryDelayMillis, 1) * 2, MAX_RETRY_DELAY_MILLIS);
+		}
+	}
+
+	/**
+	 * this method is run when the program ends
+	 */
+	private void flushOnExit(){
+
+		try{
+			flush();
+		}catch(IOException ioe){
+			System.out.println("The highscores could not be written.");
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.timpanix.yatzy;
+
+
+/**
+ * this automated player plays optimally (maximum expected score for a single player game) using the expected scores
+ * of a StrategyTable. At the beginning of every turn, the TurnEvaluator calculates the best decisions for the turn.
+ */
+public class OptimalPolicy implements Policy{
+
+	private final TurnEvaluator evaluator;
+	private int evaluatedState = -1;		// the state of the last call of evaluate()
+
+	// constructor
+	public OptimalPolicy(StrategyTable table){
+		this.evaluator = new TurnEvaluator(table);
+	}
+
+	@Override
+	public int chooseDiceToKeep(long card, int dice, int rollsDone){
+
+		evaluate(card);
+		return evaluator.getBestKeeper(rollsDone, PackedState.getCombination(dice));
+	}
+
+	@Override
+	public int chooseField(long card, int dice, int validOptions){
+
+		evaluate(card);
+		return evaluator.getBestField(PackedState.getCombination(dice));
+	}
+
+	/**
+	 * this method calculates the best decisions for the turn, unless they were calculated for the same state already
+	 */
+	private void evaluate(long card){
+
+		int state = StrategySolver.getStateIndex(card);
+		if(state != evaluatedState){
+			evaluator.evaluate(PackedState.getFilledFields(card), Math.min(PackedState.getUpperSum(card), YatzyEngine.UPPER_BONUS_THRESHOLD),
+					PackedState.isYatzyScored(card));
+			evaluatedState = state;
+		}
+	}
+}
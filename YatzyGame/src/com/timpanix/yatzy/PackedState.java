@@ -0,0 +1,204 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+/**
+ * this class provides a compact representation of the dice and of a player's game card, so that whole turns can be played
+ * with primitive values only (no arrays, no objects). It is used alongside the int[] and boolean[] arrays of the classes
+ * Yatzy and Player, e.g. to keep a large number of games in memory or to simulate games.
+ *
+ * Dice (int): the face counters in 3-bit fields, bits 3*i to 3*i+2 hold the number of dice showing face i (0 - 5).
+ *
+ * Game card (long):
+ * - bits  0 - 13: the filled fields (bit i is set if field i was scored or crossed out, bit 6 (upper bonus) is never set)
+ * - bits 16 - 23: the sum of the upper section
+ * - bit  24:      set if a yatzy was scored in the yatzy field (needed for the additional yatzy bonus)
+ * - bits 32 - 47: the total score (incl. all bonuses)
+ */
+public final class PackedState {
+
+	public static final long NEW_GAME = 0L;
+	public static final int ALL_FIELDS = ScoringTable.SELECTABLE_FIELDS;		// the 13 fields that have to be filled
+	private static final int BITS_PER_FACE = 3;
+	private static final int FACE_MASK = 7;
+	private static final int UPPER_SUM_SHIFT = 16;
+	private static final int YATZY_SCORED_BIT = 24;
+	private static final int TOTAL_SHIFT = 32;
+
+	// no instances: all methods are static
+	private PackedState(){
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										DICE OPERATIONS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method packs the face counters (int[6]) into an int
+	 */
+	public static int packDice(int[] diceValueCounters){
+
+		int dice = 0;
+		for(int i = 0; i < NUM_OF_FACES; i++)
+			dice |= diceValueCounters[i] << (BITS_PER_FACE * i);
+		return dice;
+	}
+
+	/**
+	 * this method returns the number of dice showing the specified face (0 - 5)
+	 */
+	public static int getCounter(int dice, int face){
+		return (dice >>> (BITS_PER_FACE * face)) & FACE_MASK;
+	}
+
+	/**
+	 * this method adds one dice with the specified face (0 - 5)
+	 */
+	public static int addDice(int dice, int face){
+		return dice + (1 << (BITS_PER_FACE * face));
+	}
+
+	/**
+	 * this method returns the number of dice
+	 */
+	public static int getNumOfDice(int dice){
+
+		int num = 0;
+		for(int i = 0; i < NUM_OF_FACES; i++)
+			num += getCounter(dice, i);
+		return num;
+	}
+
+	/**
+	 * this method rolls the dice which are not kept. The kept dice are passed in the same packed format.
+	 *
+	 * @return: the packed face counters of all 5 dice
+	 */
+	public static int rollDice(int keptDice, DiceSource random){
+
+		int dice = keptDice;
+		for(int i = getNumOfDice(keptDice); i < NUM_OF_DICE; i++)
+			dice = addDice(dice, random.nextFace());
+		return dice;
+	}
+
+	/**
+	 * this method returns the index of the packed dice in the ScoringTable
+	 */
+	public static int getCombination(int dice){
+
+		int key = 0;
+		for(int i = 0; i < NUM_OF_FACES; i++)
+			key = key * NUM_OF_FACES + getCounter(dice, i);
+		return ScoringTable.indexOfKey(key);
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										GAME CARD OPERATIONS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method packs a game card (int[16] as used by the Player class) into a long
+	 */
+	public static long packGameCard(int[] gameCard){
+
+		long card = 0;
+		int upperSum = 0;
+		for(int i = 0; i < NUM_OF_FIELDS - 2; i++){
+			if(i == UPPER_BONUS_FIELD || gameCard[i] == -1)
+				continue;
+			card |= 1L << i;
+			if(i < UPPER_BONUS_FIELD)
+				upperSum += gameCard[i];
+		}
+		card |= (long) upperSum << UPPER_SUM_SHIFT;
+		if(gameCard[YATZY_FIELD] > 0)
+			card |= 1L << YATZY_SCORED_BIT;
+		return card | (long) gameCard[TOTALS_FIELD] << TOTAL_SHIFT;
+	}
+
+	/**
+	 * this method returns the filled fields as a bitmask (bit i is set if field i was scored or crossed out)
+	 */
+	public static int getFilledFields(long card){
+		return (int) card & ALL_FIELDS;
+	}
+
+	/**
+	 * this method returns the empty fields as a bitmask (in the same format as ScoringTable.getEmptyFieldsMask())
+	 */
+	public static int getEmptyFields(long card){
+		return ~(int) card & ALL_FIELDS;
+	}
+
+	public static int getUpperSum(long card){
+		return (int) (card >>> UPPER_SUM_SHIFT) & 0xFF;
+	}
+
+	public static boolean isYatzyScored(long card){
+		return (card & (1L << YATZY_SCORED_BIT)) != 0;
+	}
+
+	public static int getTotal(long card){
+		return (int) (card >>> TOTAL_SHIFT) & 0xFFFF;
+	}
+
+	public static boolean isGameOver(long card){
+		return getFilledFields(card) == ALL_FIELDS;
+	}
+
+	/**
+	 * this method returns the valid options for the dice as a bitmask (see ScoringTable.getValidOptionsMask())
+	 */
+	public static int getValidOptions(long card, int combination){
+		return ScoringTable.getValidOptionsMask(combination, getEmptyFields(card), isYatzyScored(card));
+	}
+
+	/**
+	 * this method scores the dice in the selected field, which must be one of the valid options.
+	 * The upper section bonus and the additional yatzy bonus are added as in YatzyEngine.makeSelection().
+	 *
+	 * @return: the new game card
+	 */
+	public static long makeSelection(long card, int combination, int field, int validOptions){
+
+		if((validOptions & (1 << field)) == 0 || field >= YATZY_BONUS_FIELD)
+			throw new IllegalArgumentException("Field " + field + " is not a valid option");
+
+		int points = ScoringTable.getScore(combination, field);
+		card |= 1L << field;
+		if(field < UPPER_BONUS_FIELD){
+			int upperSum = getUpperSum(card);
+			// the bonus is won when the sum of the upper section reaches 63
+			if(upperSum < UPPER_BONUS_THRESHOLD && upperSum + points >= UPPER_BONUS_THRESHOLD)
+				points += BONUS_UPPERSECTION;
+			card += (long) ScoringTable.getScore(combination, field) << UPPER_SUM_SHIFT;
+		}
+		if(field == YATZY_FIELD)
+			card |= 1L << YATZY_SCORED_BIT;
+		if((validOptions & ScoringTable.YATZY_BONUS_BIT) != 0)
+			points += ADDITIONAL_YATZY_BONUS;
+		return card + ((long) points << TOTAL_SHIFT);
+	}
+
+	/**
+	 * this method crosses out an empty field (the only move if there are no valid options).
+	 * If an additional yatzy bonus applies, it is added to the total.
+	 *
+	 * @return: the new game card
+	 */
+	public static long crossOutField(long card, int field, int validOptions){
+
+		if((getEmptyFields(card) & (1 << field)) == 0)
+			throw new IllegalArgumentException("Field " + field + " is not an empty field");
+
+		card |= 1L << field;
+		if((validOptions & ScoringTable.YATZY_BONUS_BIT) != 0)
+			card += (long) ADDITIONAL_YATZY_BONUS << TOTAL_SHIFT;
+		return card;
+	}
+}
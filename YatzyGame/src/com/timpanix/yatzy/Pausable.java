@@ -5,6 +5,7 @@ public interface Pausable{
 
 	public boolean saveGameState(Player[] players, int round, int currentPlayer);
 	public int[] restoreGame();
+	public int[] restoreGame(int slotId);
 }
 
 
@@ -0,0 +1,151 @@
+package com.timpanix.yatzy;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * this class writes and reads the files of the games (saved games, highscores, journal, recordings) on a thread of its own,
+ * so the thread of a game doesn't wait for the disk: the game submits a task and carries on, and the result (or the
+ * failure) is reported through a CompletableFuture.
+ *
+ * The tasks run one after the other in the order they were submitted, so the tasks of one file never overtake each other
+ * (eg. the moves of the journal). The queue is bounded: if the disk is so slow that the queue is full, the game waits
+ * until there is room again (the tasks are never dropped or reordered). Threads which must never wait (eg. the thread
+ * of the YatzyNioServer, which handles all connections) use tryRun(): if the queue is full, the task is not run and
+ * its future is completed exceptionally.
+ * Before the program ends, drain() waits until all submitted tasks were run.
+ */
+public class PersistenceExecutor {
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+	private static final long DRAIN_TIMEOUT_MILLIS = 10000;
+	private static PersistenceExecutor shared;		// the executor of all games of the program (null until it is needed)
+	// true while a thread submits a task which is rejected if the queue is full (see tryRun())
+	private static final ThreadLocal<Boolean> NOT_WAITING = ThreadLocal.withInitial(() -> false);
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * this interface is implemented by tasks which don't return a result (eg. writing a file)
+	 */
+	public interface Task {
+		public void run() throws Exception;
+	}
+
+	// constructor
+	public PersistenceExecutor(int queueCapacity){
+
+		this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueCapacity),
+			r -> {
+				Thread thread = new Thread(r, "yatzy-persistence");
+				thread.setDaemon(true);
+				return thread;
+			},
+			(task, pool) -> {
+				// the queue is full: wait for room (after shutdown() the task is run by the caller), unless tryRun() was called
+				if(NOT_WAITING.get())
+					throw new RejectedExecutionException("The queue of the persistence thread is full");
+				try{
+					if(!pool.isShutdown()){
+						pool.getQueue().put(task);
+						return;
+					}
+				}catch(InterruptedException ie){
+					Thread.currentThread().interrupt();
+				}
+				task.run();
+			});
+	}
+
+	/**
+	 * this method returns the executor shared by all games of the program. The tasks which were not run yet are run
+	 * when the program ends.
+	 */
+	public static synchronized PersistenceExecutor getShared(){
+
+		if(shared == null){
+			shared = new PersistenceExecutor(DEFAULT_QUEUE_CAPACITY);
+			Runtime.getRuntime().addShutdownHook(new Thread(shared::drain, "yatzy-persistence-drain"));
+		}
+		return shared;
+	}
+
+	/**
+	 * @return: the number of tasks waiting to be run
+	 */
+	public int getNumOfPendingTasks(){
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * this method submits a task which returns a result
+	 *
+	 * @return: a future which is completed with the result of the task, or exceptionally if the task failed
+	 */
+	public <T> CompletableFuture<T> submit(Callable<T> task){
+
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		executor.execute(() -> {
+			try{
+				future.complete(task.call());
+			}catch(Throwable t){
+				future.completeExceptionally(t);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * this method submits a task without a result
+	 *
+	 * @return: a future which is completed when the task was run, or exceptionally if the task failed
+	 */
+	public CompletableFuture<Void> run(Task task){
+
+		return submit(() -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * this method submits a task without a result like run(), but never waits: if the queue is full, the task is not run
+	 *
+	 * @return: a future which is completed when the task was run, or exceptionally if the task failed or the queue was full
+	 */
+	public CompletableFuture<Void> tryRun(Task task){
+
+		NOT_WAITING.set(true);
+		try{
+			return run(task);
+		}catch(RejectedExecutionException ree){
+			return CompletableFuture.failedFuture(ree);
+		}finally{
+			NOT_WAITING.set(false);
+		}
+	}
+
+	/**
+	 * this method waits until all tasks submitted so far were run (max. 10 seconds). The executor can still be used afterwards.
+	 *
+	 * @return: true if all tasks were run
+	 */
+	public boolean drain(){
+
+		try{
+			run(() -> {}).get(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);		// the tasks run in order: all tasks before it were run
+			return true;
+		}catch(InterruptedException ie){
+			Thread.currentThread().interrupt();
+			return false;
+		}catch(ExecutionException | TimeoutException e){
+			return false;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package com.timpanix.yatzy;
-import static com.timpanix.yatzy.Yatzy.getNumOfFields;
+import static com.timpanix.yatzy.YatzyEngine.NUM_OF_FIELDS;
+import static com.timpanix.yatzy.YatzyEngine.TOTALS_FIELD;
 
 import java.io.Serializable;
 
@@ -13,11 +14,18 @@ public class Player implements Serializable{
 	// constructor
 	public Player(){
 		this.noOfWins = 0;
-		gameCard = new int[getNumOfFields()];
+		gameCard = new int[NUM_OF_FIELDS];
 		resetGameCard();
 		
 	}
 	
+	// constructor: used to restore a saved game (see SavedGame)
+	Player(String name, int[] gameCard, int noOfWins){
+		this.name = name;
+		this.gameCard = gameCard;
+		this.noOfWins = noOfWins;
+	}
+	
 	public String getName() {
 		return name;
 	}
@@ -51,7 +59,7 @@ public class Player implements Serializable{
 			this.gameCard[i] = -1;		// default value is -1 as 0 has a special meaning in yatzy
 		}								// (0 means that the player crossed out a field)
 		// special case: totals must have default value of 0, otherwise the sums are incorrect:
-		this.gameCard[getNumOfFields() - 1] = 0;	// totals are at the last index
+		this.gameCard[TOTALS_FIELD] = 0;	// totals are at the last index
 	}
 	
 	/**
@@ -0,0 +1,23 @@
+package com.timpanix.yatzy;
+
+
+/**
+ * this interface is implemented by automated players. The dice and the game card are passed in the packed format
+ * of the class PackedState.
+ * An instance of a policy may keep working memory, so it must only be used by one thread at a time.
+ */
+public interface Policy{
+
+	/**
+	 * this method decides which dice to keep after a roll (rollsDone: 1 or 2).
+	 *
+	 * @return: the dice to keep (a subset of the rolled dice). If all dice are kept, the player doesn't roll again.
+	 */
+	public int chooseDiceToKeep(long card, int dice, int rollsDone);
+
+	/**
+	 * this method chooses the field after the last roll. If there are valid options (validOptions, see ScoringTable.getValidOptionsMask()),
+	 * one of them must be returned. Otherwise the returned field must be empty and is crossed out.
+	 */
+	public int chooseField(long card, int dice, int validOptions);
+}
@@ -0,0 +1,151 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+/**
+ * this class plays a session without people: the questions of the game are answered by a Policy (eg. the GreedyPolicy),
+ * so complete games (menus, names, rolls, selections, highscores) are played at full speed, eg. to test the load of the
+ * whole game and not only of the engine. All players of the session are played by the policy.
+ *
+ * The input follows the games as a GameListener (see YatzyManager.playSession()), so it knows the dice and the game card
+ * of the current player when it is asked. After the specified number of games, it quits the session.
+ */
+public class PolicyInput implements InputSource, GameListener {
+
+	private final Policy policy;
+	private final int numOfPlayers;
+	private final int numOfGames;
+	private final int[] diceValues = new int[NUM_OF_DICE];
+	private final int[] diceValueCounters = new int[NUM_OF_FACES];
+	private Player[] players;		// the players of the current game (null until the first game starts)
+	private int currentPlayerIndex;
+	private int rollsDone;
+	private String diceToRoll;		// the answer to the next question which dice are rolled again
+	private int numOfNames;
+	private int gamesStarted;
+	private int gamesFinished;
+	private long totalPoints;		// the points of all players of the finished games
+
+	// constructor
+	public PolicyInput(Policy policy, int numOfPlayers, int numOfGames){
+		this.policy = policy;
+		this.numOfPlayers = numOfPlayers;
+		this.numOfGames = numOfGames;
+	}
+
+	// getters
+	public int getNumOfGamesFinished(){
+		return this.gamesFinished;
+	}
+
+	public long getTotalPoints(){
+		return this.totalPoints;
+	}
+
+	@Override
+	public boolean isInteractive(){
+		return false;
+	}
+
+	@Override
+	public String next(int question){
+
+		switch(question){
+		case MAIN_MENU:
+			if(gamesStarted == numOfGames)
+				return "5";		// quit the session
+			gamesStarted++;
+			return "1";
+		case NUM_OF_PLAYERS:
+			return Integer.toString(numOfPlayers);
+		case PLAYER_NAME:
+			return "Bot" + (++numOfNames);
+		case FIRST_PLAYER:
+			return "R";
+		case ROLL_AGAIN:
+			return chooseRoll();
+		case DICE_TO_ROLL:
+			return diceToRoll;
+		case SELECT_FIELD:
+		case CROSS_OUT_FIELD:
+			return Yatzy.getAbbreviations()[chooseField()];
+		case SAVE_GAME:
+		case RECOVER_GAME:
+			return "N";
+		case SAVED_GAME:
+		case RULES_SECTION:
+			return "1";
+		default:		// continue the game, close the rules or highscores, any key
+			return "C";
+		}
+	}
+
+	/**
+	 * this method asks the policy which dice to keep
+	 *
+	 * @return: the answer to the question if the dice are rolled again (see Yatzy.wantToRollAgain())
+	 */
+	private String chooseRoll(){
+
+		int[] gameCard = players[currentPlayerIndex].getGameCard();
+		int keep = policy.chooseDiceToKeep(PackedState.packGameCard(gameCard), PackedState.packDice(diceValueCounters), rollsDone);
+		if(PackedState.getNumOfDice(keep) == NUM_OF_DICE)
+			return "1";		// select one of the options
+		if(keep == 0)
+			return "2";		// roll all dice again
+		// every dice which is not needed for the dice to keep is rolled again (see RemoteBot)
+		StringBuilder numbers = new StringBuilder();
+		for(int i = 0; i < NUM_OF_DICE; i++){
+			if(PackedState.getCounter(keep, diceValues[i]) > 0)
+				keep -= 1 << (3 * diceValues[i]);		// this dice is kept (see PackedState)
+			else
+				numbers.append(i + 1);
+		}
+		diceToRoll = numbers.toString();
+		return "3";
+	}
+
+	/**
+	 * this method asks the policy which field to select (or to cross out if there are no valid options)
+	 */
+	private int chooseField(){
+
+		int[] gameCard = players[currentPlayerIndex].getGameCard();
+		int validOptions = YatzyEngine.getValidOptionsMask(gameCard, ScoringTable.indexOf(diceValueCounters));
+		return policy.chooseField(PackedState.packGameCard(gameCard), PackedState.packDice(diceValueCounters), validOptions);
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										GAME LISTENER
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	@Override
+	public void onGameStart(Player[] players, int round, int firstPlayer){
+		this.players = players;
+	}
+
+	@Override
+	public void onTurnStart(int round, int playerIndex){
+		currentPlayerIndex = playerIndex;
+	}
+
+	@Override
+	public void onRoll(int playerIndex, int rollNumber, boolean[] rolledDice, int[] diceValues){
+
+		System.arraycopy(diceValues, 0, this.diceValues, 0, NUM_OF_DICE);
+		YatzyEngine.countDice(this.diceValues, diceValueCounters);
+		rollsDone = rollNumber;
+	}
+
+	@Override
+	public void onGameEnd(Player[] players, boolean finished){
+
+		if(finished){
+			gamesFinished++;
+			for(Player player : players)
+				totalPoints += player.getGameCard(TOTALS_FIELD);
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * this class contains the main method of an automated client of the YatzyNioServer: it plays a number of games with the
+ * GreedyPolicy (all players are played by the bot) and displays the round trip times of the commands and the bytes per turn.
+ * It is an example of a client of the GameProtocol: the bot only knows the dice and game cards it received as deltas.
+ */
+public class RemoteBot {
+
+	private final Socket socket;
+	private final DataInputStream in;
+	private final OutputStream out;
+	private final ByteBuffer command = ByteBuffer.allocate(GameProtocol.MAX_FRAME_SIZE);
+	private final ByteBuffer delta = ByteBuffer.allocate(GameProtocol.MAX_FRAME_SIZE);
+	private final Policy policy = new GreedyPolicy();
+	private final int[] diceValues = new int[NUM_OF_DICE];
+	private final int[] diceValueCounters = new int[NUM_OF_FACES];
+	private int[][] gameCards;
+	private int validOptions;
+	private int currentPlayerIndex;
+	private int winner;
+	private long[] roundTrips = new long[1024];		// nanoseconds per command
+	private int numOfCommands;
+	private long bytesReceived;
+
+	// constructor: connects to the server on the specified port of the loopback address
+	public RemoteBot(int port) throws IOException{
+
+		this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		socket.setTcpNoDelay(true);
+		this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		this.out = socket.getOutputStream();
+	}
+
+	/**
+	 * this method plays one game
+	 *
+	 * @return: the index of the winner
+	 */
+	public int playGame(String[] names) throws IOException{
+
+		gameCards = new int[names.length][NUM_OF_FIELDS];
+		for(int[] gameCard : gameCards){
+			Arrays.fill(gameCard, -1);
+			gameCard[TOTALS_FIELD] = 0;
+		}
+		GameProtocol.writeNewGame(command, names, GameProtocol.FIRST_PLAYER_RANDOM);
+		boolean playing = send(GameProtocol.TURN);
+		while(playing){
+			roll(GameProtocol.ALL_DICE);
+			for(int rollsDone = 1; rollsDone < MAX_ROLLS; rollsDone++){
+				int keep = policy.chooseDiceToKeep(PackedState.packGameCard(gameCards[currentPlayerIndex]), PackedState.packDice(diceValueCounters), rollsDone);
+				if(PackedState.getNumOfDice(keep) == NUM_OF_DICE)
+					break;
+				roll(diceToRoll(keep));
+			}
+			int field = policy.chooseField(PackedState.packGameCard(gameCards[currentPlayerIndex]), PackedState.packDice(diceValueCounters), validOptions);
+			if((validOptions & ScoringTable.SELECTABLE_FIELDS) != 0)
+				GameProtocol.writeSelect(command, field);
+			else
+				GameProtocol.writeCrossOut(command, field);
+			playing = send(GameProtocol.TURN);
+		}
+		return winner;
+	}
+
+	/**
+	 * this method rolls the specified dice (bit i for dice i)
+	 */
+	private void roll(int diceToRoll) throws IOException{
+
+		GameProtocol.writeRoll(command, diceToRoll);
+		send(GameProtocol.DICE);
+	}
+
+	/**
+	 * this method sends the command and reads the deltas until the expected delta (or the end of the game) was received
+	 *
+	 * @return: false if the game ended
+	 */
+	private boolean send(byte expected) throws IOException{
+
+		long start = System.nanoTime();
+		out.write(command.array(), 0, command.position());
+		command.clear();
+		boolean first = true;
+		while(true){
+			byte type = readDelta();
+			if(first){
+				if(numOfCommands == roundTrips.length)
+					roundTrips = Arrays.copyOf(roundTrips, 2 * numOfCommands);
+				roundTrips[numOfCommands++] = System.nanoTime() - start;
+				first = false;
+			}
+			switch(type){
+			case GameProtocol.TURN:
+				delta.get();		// round
+				currentPlayerIndex = delta.get();
+				break;
+			case GameProtocol.DICE:
+				delta.getShort();	// player, roll
+				GameProtocol.unpackDiceValues(delta.getShort(), diceValues);
+				YatzyEngine.countDice(diceValues, diceValueCounters);
+				validOptions = delta.getShort();
+				break;
+			case GameProtocol.CARD:
+				int[] gameCard = gameCards[delta.get()];
+				int field = delta.get();
+				gameCard[field] = delta.getShort();
+				gameCard[TOTALS_FIELD] = delta.getShort();
+				break;
+			case GameProtocol.GAME_END:
+				winner = delta.get() & 0xFF;
+				return false;
+			case GameProtocol.ERROR:
+				throw new IOException("The server sent the error code " + delta.get());
+			}
+			if(type == expected)
+				return true;
+		}
+	}
+
+	/**
+	 * this method reads the next delta into the buffer (positioned after the type)
+	 *
+	 * @return: the type of the delta
+	 */
+	private byte readDelta() throws IOException{
+
+		int length = in.readUnsignedByte();
+		delta.clear();
+		in.readFully(delta.array(), 0, length);
+		delta.limit(length);
+		bytesReceived += length + 1;
+		return delta.get();
+	}
+
+	/**
+	 * this method returns the dice which are rolled again: every dice which is not needed for the dice to keep
+	 */
+	private int diceToRoll(int keep){
+
+		int mask = 0;
+		for(int i = 0; i < NUM_OF_DICE; i++){
+			if(PackedState.getCounter(keep, diceValues[i]) > 0)
+				keep -= 1 << (3 * diceValues[i]);		// this dice is kept (see PackedState)
+			else
+				mask |= 1 << i;
+		}
+		return mask;
+	}
+
+	public void close() throws IOException{
+		socket.close();
+	}
+
+	/**
+	 * @param args: the number of games (default 1000), the number of players (default 2), the port (default 4712)
+	 */
+	public static void main(String[] args) throws IOException{
+
+		int numOfGames = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int numOfPlayers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+		int port = args.length > 2 ? Integer.parseInt(args[2]) : YatzyNioServer.DEFAULT_PORT;
+		String[] names = new String[numOfPlayers];
+		for(int i = 0; i < numOfPlayers; i++)
+			names[i] = "Bot " + (i + 1);
+
+		RemoteBot bot = new RemoteBot(port);
+		int[] wins = new int[numOfPlayers];
+		long start = System.nanoTime();
+		for(int i = 0; i < numOfGames; i++)
+			wins[bot.playGame(names)]++;
+		long time = System.nanoTime() - start;
+		bot.close();
+
+		long[] roundTrips = Arrays.copyOf(bot.roundTrips, bot.numOfCommands);
+		Arrays.sort(roundTrips);
+		int turns = numOfGames * numOfPlayers * NUM_OF_ROUNDS;
+		System.out.printf("%d games in %.1f s, wins: %s%n", numOfGames, time / 1e9, Arrays.toString(wins));
+		System.out.printf("Round trip per command: average %.1f us, median %.1f us, 99%% %.1f us%n",
+				(double) time / roundTrips.length / 1e3, roundTrips[roundTrips.length / 2] / 1e3, roundTrips[roundTrips.length * 99 / 100] / 1e3);
+		System.out.printf("Bytes received per turn: %.1f%n", (double) bot.bytesReceived / turns);
+	}
+}
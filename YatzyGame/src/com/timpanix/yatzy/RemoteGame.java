@@ -0,0 +1,311 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * this class plays the games of one connection of the YatzyNioServer. It takes the commands of the GameProtocol, applies
+ * them with the YatzyEngine (the same rules as the console game) and writes the changes of the game (deltas) to the output.
+ * The games are played with the players and the dice of a GameSession, so the wins of the players are counted over all
+ * games of a connection.
+ *
+ * The game runs without any input or output of its own: a command is handled completely when handle() returns, so many
+ * games can be played on one thread. An instance must only be used by one thread at a time.
+ */
+public class RemoteGame {
+
+	private final GameSession session;
+	private final List<GameListener> gameListeners = new ArrayList<>();	// eg. the game recorder
+	private final int[] diceValues = new int[NUM_OF_DICE];
+	private final int[] diceValueCounters = new int[NUM_OF_FACES];
+	private final boolean[] validOptions = new boolean[NUM_OF_FIELDS];
+	private final boolean[] rollTheseDice = new boolean[NUM_OF_DICE];
+	private final int[] gameCardBefore = new int[NUM_OF_FIELDS];	// the game card before the current move
+	private boolean playing;		// false until the first game starts and after a game has ended
+	private int round;				// 1 - 13
+	private int currentPlayerIndex;
+	private int lastPlayerOfRound;
+	private int rollCounter;		// the rolls of the current turn (0: the dice were not rolled yet)
+	private int validOptionsMask;
+
+	// constructor
+	public RemoteGame(GameSession session){
+		this.session = session;
+		if(session.getSpectatorFeed() != null)
+			addGameListener(session.getSpectatorFeed());	// the spectators follow every game of the session
+	}
+
+	// getters
+	public boolean isPlaying(){
+		return this.playing;
+	}
+
+	public GameSession getSession(){
+		return this.session;
+	}
+
+	/**
+	 * this method adds a listener which is informed about every move of the games (see GameListener)
+	 */
+	public void addGameListener(GameListener listener){
+		gameListeners.add(listener);
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										COMMANDS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method handles one command. The frame starts at the position of the input (see GameProtocol.frameSize()),
+	 * the position is moved to the end of the frame. The deltas (or an error) are written to the output, which must have
+	 * room for the deltas of one command (see GameProtocol.MAX_FRAME_SIZE).
+	 */
+	public void handle(ByteBuffer in, int frameSize, ByteBuffer out){
+
+		int end = in.position() + frameSize;
+		ByteBuffer frame = in.slice(in.position() + 1, frameSize - 1);	// without the length byte
+		in.position(end);
+		try{
+			switch(frame.get()){
+			case GameProtocol.NEW_GAME:
+				newGame(frame, out);
+				break;
+			case GameProtocol.ROLL:
+				roll(frame.get() & 0xFF, out);
+				break;
+			case GameProtocol.SELECT:
+				select(frame.get(), out);
+				break;
+			case GameProtocol.CROSS_OUT:
+				crossOut(frame.get(), out);
+				break;
+			case GameProtocol.QUIT:
+				quit(out);
+				break;
+			default:
+				GameProtocol.writeError(out, GameProtocol.UNKNOWN_COMMAND);
+			}
+		}catch(BufferUnderflowException bue){
+			GameProtocol.writeError(out, GameProtocol.INVALID_FRAME);
+		}
+	}
+
+	/**
+	 * this method starts a new game. Without names (0 players), the players of the last game play again.
+	 * An unfinished game is ended first (without a winner).
+	 */
+	private void newGame(ByteBuffer frame, ByteBuffer out){
+
+		int firstPlayer = frame.get() & 0xFF;
+		int numOfPlayers = frame.get() & 0xFF;
+		Player[] players = session.getPlayers();
+		if(numOfPlayers > 0){
+			if(numOfPlayers > GameProtocol.MAX_NUM_OF_PLAYERS){
+				GameProtocol.writeError(out, GameProtocol.INVALID_PLAYERS);
+				return;
+			}
+			players = new Player[numOfPlayers];
+			for(int i = 0; i < numOfPlayers; i++){
+				byte[] name = new byte[frame.get() & 0xFF];
+				frame.get(name);
+				players[i] = new Player();
+				players[i].setName(new String(name, StandardCharsets.UTF_8));
+			}
+		}
+		if(players == null || (firstPlayer >= players.length && firstPlayer != GameProtocol.FIRST_PLAYER_RANDOM)){
+			GameProtocol.writeError(out, GameProtocol.INVALID_PLAYERS);
+			return;
+		}
+		if(playing)
+			endGame(false, out);
+		session.setPlayers(players);
+		for(Player player : players)
+			player.resetGameCard();
+
+		if(firstPlayer == GameProtocol.FIRST_PLAYER_RANDOM)
+			firstPlayer = session.getDiceSource().nextInt(players.length);
+		currentPlayerIndex = firstPlayer;
+		// the player before the first player plays last in each round
+		lastPlayerOfRound = (firstPlayer == 0) ? players.length - 1 : firstPlayer - 1;
+		round = 1;
+		playing = true;
+		GameProtocol.writeGameStart(out, players.length, firstPlayer);
+		for(GameListener listener : gameListeners)
+			listener.onGameStart(players, 0, firstPlayer);
+		startTurn(out);
+	}
+
+	/**
+	 * this method rolls the specified dice (bit i for dice i), like rollDice() and rollWhichDiceAgain() of the console game
+	 */
+	private void roll(int diceToRoll, ByteBuffer out){
+
+		if(!playing){
+			GameProtocol.writeError(out, GameProtocol.NO_GAME);
+			return;
+		}
+		if(rollCounter == MAX_ROLLS){
+			GameProtocol.writeError(out, GameProtocol.NO_ROLLS_LEFT);
+			return;
+		}
+		// the first roll rolls all dice, later rolls at least one
+		if(diceToRoll == 0 || diceToRoll > GameProtocol.ALL_DICE || (rollCounter == 0 && diceToRoll != GameProtocol.ALL_DICE)){
+			GameProtocol.writeError(out, GameProtocol.INVALID_DICE);
+			return;
+		}
+		for(int i = 0; i < NUM_OF_DICE; i++)
+			rollTheseDice[i] = (diceToRoll & (1 << i)) != 0;
+		YatzyEngine.rollDice(diceValues, rollTheseDice, diceValueCounters, session.getDiceSource());
+		rollCounter++;
+		int[] gameCard = session.getPlayers()[currentPlayerIndex].getGameCard();
+		validOptionsMask = YatzyEngine.getValidOptionsMask(gameCard, ScoringTable.indexOf(diceValueCounters));
+		for(int i = 0; i < validOptions.length; i++)
+			validOptions[i] = (validOptionsMask & (1 << i)) != 0;
+		GameProtocol.writeDice(out, currentPlayerIndex, rollCounter, diceValues, validOptionsMask);
+		for(GameListener listener : gameListeners)
+			listener.onRoll(currentPlayerIndex, rollCounter, rollTheseDice, diceValues);
+	}
+
+	/**
+	 * this method selects a valid option, like makeSelection() of the console game
+	 */
+	private void select(int field, ByteBuffer out){
+
+		if(!checkMove(out))
+			return;
+		if(field < 0 || field >= NUM_OF_FIELDS - 2 || !validOptions[field]){
+			GameProtocol.writeError(out, GameProtocol.INVALID_FIELD);
+			return;
+		}
+		Player player = session.getPlayers()[currentPlayerIndex];
+		System.arraycopy(player.getGameCard(), 0, gameCardBefore, 0, NUM_OF_FIELDS);
+		int points = YatzyEngine.makeSelection(player, field, diceValueCounters, validOptions);
+		for(GameListener listener : gameListeners)
+			listener.onSelection(currentPlayerIndex, field, points);
+		endTurn(player, out);
+	}
+
+	/**
+	 * this method crosses out an empty field, like crossOutField() of the console game
+	 */
+	private void crossOut(int field, ByteBuffer out){
+
+		if(!checkMove(out))
+			return;
+		if(YatzyEngine.hasValidOptions(validOptions)){
+			GameProtocol.writeError(out, GameProtocol.OPTIONS_AVAILABLE);
+			return;
+		}
+		Player player = session.getPlayers()[currentPlayerIndex];
+		if(field < 0 || field >= NUM_OF_FIELDS - 2 || !YatzyEngine.isEmptyField(player.getGameCard(), field)){
+			GameProtocol.writeError(out, GameProtocol.INVALID_FIELD);
+			return;
+		}
+		System.arraycopy(player.getGameCard(), 0, gameCardBefore, 0, NUM_OF_FIELDS);
+		int points = YatzyEngine.crossOutField(player, field, validOptions);
+		for(GameListener listener : gameListeners)
+			listener.onCrossOut(currentPlayerIndex, field, points);
+		endTurn(player, out);
+	}
+
+	/**
+	 * this method ends the game without a winner
+	 */
+	private void quit(ByteBuffer out){
+
+		if(!playing){
+			GameProtocol.writeError(out, GameProtocol.NO_GAME);
+			return;
+		}
+		endGame(false, out);
+	}
+
+	/**
+	 * this method ends an unfinished game when the connection is closed (nothing is sent)
+	 */
+	public void close(){
+
+		if(playing){
+			playing = false;
+			for(GameListener listener : gameListeners)
+				listener.onGameEnd(session.getPlayers(), false);
+		}
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										GAME FLOW
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method checks if a field can be selected or crossed out (the dice of the turn were rolled)
+	 */
+	private boolean checkMove(ByteBuffer out){
+
+		if(!playing){
+			GameProtocol.writeError(out, GameProtocol.NO_GAME);
+			return false;
+		}
+		if(rollCounter == 0){
+			GameProtocol.writeError(out, GameProtocol.NOT_ROLLED);
+			return false;
+		}
+		return true;
+	}
+
+	private void startTurn(ByteBuffer out){
+
+		rollCounter = 0;
+		GameProtocol.writeTurn(out, round, currentPlayerIndex);
+		for(GameListener listener : gameListeners)
+			listener.onTurnStart(round, currentPlayerIndex);
+	}
+
+	/**
+	 * this method sends the fields of the game card which changed during the turn and starts the next turn
+	 * (or ends the game after the last turn)
+	 */
+	private void endTurn(Player player, ByteBuffer out){
+
+		for(int i = 0; i < TOTALS_FIELD; i++)
+			if(player.getGameCard(i) != gameCardBefore[i])
+				GameProtocol.writeCard(out, currentPlayerIndex, i, player.getGameCard(i), player.getGameCard(TOTALS_FIELD));
+
+		if(currentPlayerIndex == lastPlayerOfRound){
+			for(GameListener listener : gameListeners)
+				listener.onRoundEnd(round);
+			if(round == NUM_OF_ROUNDS){
+				endGame(true, out);
+				return;
+			}
+			round++;
+		}
+		currentPlayerIndex = YatzyEngine.getNextPlayer(currentPlayerIndex, session.getNumOfPlayers());
+		startTurn(out);
+	}
+
+	private void endGame(boolean finished, ByteBuffer out){
+
+		int winner = GameProtocol.NO_WINNER;
+		if(finished){
+			winner = YatzyEngine.findWinner(session.getPlayers());
+			if(session.getNumOfPlayers() > 1){		// the wins are only counted if there is more than one player
+				session.getPlayers()[winner].updateNoOfWins();
+				for(GameListener listener : gameListeners)
+					listener.onWinner(winner, session.getPlayers()[winner].getGameCard(TOTALS_FIELD));
+			}
+		}
+		playing = false;
+		GameProtocol.writeGameEnd(out, winner);
+		for(GameListener listener : gameListeners)
+			listener.onGameEnd(session.getPlayers(), finished);
+	}
+}
@@ -0,0 +1,132 @@
+package com.timpanix.yatzy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * this class holds the text of the Yatzy rules (file yatzyrules.txt) in memory, split into sections by its headings.
+ * The file is read once, afterwards the sections are read from memory only (eg. by the games of a server).
+ *
+ * A heading is a line which is underlined with "=" (section) or "-" (subsection, part of the section before it).
+ * A section ends before the next heading of the same or a higher level, so a section is always found by its heading,
+ * even if the text of the file was changed.
+ */
+public class RulesIndex {
+
+	public static final String DEFAULT_FILE_NAME = "yatzyrules.txt";
+
+	private final List<String> lines;
+	private final Map<String, Section> sections = new LinkedHashMap<String, Section>();	// by heading, in the order of the file
+
+	/**
+	 * the lines of a section: from its heading up to the line before the next heading of the same or a higher level
+	 */
+	private static class Section {
+
+		private final int level;		// 1: section, 2: subsection
+		private final int start;
+		private int end;
+
+		// constructor
+		Section(int level, int start){
+			this.level = level;
+			this.start = start;
+		}
+	}
+
+	// constructor
+	private RulesIndex(List<String> lines){
+		this.lines = Collections.unmodifiableList(lines);
+		indexHeadings();
+	}
+
+	/**
+	 * this method reads the rules from a file and finds its sections
+	 *
+	 * @throws IOException if the file cannot be read
+	 */
+	public static RulesIndex load(Path file) throws IOException{
+		return new RulesIndex(new ArrayList<String>(Files.readAllLines(file, StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * this method finds the headings and the end of their sections
+	 */
+	private void indexHeadings(){
+
+		List<Section> open = new ArrayList<Section>();		// the sections which did not end yet
+		for(int i = 0; i < lines.size(); i++){
+			int level = (i + 1 < lines.size()) ? getUnderlineLevel(lines.get(i), lines.get(i + 1)) : 0;
+			if(level == 0)
+				continue;
+			for(int j = open.size() - 1; j >= 0 && open.get(j).level >= level; j--)
+				open.remove(j).end = i;
+			Section section = new Section(level, i);
+			open.add(section);
+			sections.putIfAbsent(lines.get(i).trim(), section);
+		}
+		for(Section section : open)
+			section.end = lines.size();
+	}
+
+	/**
+	 * @return: 1 if the line is underlined with "=", 2 if it is underlined with "-", 0 if it is not a heading
+	 */
+	private static int getUnderlineLevel(String line, String underline){
+
+		underline = underline.trim();
+		if(line.trim().isEmpty() || underline.isEmpty())
+			return 0;
+		if(underline.chars().allMatch(c -> c == '='))
+			return 1;
+		if(underline.chars().allMatch(c -> c == '-'))
+			return 2;
+		return 0;
+	}
+
+	// getters
+	public List<String> getAllLines(){
+		return this.lines;
+	}
+
+	/**
+	 * @return: the headings of all sections and subsections, in the order of the file
+	 */
+	public List<String> getHeadings(){
+		return new ArrayList<String>(sections.keySet());
+	}
+
+	/**
+	 * this method returns the lines of a section, from its heading to its last line which is not empty
+	 *
+	 * @return: the lines, or null if there is no section with this heading
+	 */
+	public List<String> getSection(String heading){
+		return getSections(heading, heading);
+	}
+
+	/**
+	 * this method returns the lines of several sections which follow each other, from the heading of the first section
+	 * to the end of the last section (eg. the scoring and the upper section scoring)
+	 *
+	 * @return: the lines, or null if one of the headings is missing or the last section is before the first one
+	 */
+	public List<String> getSections(String firstHeading, String lastHeading){
+
+		Section first = sections.get(firstHeading);
+		Section last = sections.get(lastHeading);
+		if(first == null || last == null || last.start < first.start)
+			return null;
+		int end = last.end;
+		while(end > first.start && lines.get(end - 1).trim().isEmpty())		// without the empty lines at the end
+			end--;
+		return lines.subList(first.start, end);
+	}
+}
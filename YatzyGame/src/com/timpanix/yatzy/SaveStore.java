@@ -0,0 +1,555 @@
+package com.timpanix.yatzy;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * this class stores any number of paused games (see SavedGame) in slots. A slot is identified by its number (slot id).
+ * The games are stored in one data file, and every slot has an entry of fixed size in the index file: the entry of a slot
+ * is found by its number (no search), and the saved games can be listed by reading the index only.
+ *
+ * Every saved game is stored in an extent of the data file with a size of 64, 128, 256, ... bytes. The extent belongs to
+ * the slot. When a slot is deleted, the slot and its extent are reused for the next game of the same size, so the
+ * data file doesn't grow when games are saved and restored over and over.
+ *
+ * Index file (big endian):
+ * - header: int magic number "YTZX", int format version, int number of entries, int (not used)
+ * - one entry per slot: long position of the extent, int size of the extent (0: no extent), int size of the saved game
+ *   (0: the slot is empty), long time of saving (milliseconds), byte round, byte number of players, 6 bytes (not used)
+ *
+ * The saves of many games are written together (group commit): saveLater() only queues a game, and the first game queued
+ * after a commit schedules the next commit after the commit interval. A commit writes the games of all queued saves into
+ * their extents, forces the data file to the disk once, writes their entries and forces the index once. So a saved game is
+ * on the disk when its future is completed, an entry never points to a game which is not on the disk (eg. after a crash),
+ * and many games saved at the same time share the two writes to the disk.
+ *
+ * An object of this class is used by one program only. Its methods are synchronized, so it can be used by several threads.
+ */
+public class SaveStore implements Closeable {
+
+	public static final String DEFAULT_FILE_NAME = "savedGames";
+	private static final int MAGIC = 0x59545A58;		// "YTZX"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	private static final int ENTRY_SIZE = 32;
+	private static final int MIN_EXTENT_SIZE = 64;
+	private static final int NUM_OF_SIZE_CLASSES = 16;		// extents of 64 bytes - 2 MB
+	public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 20;
+	// all save stores of the program share one thread for the commits
+	private static final ScheduledExecutorService COMMITTER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "save-committer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final FileChannel index;
+	private final FileChannel data;
+	private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+	// the empty slots with an extent, by size of the extent, and the empty slots without an extent
+	private final List<ArrayDeque<Integer>> freeSlots = new ArrayList<ArrayDeque<Integer>>();
+	private final ArrayDeque<Integer> freeSlotsWithoutExtent = new ArrayDeque<Integer>();
+	private final long commitIntervalMillis;
+	private final List<PendingSave> pendingSaves = new ArrayList<PendingSave>();	// the saves of the next commit
+	private int numOfEntries;
+	private long dataSize;
+
+	/**
+	 * this class describes a slot in the list of saved games (see list())
+	 */
+	public static class SlotInfo {
+
+		private final int slotId;
+		private final long savedAt;
+		private final int round;
+		private final int numOfPlayers;
+
+		// constructor
+		SlotInfo(int slotId, long savedAt, int round, int numOfPlayers){
+			this.slotId = slotId;
+			this.savedAt = savedAt;
+			this.round = round;
+			this.numOfPlayers = numOfPlayers;
+		}
+
+		// getters
+		public int getSlotId(){
+			return this.slotId;
+		}
+
+		public long getSavedAt(){
+			return this.savedAt;
+		}
+
+		public int getRound(){
+			return this.round;
+		}
+
+		public int getNumOfPlayers(){
+			return this.numOfPlayers;
+		}
+	}
+
+	/**
+	 * a game which was queued for the next commit
+	 */
+	private static class PendingSave {
+
+		private final SavedGame game;
+		private final byte[] body;
+		private final int sizeClass;
+		private final CompletableFuture<Integer> saved = new CompletableFuture<Integer>();
+		private int slot;
+		private long position;
+		private int extentSize;
+		private boolean newExtent;		// the extent was allocated at the end of the data file for this save
+
+		// constructor
+		PendingSave(SavedGame game, byte[] body){
+			this.game = game;
+			this.body = body;
+			this.sizeClass = getSizeClass(body.length);
+		}
+	}
+
+	// constructor
+	private SaveStore(FileChannel index, FileChannel data, long commitIntervalMillis){
+		this.index = index;
+		this.data = data;
+		this.commitIntervalMillis = commitIntervalMillis;
+		for(int i = 0; i < NUM_OF_SIZE_CLASSES; i++)
+			freeSlots.add(new ArrayDeque<Integer>());
+	}
+
+	/**
+	 * this method opens the store with the specified base name (the files are called name.idx and name.dat) and creates it
+	 * if it doesn't exist. The index is read once to find the empty slots.
+	 *
+	 * @throws IOException if the files cannot be opened or are not a save store
+	 */
+	public static SaveStore open(Path file) throws IOException{
+		return open(file, DEFAULT_COMMIT_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * this method opens the store like open(Path). The saves queued with saveLater() are committed after the specified
+	 * interval (0: as soon as possible, a longer interval puts more saves into one commit).
+	 *
+	 * @throws IOException if the files cannot be opened or are not a save store
+	 */
+	public static SaveStore open(Path file, long commitIntervalMillis) throws IOException{
+
+		FileChannel index = FileChannel.open(file.resolveSibling(file.getFileName() + ".idx"),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		FileChannel data = null;
+		try{
+			data = FileChannel.open(file.resolveSibling(file.getFileName() + ".dat"),
+					StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			SaveStore store = new SaveStore(index, data, commitIntervalMillis);
+			store.readIndex();
+			return store;
+		}catch(IOException ioe){
+			index.close();
+			if(data != null)
+				data.close();
+			throw ioe;
+		}
+	}
+
+	/**
+	 * this method checks the header of the index (a new index gets a header) and finds the empty slots
+	 */
+	private void readIndex() throws IOException{
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		if(index.size() == 0){
+			header.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0).flip();
+			writeFully(index, header, 0);
+			return;
+		}
+		readFully(index, header, 0);
+		if(header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+			throw new IOException("The file is not a save store index");
+		numOfEntries = header.getInt(8);
+
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(index.position(HEADER_SIZE))));
+		for(int slot = 0; slot < numOfEntries; slot++){
+			long position = in.readLong();
+			int extentSize = in.readInt();
+			int length = in.readInt();
+			in.skipBytes(ENTRY_SIZE - 16);
+			dataSize = Math.max(dataSize, position + extentSize);
+			if(length == 0)
+				addFreeSlot(slot, extentSize);
+		}
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										SLOT OPERATIONS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method saves a game in an empty slot. The saves queued before are committed with it.
+	 *
+	 * @return: the slot id
+	 */
+	public synchronized int save(SavedGame game) throws IOException{
+
+		PendingSave save = enqueue(game);
+		commit();
+		return save.slot;
+	}
+
+	/**
+	 * this method queues a game for the next commit (see above) and returns at once. The game must not be changed anymore.
+	 *
+	 * @return: a future which is completed with the slot id when the game is on the disk, or exceptionally if it could not be written
+	 */
+	public synchronized CompletableFuture<Integer> saveLater(SavedGame game){
+
+		PendingSave save = enqueue(game);
+		if(pendingSaves.size() == 1)
+			COMMITTER.schedule(this::commitInBackground, commitIntervalMillis, TimeUnit.MILLISECONDS);
+		return save.saved;
+	}
+
+	/**
+	 * this method writes all queued saves: first the games into their extents, then their entries, with one force of
+	 * each file. If the commit fails, the futures of the saves whose entries were written are completed (the games are
+	 * saved), the others exceptionally, and the slots and extents taken for them are given back.
+	 *
+	 * @throws IOException if the files cannot be written
+	 */
+	public synchronized void commit() throws IOException{
+
+		if(pendingSaves.isEmpty())
+			return;
+		List<PendingSave> batch = new ArrayList<PendingSave>(pendingSaves);
+		pendingSaves.clear();
+		int assigned = 0;		// the saves which got a slot and an extent
+		int written = 0;		// the saves whose entries were written
+		boolean writingEntries = false;
+		try{
+			int newSlots = 0;		// the slots of this batch which get a new entry
+			for(PendingSave save : batch){
+				if(!freeSlots.get(save.sizeClass).isEmpty()){		// an empty slot with an extent of the right size
+					save.slot = freeSlots.get(save.sizeClass).pop();
+					readEntry(save.slot);
+					save.position = entry.getLong(0);
+					save.extentSize = entry.getInt(8);
+				}else{
+					save.slot = freeSlotsWithoutExtent.isEmpty() ? numOfEntries + newSlots++ : freeSlotsWithoutExtent.pop();
+					save.extentSize = MIN_EXTENT_SIZE << save.sizeClass;
+					save.position = allocateExtent(save.extentSize);
+					save.newExtent = true;
+				}
+				assigned++;
+				writeFully(data, ByteBuffer.wrap(save.body), save.position);
+			}
+			data.force(false);		// the games are on the disk before any entry points to them
+			long savedAt = System.currentTimeMillis();
+			writingEntries = true;
+			for(PendingSave save : batch){		// the new entries are written in the order of their slots
+				writeEntry(save.slot, save.position, save.extentSize, save.body.length, savedAt, save.game.getRound(), save.game.getPlayers().length);
+				written++;
+			}
+			index.force(false);
+		}catch(IOException ioe){
+			releaseSlots(batch, written, assigned, writingEntries ? written : -1);
+			for(int i = 0; i < batch.size(); i++)
+				if(i < written)
+					batch.get(i).saved.complete(batch.get(i).slot);
+				else
+					batch.get(i).saved.completeExceptionally(ioe);
+			throw ioe;
+		}
+		for(PendingSave save : batch)
+			save.saved.complete(save.slot);
+	}
+
+	/**
+	 * this method gives back the slots and extents taken by the saves of a failed commit whose entries were not written
+	 * (from - to). The entry of the save whose entry could not be written (damaged; -1: none) may point to its extent,
+	 * so its slot is only found again when the store is opened the next time.
+	 */
+	private void releaseSlots(List<PendingSave> batch, int from, int to, int damaged){
+
+		// the new extents of the saves are the last extents of the data file: they are given back from the end
+		for(int i = to - 1; i >= from; i--){
+			PendingSave save = batch.get(i);
+			if(i == damaged && save.slot < numOfEntries)
+				continue;
+			if(save.newExtent && save.position + save.extentSize == dataSize)
+				dataSize = save.position;
+			if(save.slot >= numOfEntries)
+				continue;		// a new slot: it is used again by the next new entry
+			if(!save.newExtent)
+				addFreeSlot(save.slot, save.extentSize);
+			else
+				freeSlotsWithoutExtent.push(save.slot);
+		}
+	}
+
+	/**
+	 * this method saves a game in the specified slot (the game saved in the slot before is replaced). The game saved before
+	 * is never overwritten: the new game is written into a free extent, and the entry of the slot is changed when the game
+	 * is on the disk. So after a crash, the slot holds either the old or the new game. The old extent is passed on to an
+	 * empty slot.
+	 */
+	public synchronized void save(int slotId, SavedGame game) throws IOException{
+
+		checkSlotId(slotId);
+		byte[] body = game.encode();
+		readEntry(slotId);
+		long oldPosition = entry.getLong(0);
+		int oldExtentSize = entry.getInt(8);
+		if(entry.getInt(12) == 0){
+			removeFreeSlot(slotId, oldExtentSize);
+			if(oldExtentSize >= body.length){		// an empty slot: its extent can be written
+				writeGame(slotId, oldPosition, oldExtentSize, body, game);
+				return;
+			}
+		}
+		// the extent of an empty slot of the right size, or a new extent at the end of the data file
+		int sizeClass = getSizeClass(body.length);
+		int freeSlot;
+		long position;
+		int extentSize;
+		if(!freeSlots.get(sizeClass).isEmpty()){
+			freeSlot = freeSlots.get(sizeClass).pop();
+			readEntry(freeSlot);
+			position = entry.getLong(0);
+			extentSize = entry.getInt(8);
+			// the empty slot gives up its extent before the game is written into it, so the extent never belongs to two slots
+			writeEntry(freeSlot, 0, 0, 0, 0, 0, 0);
+		}else{
+			freeSlot = freeSlotsWithoutExtent.isEmpty() ? numOfEntries : freeSlotsWithoutExtent.pop();
+			extentSize = MIN_EXTENT_SIZE << sizeClass;
+			position = allocateExtent(extentSize);
+		}
+		writeGame(slotId, position, extentSize, body, game);
+		// the old extent is passed on to the empty slot (if this entry is lost in a crash, only the space of the extent is lost)
+		if(oldExtentSize > 0){
+			writeEntry(freeSlot, oldPosition, oldExtentSize, 0, 0, 0, 0);
+			addFreeSlot(freeSlot, oldExtentSize);
+		}else if(freeSlot != numOfEntries){
+			freeSlotsWithoutExtent.push(freeSlot);
+		}
+	}
+
+	/**
+	 * this method reads the game saved in a slot
+	 *
+	 * @throws IOException if the slot is empty or the saved game was damaged
+	 */
+	public synchronized SavedGame load(int slotId) throws IOException{
+
+		checkSlotId(slotId);
+		readEntry(slotId);
+		int length = entry.getInt(12);
+		if(length == 0)
+			throw new IOException("There is no saved game in slot " + slotId);
+		ByteBuffer body = ByteBuffer.allocate(length);
+		readFully(data, body, entry.getLong(0));
+		return SavedGame.decode(body.array());
+	}
+
+	/**
+	 * this method deletes the game saved in a slot. The slot and its extent are reused by the next saved game.
+	 * The deletion is on the disk when the method returns.
+	 */
+	public synchronized void delete(int slotId) throws IOException{
+
+		checkSlotId(slotId);
+		readEntry(slotId);
+		if(entry.getInt(12) == 0)
+			return;
+		long position = entry.getLong(0);
+		int extentSize = entry.getInt(8);
+		writeEntry(slotId, position, extentSize, 0, 0, 0, 0);
+		index.force(false);
+		addFreeSlot(slotId, extentSize);
+	}
+
+	/**
+	 * this method lists the saved games (the slots which are not empty). Only the index is read.
+	 */
+	public synchronized List<SlotInfo> list() throws IOException{
+
+		List<SlotInfo> slots = new ArrayList<SlotInfo>();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(index.position(HEADER_SIZE))));
+		try{
+			for(int slot = 0; slot < numOfEntries; slot++){
+				in.skipBytes(12);
+				int length = in.readInt();
+				long savedAt = in.readLong();
+				int round = in.readUnsignedByte();
+				int numOfPlayers = in.readUnsignedByte();
+				in.skipBytes(ENTRY_SIZE - 26);
+				if(length > 0)
+					slots.add(new SlotInfo(slot, savedAt, round, numOfPlayers));
+			}
+		}catch(EOFException eofe){
+			throw new IOException("The index of the save store is incomplete");
+		}
+		return slots;
+	}
+
+	/**
+	 * this method commits the queued saves and closes the files
+	 */
+	@Override
+	public synchronized void close() throws IOException{
+
+		try{
+			commit();
+		}finally{
+			try{
+				index.close();
+			}finally{
+				data.close();
+			}
+		}
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										HELPER METHODS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method writes a saved game into an extent which doesn't hold a saved game, and then the entry of the slot.
+	 * The game is forced to the disk before the entry is written (and the index is forced before as well, so the changes
+	 * to other entries are on the disk first), so the entry never points to a game which was not written completely.
+	 */
+	private void writeGame(int slot, long position, int extentSize, byte[] body, SavedGame game) throws IOException{
+
+		writeFully(data, ByteBuffer.wrap(body), position);
+		data.force(false);
+		index.force(false);
+		writeEntry(slot, position, extentSize, body.length, System.currentTimeMillis(), game.getRound(), game.getPlayers().length);
+		index.force(false);
+	}
+
+	/**
+	 * this method enqueues a game for the next commit. The game is encoded at once, so a game which is too big is rejected at once.
+	 */
+	private PendingSave enqueue(SavedGame game){
+
+		PendingSave save = new PendingSave(game, game.encode());
+		pendingSaves.add(save);
+		return save;
+	}
+
+	/**
+	 * this method is run by the committer thread
+	 */
+	private void commitInBackground(){
+
+		try{
+			commit();
+		}catch(IOException ioe){
+			// the failure is reported through the futures of the saves
+		}
+	}
+
+	private void writeEntry(int slot, long position, int extentSize, int length, long savedAt, int round, int numOfPlayers)
+			throws IOException{
+
+		entry.clear();
+		entry.putLong(position).putInt(extentSize).putInt(length).putLong(savedAt).put((byte) round).put((byte) numOfPlayers);
+		entry.position(ENTRY_SIZE).flip();
+		writeFully(index, entry, HEADER_SIZE + (long) slot * ENTRY_SIZE);
+		if(slot == numOfEntries){		// a new entry: update the number of entries in the header
+			numOfEntries++;
+			ByteBuffer count = ByteBuffer.allocate(4).putInt(0, numOfEntries);
+			writeFully(index, count, 8);
+		}
+	}
+
+	private void readEntry(int slot) throws IOException{
+
+		entry.clear();
+		readFully(index, entry, HEADER_SIZE + (long) slot * ENTRY_SIZE);
+	}
+
+	/**
+	 * this method reserves an extent at the end of the data file
+	 *
+	 * @return: the position of the extent
+	 */
+	private long allocateExtent(int extentSize){
+
+		long position = dataSize;
+		dataSize += extentSize;
+		return position;
+	}
+
+	private void addFreeSlot(int slot, int extentSize){
+
+		if(extentSize == 0)
+			freeSlotsWithoutExtent.push(slot);
+		else
+			freeSlots.get(getSizeClass(extentSize)).push(slot);
+	}
+
+	private void removeFreeSlot(int slot, int extentSize){
+
+		if(extentSize == 0)
+			freeSlotsWithoutExtent.remove(slot);
+		else
+			freeSlots.get(getSizeClass(extentSize)).remove(slot);
+	}
+
+	/**
+	 * this method returns the size class of the smallest extent (64 << size class bytes) that can hold the specified number of bytes
+	 */
+	private static int getSizeClass(int length){
+
+		int sizeClass = 0;
+		while((MIN_EXTENT_SIZE << sizeClass) < length)
+			sizeClass++;
+		if(sizeClass >= NUM_OF_SIZE_CLASSES)
+			throw new IllegalArgumentException("The saved game is too big (" + length + " bytes)");
+		return sizeClass;
+	}
+
+	private void checkSlotId(int slotId){
+
+		if(slotId < 0 || slotId >= numOfEntries)
+			throw new IllegalArgumentException("There is no slot " + slotId);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException{
+
+		while(buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException{
+
+		while(buffer.hasRemaining()){
+			int read = channel.read(buffer, position);
+			if(read < 0)
+				throw new EOFException("The save store is incomplete");
+			position += read;
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * this class holds the state of a paused game (the players incl. their game cards and wins, the round and the next player)
+ * and converts it into a compact binary format. The format is laid out field by field (no class descriptors as with
+ * Java serialization), so a saved game with 2 players takes about 60 bytes and is quick enough to save after every turn.
+ * The format is versioned and checked completely when it is read: a damaged file or a game card with impossible values
+ * is not restored.
+ *
+ * Format (big endian):
+ * - short: magic number "YS", byte: format version
+ * - byte:  round (the number of rounds played), byte: number of players, byte: index of the next player
+ * - for every player:
+ *   - UTF:   name
+ *   - short: number of wins
+ *   - short: filled fields (bit i is set if field i of the game card is not -1, fields 0 - 14)
+ *   - byte:  value of every filled field 0 - 13, short: value of field 14 (additional yatzy bonus), if filled
+ *   - short: totals
+ * - int:   CRC32 of all the bytes before
+ */
+public class SavedGame {
+
+	private static final int MAGIC = 0x5953;		// "YS"
+	private static final int VERSION = 1;
+	private static final int MAX_NUM_OF_PLAYERS = 255;
+	private static final int MAX_FIELD_SCORE = YATZY_SCORE;		// no field (except the additional yatzy bonus) has more points
+
+	private final Player[] players;
+	private final int round;
+	private final int nextPlayer;
+
+	// constructor
+	public SavedGame(Player[] players, int round, int nextPlayer){
+		this.players = players;
+		this.round = round;
+		this.nextPlayer = nextPlayer;
+	}
+
+	/**
+	 * this method returns a saved game with copies of the players, so the game can be written while it is played on
+	 * (see PersistenceExecutor)
+	 */
+	public static SavedGame copyOf(Player[] players, int round, int nextPlayer){
+
+		Player[] copies = new Player[players.length];
+		for(int i = 0; i < players.length; i++)
+			copies[i] = new Player(players[i].getName(), players[i].getGameCard().clone(), players[i].getNoOfWins());
+		return new SavedGame(copies, round, nextPlayer);
+	}
+
+	// getters
+	public Player[] getPlayers(){
+		return this.players;
+	}
+
+	public int getRound(){
+		return this.round;
+	}
+
+	public int getNextPlayer(){
+		return this.nextPlayer;
+	}
+
+	/**
+	 * this method converts the saved game into the binary format
+	 */
+	public byte[] encode(){
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + 32 * players.length);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try{
+			out.writeShort(MAGIC);
+			out.writeByte(VERSION);
+			out.writeByte(round);
+			out.writeByte(players.length);
+			out.writeByte(nextPlayer);
+			for(Player p : players){
+				int[] card = p.getGameCard();
+				out.writeUTF(p.getName());
+				out.writeShort(p.getNoOfWins());
+				int filledFields = 0;
+				for(int i = 0; i < TOTALS_FIELD; i++)
+					if(card[i] != -1)
+						filledFields |= 1 << i;
+				out.writeShort(filledFields);
+				for(int i = 0; i < YATZY_BONUS_FIELD; i++)
+					if(card[i] != -1)
+						out.writeByte(card[i]);
+				if(card[YATZY_BONUS_FIELD] != -1)
+					out.writeShort(card[YATZY_BONUS_FIELD]);
+				out.writeShort(card[TOTALS_FIELD]);
+			}
+			CRC32 crc = new CRC32();
+			crc.update(bytes.toByteArray());
+			out.writeInt((int) crc.getValue());
+		}catch(IOException ioe){
+			throw new IllegalStateException(ioe);		// a ByteArrayOutputStream does not throw IOExceptions
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * this method reads a saved game from the binary format and checks it
+	 *
+	 * @throws IOException if the data is not a saved game, was damaged or contains impossible values
+	 */
+	public static SavedGame decode(byte[] data) throws IOException{
+
+		if(data.length < 10)
+			throw new IOException("The saved game is incomplete");
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 4));	// without the checksum
+		try{
+			if(in.readUnsignedShort() != MAGIC)
+				throw new IOException("The data is not a saved game");
+			int version = in.readUnsignedByte();
+			if(version != VERSION)
+				throw new IOException("The saved game has the unsupported version " + version);
+			CRC32 crc = new CRC32();
+			crc.update(data, 0, data.length - 4);
+			if(ByteBuffer.wrap(data).getInt(data.length - 4) != (int) crc.getValue())
+				throw new IOException("The saved game was damaged");
+
+			int round = in.readUnsignedByte();
+			int numOfPlayers = in.readUnsignedByte();
+			int nextPlayer = in.readUnsignedByte();
+			if(round > NUM_OF_ROUNDS || numOfPlayers == 0 || numOfPlayers > MAX_NUM_OF_PLAYERS || nextPlayer >= numOfPlayers)
+				throw new IOException("The saved game contains invalid values");
+			Player[] players = new Player[numOfPlayers];
+			for(int p = 0; p < numOfPlayers; p++)
+				players[p] = readPlayer(in);
+			if(in.available() != 0)
+				throw new IOException("The saved game contains invalid values");
+			return new SavedGame(players, round, nextPlayer);
+		}catch(EOFException eofe){
+			throw new IOException("The saved game is incomplete");
+		}
+	}
+
+	/**
+	 * this method reads and checks one player: the values of the fields must be possible and the totals must be
+	 * the sum of all fields
+	 */
+	private static Player readPlayer(DataInputStream in) throws IOException{
+
+		String name = in.readUTF();
+		int noOfWins = in.readUnsignedShort();
+		int filledFields = in.readUnsignedShort();
+		int[] card = new int[NUM_OF_FIELDS];
+		int sum = 0;
+		for(int i = 0; i < TOTALS_FIELD; i++){
+			if((filledFields & (1 << i)) == 0){
+				card[i] = -1;
+				continue;
+			}
+			card[i] = i == YATZY_BONUS_FIELD ? in.readUnsignedShort() : in.readUnsignedByte();
+			if(i != YATZY_BONUS_FIELD && card[i] > MAX_FIELD_SCORE)
+				throw new IOException("The saved game contains invalid values");
+			sum += card[i];
+		}
+		card[TOTALS_FIELD] = in.readUnsignedShort();
+		if(card[TOTALS_FIELD] != sum || (filledFields >>> TOTALS_FIELD) != 0)
+			throw new IOException("The game card of " + name + " is not valid");
+		return new Player(name, card, noOfWins);
+	}
+}
@@ -0,0 +1,70 @@
+package com.timpanix.yatzy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * this class reads the input of a session with a Scanner: from the console, from the connection of a player
+ * (see YatzyServer), or from a list of commands (eg. a script with the session of a customer, see fromScript()).
+ * Every word or number is one token, so a line of a script can contain several answers.
+ */
+public class ScannerInput implements InputSource, Closeable {
+
+	private final Scanner scanner;
+	private final boolean interactive;
+
+	// constructor: the input is typed by people (eg. the console)
+	public ScannerInput(Scanner scanner){
+		this(scanner, true);
+	}
+
+	// constructor
+	public ScannerInput(Scanner scanner, boolean interactive){
+		this.scanner = scanner;
+		this.interactive = interactive;
+	}
+
+	/**
+	 * this method returns an input which answers the questions with the specified commands, one after the other.
+	 * The game runs at full speed (not interactive).
+	 */
+	public static ScannerInput fromCommands(List<String> commands){
+		return new ScannerInput(new Scanner(String.join("\n", commands)), false);
+	}
+
+	/**
+	 * this method reads a script of commands (one or more tokens per line). Empty lines and lines starting with "#"
+	 * (comments) are skipped. The game runs at full speed (not interactive).
+	 *
+	 * @throws IOException if the script cannot be read
+	 */
+	public static ScannerInput fromScript(Path file) throws IOException{
+
+		List<String> commands = new ArrayList<String>();
+		for(String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+			if(!line.trim().isEmpty() && !line.trim().startsWith("#"))
+				commands.add(line);
+		return fromCommands(commands);
+	}
+
+	@Override
+	public String next(int question){
+		return scanner.next();
+	}
+
+	@Override
+	public boolean isInteractive(){
+		return this.interactive;
+	}
+
+	@Override
+	public void close(){
+		scanner.close();
+	}
+}
@@ -0,0 +1,183 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+/**
+ * this class contains a lookup table for all 252 unordered results of rolling 5 dice (combinations).
+ * For every combination the table holds the score of each field and a bitmask of the fields that are valid options
+ * for the dice alone (bit i represents field i of the game card). The valid options of a player are then found by
+ * masking this bitmask with the player's empty fields, so no rules need to be re-derived after every roll
+ * and no objects are created.
+ *
+ * A combination is identified by its index (0 - 251). The indices are ordered like the sorted dice:
+ * index 0 is 1-1-1-1-1, index 1 is 1-1-1-1-2, ..., index 251 is 6-6-6-6-6.
+ */
+public final class ScoringTable {
+
+	public static final int NUM_OF_COMBINATIONS = 252;
+	public static final int YATZY_BONUS_BIT = 1 << YATZY_BONUS_FIELD;
+	public static final int SELECTABLE_FIELDS = (1 << (NUM_OF_FIELDS - 2)) - 1 & ~(1 << UPPER_BONUS_FIELD);	// the 13 fields that have to be filled
+	// the fields that an additional yatzy may be scored in (with the usual points), if the upper section field is filled
+	private static final int JOKER_FIELDS = (1 << FULL_HOUSE_FIELD) | (1 << SMALL_STRAIGHT_FIELD) | (1 << LARGE_STRAIGHT_FIELD);
+	private static final int NUM_OF_KEYS = 46656;		// 6^6 possible values of the face counters as a number with base 6
+
+	private static final short[] INDEX_BY_KEY = new short[NUM_OF_KEYS];
+	private static final byte[] COUNTERS = new byte[NUM_OF_COMBINATIONS * NUM_OF_FACES];
+	private static final byte[] SCORES = new byte[NUM_OF_COMBINATIONS * NUM_OF_FIELDS];
+	private static final int[] PATTERN_MASKS = new int[NUM_OF_COMBINATIONS];
+	private static final byte[] YATZY_FACES = new byte[NUM_OF_COMBINATIONS];	// the face of a yatzy, -1 if the combination is not a yatzy
+
+	static{
+		int[] counters = new int[NUM_OF_FACES];
+		int index = 0;
+		// loop through all sorted results of 5 dice
+		for(int a = 0; a < NUM_OF_FACES; a++)
+			for(int b = a; b < NUM_OF_FACES; b++)
+				for(int c = b; c < NUM_OF_FACES; c++)
+					for(int d = c; d < NUM_OF_FACES; d++)
+						for(int e = d; e < NUM_OF_FACES; e++){
+							YatzyEngine.countDice(new int[]{a, b, c, d, e}, counters);
+							addCombination(index++, counters);
+						}
+	}
+
+	// no instances: all methods are static
+	private ScoringTable(){
+	}
+
+	/**
+	 * this method is called once per combination when the table is built.
+	 * It stores the face counters, the score of every field and the valid options of the combination.
+	 */
+	private static void addCombination(int index, int[] counters){
+
+		INDEX_BY_KEY[getKey(counters)] = (short) index;
+		for(int i = 0; i < NUM_OF_FACES; i++)
+			COUNTERS[index * NUM_OF_FACES + i] = (byte) counters[i];
+
+		int sum = YatzyEngine.sumOfAllDiceValues(counters);
+		int straightCounter = 0;
+		boolean has2 = false;
+		boolean has3 = false;
+		int mask = 1 << CHANCE_FIELD;		// chance is always an option
+		YATZY_FACES[index] = -1;
+
+		for(int i = 0; i < NUM_OF_FACES; i++){
+			SCORES[index * NUM_OF_FIELDS + i] = (byte) (counters[i] * (i + 1));
+			if(counters[i] == 5){
+				mask |= 1 << YATZY_FIELD;
+				YATZY_FACES[index] = (byte) i;
+			}
+			if(counters[i] >= 1){
+				mask |= 1 << i;
+				straightCounter++;		// counter is incremented if subsequent faces are represented at least once
+			}
+			if(counters[i] >= 4)
+				mask |= 1 << FOUR_OF_A_KIND_FIELD;
+			if(counters[i] >= 3){
+				mask |= 1 << THREE_OF_A_KIND_FIELD;
+				has3 = true;
+			}
+			if(counters[i] == 2)
+				has2 = true;
+			if(counters[i] == 0 && straightCounter < 4)
+				straightCounter = 0;	// otherwise counter is reset to 0 (unless a straight was found already)
+		}
+		if(has3 && has2)
+			mask |= 1 << FULL_HOUSE_FIELD;
+		if(straightCounter == 5)
+			mask |= (1 << LARGE_STRAIGHT_FIELD) | (1 << SMALL_STRAIGHT_FIELD);	// a large straight is also a small straight
+		if(straightCounter == 4)
+			mask |= 1 << SMALL_STRAIGHT_FIELD;
+		PATTERN_MASKS[index] = mask;
+
+		SCORES[index * NUM_OF_FIELDS + THREE_OF_A_KIND_FIELD] = (byte) sum;
+		SCORES[index * NUM_OF_FIELDS + FOUR_OF_A_KIND_FIELD] = (byte) sum;
+		SCORES[index * NUM_OF_FIELDS + FULL_HOUSE_FIELD] = FULL_HOUSE_SCORE;
+		SCORES[index * NUM_OF_FIELDS + SMALL_STRAIGHT_FIELD] = SMALL_STRAIGHT_SCORE;
+		SCORES[index * NUM_OF_FIELDS + LARGE_STRAIGHT_FIELD] = LARGE_STRAIGHT_SCORE;
+		SCORES[index * NUM_OF_FIELDS + YATZY_FIELD] = YATZY_SCORE;
+		SCORES[index * NUM_OF_FIELDS + CHANCE_FIELD] = (byte) sum;
+	}
+
+	/**
+	 * this method converts the face counters into a number with base 6 (every counter is one digit)
+	 */
+	private static int getKey(int[] diceValueCounters){
+
+		int key = 0;
+		for(int i = 0; i < NUM_OF_FACES; i++)
+			key = key * NUM_OF_FACES + diceValueCounters[i];
+		return key;
+	}
+
+	/**
+	 * this method returns the index of the combination represented by the face counters
+	 */
+	public static int indexOf(int[] diceValueCounters){
+		return INDEX_BY_KEY[getKey(diceValueCounters)];
+	}
+
+	/**
+	 * this method returns the index of the combination represented by the face counters as a number with base 6
+	 * (the first face is the most significant digit)
+	 */
+	public static int indexOfKey(int key){
+		return INDEX_BY_KEY[key];
+	}
+
+	/**
+	 * this method returns how many dice of a combination show the specified face (0 - 5)
+	 */
+	public static int getCounter(int combination, int face){
+		return COUNTERS[combination * NUM_OF_FACES + face];
+	}
+
+	/**
+	 * this method returns the score of a combination in the specified field (regardless of whether the field is a valid option)
+	 */
+	public static int getScore(int combination, int field){
+		return SCORES[combination * NUM_OF_FIELDS + field];
+	}
+
+	/**
+	 * this method returns the fields that are valid options for the combination if all fields of the card were empty
+	 */
+	public static int getPatternMask(int combination){
+		return PATTERN_MASKS[combination];
+	}
+
+	/**
+	 * this method returns a bitmask of the empty fields of a game card (bit i is set if field i is empty).
+	 * The upper bonus field, the additional yatzy bonus and the totals are never empty fields.
+	 */
+	public static int getEmptyFieldsMask(int[] gameCard){
+
+		int mask = 0;
+		for(int i = 0; i < NUM_OF_FIELDS - 2; i++)
+			if(gameCard[i] == -1)
+				mask |= 1 << i;
+		return mask & SELECTABLE_FIELDS;
+	}
+
+	/**
+	 * this method returns the valid options of a player for a combination as a bitmask (bit i represents field i).
+	 * The bit of field 14 is set if an additional yatzy bonus applies. In this case, if the corresponding upper section field
+	 * is empty, it is the only valid option. Otherwise full house and the straights are valid options as well.
+	 *
+	 * @param: the combination, the player's empty fields (see getEmptyFieldsMask()),
+	 * 			true if the player scored a yatzy in the yatzy field (not crossed out)
+	 */
+	public static int getValidOptionsMask(int combination, int emptyFields, boolean yatzyScored){
+
+		int validOptions = PATTERN_MASKS[combination] & emptyFields;
+		int yatzyFace = YATZY_FACES[combination];
+		// additional yatzy bonus: a yatzy was rolled and the yatzy field was scored before (not crossed out)
+		if(yatzyFace != -1 && (emptyFields & (1 << YATZY_FIELD)) == 0 && yatzyScored){
+			if((emptyFields & (1 << yatzyFace)) != 0)
+				return (1 << yatzyFace) | YATZY_BONUS_BIT;		// the upper section field must be selected
+			validOptions |= (emptyFields & JOKER_FIELDS) | YATZY_BONUS_BIT;
+		}
+		return validOptions;
+	}
+}
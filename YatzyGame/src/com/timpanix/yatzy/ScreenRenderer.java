@@ -0,0 +1,369 @@
+package com.timpanix.yatzy;
+
+import java.io.PrintStream;
+
+/**
+ * this class builds the screens of a game (the dice, the game card, the options of a player, the menus) in a buffer and
+ * writes every screen to the output at once (see flush()): one write per screen instead of one per line or field,
+ * which matters when many sessions are written to terminals or connections. The buffer is reused for every screen.
+ *
+ * Output modes:
+ * - PLAIN:   the text of the console game
+ * - ANSI:    the same text with colours and bold text (for terminals which understand ANSI escape codes)
+ * - MACHINE: one line per screen, starting with a keyword and followed by values separated by spaces
+ *            (eg. "DICE 3 5 1 6 6"), so a program can read the game. The other text (eg. the menus and the messages)
+ *            is not written, and every question is written as "PROMPT <question>" (eg. "PROMPT ROLL_AGAIN", see InputSource).
+ *
+ * All the text of a session is written through its renderer (see GameSession.getScreen()): the screen is written when
+ * the session asks a question (see read()), so a turn takes one write per question. An object of this class is used
+ * by one session (one thread) only.
+ */
+public class ScreenRenderer {
+
+	public static final int PLAIN = 0;
+	public static final int ANSI = 1;
+	public static final int MACHINE = 2;
+	private static final String[] MODE_NAMES = {"plain", "ansi", "machine"};
+	// the names of the questions in the machine mode (see InputSource)
+	private static final String[] QUESTION_NAMES = {"", "MAIN_MENU", "NUM_OF_PLAYERS", "PLAYER_NAME", "FIRST_PLAYER", "ROLL_AGAIN",
+			"DICE_TO_ROLL", "SELECT_FIELD", "CROSS_OUT_FIELD", "CONTINUE_GAME", "SAVE_GAME", "RECOVER_GAME", "SAVED_GAME",
+			"RULES_SECTION", "CLOSE", "ANY_KEY"};
+
+	// the dice (see displayDice() of the console game)
+	private static final String DICE_NUMS = "     1           2           3           4           5";
+	private static final String TOPLINE   = " _________   _________   _________   _________   _________";
+	private static final String BOTTOMLINE = "|_________| |_________| |_________| |_________| |_________|";
+	private static final String TWO_DOTS =      " o   o ";
+	private static final String ONE_DOT_MIDDLE = "   o   ";
+	private static final String ONE_DOT_LEFT =   " o     ";
+	private static final String ONE_DOT_RIGHT =  "     o ";
+	private static final String NO_DOT =        "       ";
+	// the following three arrays represent the 6 possible faces of the dice:
+	                                            // 1			  2               3               4         5               6
+	private static final String[] FACES_TOP    = {NO_DOT,  	      ONE_DOT_MIDDLE, ONE_DOT_LEFT,   TWO_DOTS, TWO_DOTS,       TWO_DOTS};
+	private static final String[] FACES_MIDDLE = {ONE_DOT_MIDDLE, NO_DOT,         ONE_DOT_MIDDLE, NO_DOT,   ONE_DOT_MIDDLE, TWO_DOTS};
+	private static final String[] FACES_BOTTOM = {NO_DOT,         ONE_DOT_MIDDLE, ONE_DOT_RIGHT,  TWO_DOTS, TWO_DOTS,       TWO_DOTS};
+	// ANSI escape codes
+	private static final String BOLD = "\033[1m";
+	private static final String DIM = "\033[2m";
+	private static final String GREEN = "\033[32m";
+	private static final String YELLOW = "\033[33m";
+	private static final String RESET = "\033[0m";
+
+	private final PrintStream out;
+	private final int mode;
+	private final StringBuilder screen = new StringBuilder(2048);	// the screen which is built (written by flush())
+
+	// constructor
+	public ScreenRenderer(PrintStream out, int mode){
+		this.out = out;
+		this.mode = mode;
+	}
+
+	// getters
+	public int getMode(){
+		return this.mode;
+	}
+
+	/**
+	 * this method returns the output mode with the specified name (plain, ansi or machine)
+	 *
+	 * @return: the output mode, or -1 if there is no output mode with this name
+	 */
+	public static int parseMode(String name){
+
+		for(int i = 0; i < MODE_NAMES.length; i++)
+			if(MODE_NAMES[i].equalsIgnoreCase(name))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * this method writes the screen to the output (in one write) and empties the buffer for the next screen
+	 */
+	public void flush(){
+
+		if(screen.length() > 0){
+			out.append(screen);
+			screen.setLength(0);
+		}
+	}
+
+	/**
+	 * this method writes the screen (in the machine mode with the question, see above) and reads the answer
+	 *
+	 * @throws java.util.NoSuchElementException if the input has ended
+	 */
+	public String read(InputSource in, int question){
+
+		prompt(question);
+		return in.next(question);
+	}
+
+	/**
+	 * this method writes the screen like read() and reads the answer as a number
+	 *
+	 * @throws java.util.InputMismatchException if the answer is not a number
+	 */
+	public int readInt(InputSource in, int question){
+
+		prompt(question);
+		return in.nextInt(question);
+	}
+
+	private void prompt(int question){
+
+		if(mode == MACHINE)
+			screen.append("PROMPT ").append(QUESTION_NAMES[question]).append('\n');
+		flush();
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										TEXT
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method adds a line of text to the screen (not in the machine mode)
+	 */
+	public ScreenRenderer line(String text){
+
+		if(mode != MACHINE)
+			screen.append(text).append('\n');
+		return this;
+	}
+
+	/**
+	 * this method adds text without a new line to the screen, eg. a prompt (not in the machine mode)
+	 */
+	public ScreenRenderer text(String text){
+
+		if(mode != MACHINE)
+			screen.append(text);
+		return this;
+	}
+
+	/**
+	 * this method adds a heading to the screen (bold in the ANSI mode, not in the machine mode)
+	 */
+	public ScreenRenderer heading(String text){
+
+		if(mode == MACHINE)
+			return this;
+		if(mode == ANSI)
+			screen.append(BOLD).append(text).append(RESET).append('\n');
+		else
+			screen.append(text).append('\n');
+		return this;
+	}
+
+	/**
+	 * this method adds a message about the additional Yatzy bonus to the screen (yellow in the ANSI mode, "BONUS" in the machine mode)
+	 */
+	public ScreenRenderer bonus(String text){
+
+		if(mode == MACHINE)
+			screen.append("BONUS 100\n");
+		else if(mode == ANSI)
+			screen.append(YELLOW).append(text).append(RESET).append('\n');
+		else
+			screen.append(text).append('\n');
+		return this;
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										SCREENS OF THE GAME
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method adds the start of a turn to the screen. Only in the machine mode: the other modes display the round
+	 * and the name of the player as text.
+	 *
+	 * machine mode: TURN <round> <index of the player>
+	 */
+	public ScreenRenderer turn(int round, int playerIndex){
+
+		if(mode == MACHINE)
+			screen.append("TURN ").append(round).append(' ').append(playerIndex).append('\n');
+		return this;
+	}
+
+	/**
+	 * this method adds the 5 dice to the screen (0 - 5 represent the faces 1 - 6)
+	 *
+	 * machine mode: DICE <face> <face> <face> <face> <face>
+	 */
+	public ScreenRenderer dice(int[] diceValues){
+
+		if(mode == MACHINE){
+			screen.append("DICE");
+			for(int value : diceValues)
+				screen.append(' ').append(value + 1);
+			screen.append('\n');
+			return this;
+		}
+		// the numbers of the dice and the top line of the five dice
+		screen.append(DICE_NUMS).append('\n').append(TOPLINE).append('\n');
+		// the top, middle and bottom third of the faces of all 5 dice
+		appendFaces(FACES_TOP, diceValues);
+		appendFaces(FACES_MIDDLE, diceValues);
+		appendFaces(FACES_BOTTOM, diceValues);
+		// the bottom line of the five dice
+		screen.append(BOTTOMLINE).append('\n');
+		return this;
+	}
+
+	private void appendFaces(String[] faces, int[] diceValues){
+
+		screen.append("| ");
+		for(int i = 0; i < diceValues.length; i++){
+			if(i > 0)
+				screen.append(" | | ");
+			if(mode == ANSI)
+				screen.append(BOLD).append(faces[diceValues[i]]).append(RESET);
+			else
+				screen.append(faces[diceValues[i]]);
+		}
+		screen.append(" |\n");
+	}
+
+	/**
+	 * this method adds the game cards of all players to the screen (see displayCard() of the console game)
+	 *
+	 * machine mode: one line per player: CARD <index of the player> <name> <points of the 16 fields, "-" if empty>
+	 */
+	public ScreenRenderer gameCard(Player[] players){
+
+		String[] fieldNames = Yatzy.getFieldNames();
+		if(mode == MACHINE){
+			for(int j = 0; j < players.length; j++){
+				screen.append("CARD ").append(j).append(' ').append(players[j].getName());
+				for(int i = 0; i < fieldNames.length; i++){
+					int points = players[j].getGameCard(i);
+					screen.append(' ');
+					if(points != -1)
+						screen.append(points);
+					else
+						screen.append('-');
+				}
+				screen.append('\n');
+			}
+			return this;
+		}
+		// the names of the players
+		for(Player player : players){
+			screen.append("\t\t");
+			appendBold(player.getName());
+		}
+		screen.append('\n');
+		appendDivider('-', players.length);
+		for(int i = 0; i < fieldNames.length; i++){
+			boolean totals = (i == fieldNames.length - 1);
+			if(totals)
+				appendBold(fieldNames[i]);
+			else
+				screen.append(fieldNames[i]);
+			if(i < 6 || i == 12 || i == 13)		// if the field name is short,
+				screen.append('\t');			// add an extra tab to get an even looking display
+			// the points of the field, or a hyphen if the field is empty
+			for(Player player : players){
+				int points = player.getGameCard(i);
+				screen.append('\t');
+				if(points == -1)
+					screen.append(mode == ANSI ? DIM + "-" + RESET : "-");
+				else if(totals)
+					appendBold(Integer.toString(points));
+				else
+					screen.append(points);
+				screen.append('\t');
+			}
+			screen.append('\n');
+			if(i == 5 || i == 6 || i == 13 || i == 14)	// a horizontal line before and after the Bonus fields
+				appendDivider('-', players.length);
+			if(totals)		// a double horizontal line after the totals field
+				appendDivider('=', players.length);
+		}
+		return this;
+	}
+
+	/**
+	 * this method adds a line of the game card (the length depends on the number of players)
+	 */
+	private void appendDivider(char c, int numOfPlayers){
+
+		for(int i = 0; i < 16 * (numOfPlayers + 1); i++)
+			screen.append(c);
+		screen.append('\n');
+	}
+
+	private void appendBold(String text){
+
+		if(mode == ANSI)
+			screen.append(BOLD).append(text).append(RESET);
+		else
+			screen.append(text);
+	}
+
+	/**
+	 * this method adds the names of the specified fields on one line, separated by commas (" ---------- " if there are none)
+	 *
+	 * machine mode: OPTIONS <abbreviations of the fields>
+	 */
+	public ScreenRenderer options(int fields){
+
+		String[] fieldNames = Yatzy.getFieldNames();
+		if(mode == MACHINE){
+			screen.append("OPTIONS");
+			for(int i = 0; i < fieldNames.length; i++)
+				if((fields & (1 << i)) != 0)
+					screen.append(' ').append(Yatzy.getAbbreviations()[i]);
+			screen.append('\n');
+			return this;
+		}
+		boolean first = true;
+		for(int i = 0; i < fieldNames.length; i++){
+			if((fields & (1 << i)) == 0)
+				continue;
+			if(!first)		// a comma before every field name except the first one
+				screen.append(", ");
+			if(mode == ANSI)
+				screen.append(GREEN).append(fieldNames[i]).append(RESET);
+			else
+				screen.append(fieldNames[i]);
+			first = false;
+		}
+		screen.append('\n');
+		if(fields == 0)		// an empty line if no options are available
+			screen.append(" ---------- \n");
+		return this;
+	}
+
+	/**
+	 * this method adds the specified fields with their abbreviations, one per line (eg. the fields a player can select)
+	 *
+	 * machine mode: <keyword> <abbreviations of the fields>
+	 */
+	public ScreenRenderer fieldList(String keyword, int fields){
+
+		String[] fieldNames = Yatzy.getFieldNames();
+		String[] abbreviations = Yatzy.getAbbreviations();
+		if(mode == MACHINE)
+			screen.append(keyword);
+		for(int i = 0; i < abbreviations.length; i++){
+			if((fields & (1 << i)) == 0)
+				continue;
+			if(mode == MACHINE)
+				screen.append(' ').append(abbreviations[i]);
+			else if(mode == ANSI)
+				screen.append(' ').append(GREEN).append(abbreviations[i]).append(RESET).append('\t').append(fieldNames[i]).append('\n');
+			else
+				screen.append(' ').append(abbreviations[i]).append('\t').append(fieldNames[i]).append('\n');
+		}
+		if(mode == MACHINE)
+			screen.append('\n');
+		return this;
+	}
+}
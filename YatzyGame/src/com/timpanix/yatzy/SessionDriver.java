@@ -0,0 +1,58 @@
+package com.timpanix.yatzy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+
+/**
+ * this class contains the main method of unattended sessions: the whole game (menus, names, rolls, selections, highscores)
+ * is played without a terminal and at full speed (see InputSource).
+ * - script:  the session is played with the commands of a script file (eg. to replay the session of a customer with
+ *            the same dice seed). The output is displayed.
+ * - policy:  any number of games are played by the GreedyPolicy (eg. to test the load of the whole game). The output is
+ *            discarded, only the time per game is displayed.
+ * The results of a script are recorded in the highscores like the results of any other game. The results of the policy
+ * are recorded in a highscore log of their own (driver-highscores.log), so a load test doesn't fill the highscores
+ * of the people with "Bot" results.
+ */
+public class SessionDriver {
+
+	public static final String POLICY_HIGHSCORES_FILE_NAME = "driver-highscores.log";
+
+	/**
+	 * @param args: script <file> [seed of the dice] [output mode plain, ansi or machine]
+	 * 				or: policy [number of games (default 100)] [number of players (default 2)] [seed of the dice]
+	 */
+	public static void main(String[] args) throws IOException{
+
+		if(args.length > 1 && args[0].equals("script")){
+			GameSession session = new GameSession(args.length > 2 ? new SplittableDiceSource(Long.parseLong(args[2])) : new SplittableDiceSource());
+			if(args.length > 3)
+				session.setOutputMode(ScreenRenderer.parseMode(args[3]) != -1 ? ScreenRenderer.parseMode(args[3]) : ScreenRenderer.PLAIN);
+			try(ScannerInput in = ScannerInput.fromScript(Paths.get(args[1]))){
+				YatzyManager.playSession(session, in, null, null);
+			}catch(NoSuchElementException nsee){
+				System.out.println("\nThe script ended before the session was finished.");
+			}
+		}else if(args.length > 0 && args[0].equals("policy")){
+			int numOfGames = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+			int numOfPlayers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+			DiceSource diceSource = args.length > 3 ? new SplittableDiceSource(Long.parseLong(args[3])) : new SplittableDiceSource();
+			PolicyInput in = new PolicyInput(new GreedyPolicy(), numOfPlayers, numOfGames);
+			long start = System.nanoTime();
+			GameSession session = new GameSession(diceSource, new PrintStream(OutputStream.nullOutputStream()));
+			session.setLeaderboard(new Leaderboard(new HighscoreLog(Paths.get(POLICY_HIGHSCORES_FILE_NAME))));
+			YatzyManager.playSession(session, in, null, null);
+			long time = System.nanoTime() - start;
+			System.out.printf("%d games of %d players in %.2f s (%.2f ms per game), average points: %.1f (dice seed: %d)%n",
+					in.getNumOfGamesFinished(), numOfPlayers, time / 1e9, time / 1e6 / Math.max(in.getNumOfGamesFinished(), 1),
+					(double) in.getTotalPoints() / Math.max(in.getNumOfGamesFinished() * numOfPlayers, 1), diceSource.getSeed());
+		}else{
+			System.out.println("Usage: SessionDriver script <file> [seed] [plain|ansi|machine]");
+			System.out.println("   or: SessionDriver policy [number of games] [number of players] [seed]");
+		}
+		PersistenceExecutor.getShared().drain();	// wait until the highscores were written
+	}
+}
@@ -0,0 +1,114 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+/**
+ * this class collects the results of simulated games: the average score of every field, how often the bonuses were won
+ * and the distribution of the final scores. Every simulation worker collects its own statistics, which are merged at the end.
+ */
+public class SimulationStats {
+
+	private static final int MAX_SCORE = 1600;		// higher than the highest possible score (1575)
+	private long numOfGames;
+	private long totalScore;
+	private final long[] fieldScores = new long[NUM_OF_FIELDS];
+	private long upperBonuses;		// number of games in which the upper section bonus was won
+	private long yatzyBonuses;		// number of additional yatzy bonuses (over all games)
+	private final long[] scoreCounts = new long[MAX_SCORE];
+
+	/**
+	 * this method records the points scored in a field (incl. the bonus fields) during a game
+	 */
+	public void addFieldScore(int field, int points){
+
+		fieldScores[field] += points;
+		if(field == UPPER_BONUS_FIELD)
+			upperBonuses++;
+		else if(field == YATZY_BONUS_FIELD)
+			yatzyBonuses++;
+	}
+
+	/**
+	 * this method records the final score of a game
+	 */
+	public void addGame(int score){
+
+		numOfGames++;
+		totalScore += score;
+		scoreCounts[score]++;
+	}
+
+	/**
+	 * this method adds the statistics of another worker to this one
+	 */
+	public void merge(SimulationStats other){
+
+		numOfGames += other.numOfGames;
+		totalScore += other.totalScore;
+		upperBonuses += other.upperBonuses;
+		yatzyBonuses += other.yatzyBonuses;
+		for(int i = 0; i < NUM_OF_FIELDS; i++)
+			fieldScores[i] += other.fieldScores[i];
+		for(int i = 0; i < MAX_SCORE; i++)
+			scoreCounts[i] += other.scoreCounts[i];
+	}
+
+	public long getNumOfGames(){
+		return numOfGames;
+	}
+
+	public double getAverageScore(){
+		return (double) totalScore / numOfGames;
+	}
+
+	public double getAverageFieldScore(int field){
+		return (double) fieldScores[field] / numOfGames;
+	}
+
+	public double getUpperBonusRate(){
+		return (double) upperBonuses / numOfGames;
+	}
+
+	public double getYatzyBonusesPerGame(){
+		return (double) yatzyBonuses / numOfGames;
+	}
+
+	/**
+	 * this method returns the number of games that ended with the specified score
+	 */
+	public long getScoreCount(int score){
+		return score < MAX_SCORE ? scoreCounts[score] : 0;
+	}
+
+	/**
+	 * this method returns the lowest score that at least the specified share of games (0 - 1) did not exceed
+	 */
+	public int getPercentile(double share){
+
+		long limit = (long) Math.ceil(share * numOfGames);
+		long count = 0;
+		for(int score = 0; score < MAX_SCORE; score++){
+			count += scoreCounts[score];
+			if(count >= limit && count > 0)
+				return score;
+		}
+		return MAX_SCORE - 1;
+	}
+
+	/**
+	 * this method displays the statistics
+	 */
+	public void display(){
+
+		System.out.println("Games:\t\t\t" + numOfGames);
+		System.out.printf("Average score:\t\t%.2f%n", getAverageScore());
+		System.out.println("\nAverage score per field:");
+		for(int i = 0; i < NUM_OF_FIELDS - 1; i++)
+			System.out.printf(" %-16s%8.2f%n", Yatzy.getFieldNames()[i].trim(), getAverageFieldScore(i));
+		System.out.printf("%nUpper bonus won:\t%.2f %%%n", 100 * getUpperBonusRate());
+		System.out.printf("Yatzy bonuses per game:\t%.4f%n", getYatzyBonusesPerGame());
+		System.out.println("\nScore distribution:");
+		System.out.println(" Min " + getPercentile(0) + ", 10% " + getPercentile(0.1) + ", 25% " + getPercentile(0.25) + ", median " + getPercentile(0.5)
+				+ ", 75% " + getPercentile(0.75) + ", 90% " + getPercentile(0.9) + ", max " + getPercentile(1));
+	}
+}
@@ -0,0 +1,42 @@
+package com.timpanix.yatzy;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * this fork/join task plays a range of simulated games. Ranges that are too big are split in two, and each half gets its own
+ * random number stream (DiceSource.split()), so the workers don't share any state and the results only depend on the seed.
+ */
+class SimulationTask extends RecursiveTask<SimulationStats> {
+
+	private static final long serialVersionUID = 4213375297411652318L;
+	private static final long GAMES_PER_TASK = 20000;
+	private final long numOfGames;
+	private final DiceSource random;
+	private final Supplier<Policy> policies;
+
+	// constructor
+	SimulationTask(long numOfGames, DiceSource random, Supplier<Policy> policies){
+		this.numOfGames = numOfGames;
+		this.random = random;
+		this.policies = policies;
+	}
+
+	@Override
+	protected SimulationStats compute(){
+
+		if(numOfGames > GAMES_PER_TASK){
+			SimulationTask left = new SimulationTask(numOfGames / 2, random.split(), policies);
+			SimulationTask right = new SimulationTask(numOfGames - numOfGames / 2, random, policies);
+			left.fork();
+			SimulationStats stats = right.compute();
+			stats.merge(left.join());
+			return stats;
+		}
+		SimulationStats stats = new SimulationStats();
+		Policy policy = policies.get();
+		for(long i = 0; i < numOfGames; i++)
+			YatzySimulation.playGame(policy, random, stats);
+		return stats;
+	}
+}
@@ -0,0 +1,262 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * this class publishes the events of the games of a session to any number of spectators (eg. the viewers of a table).
+ * It is a GameListener: the events are written by the thread of the game into a ring buffer which is allocated once,
+ * and every event is packed into one long (see below), so publishing an event doesn't create any objects.
+ *
+ * The game never waits for the spectators: every spectator has its own Subscription and reads the events at its own pace.
+ * The game doesn't even know the subscriptions, so the cost of an event is the same for one or thousands of spectators.
+ * A spectator who falls behind by the capacity of the buffer misses the oldest events: they are counted as
+ * dropped and the spectator continues with the oldest event still in the buffer.
+ *
+ * Event (long):
+ * - bits  0 -  7: type
+ * - bits  8 - 15: index of the player
+ * - bits 16 - 23: round (GAME_START, TURN_START, ROUND_END), roll (ROLL) or field (SELECTION, CROSS_OUT)
+ * - bits 24 - 47: values of the dice (ROLL, 3 bits per dice), points (SELECTION, CROSS_OUT, WINNER),
+ *                 number of players (GAME_START), 1 if all rounds were played (GAME_END)
+ * - bits 48 - 52: the dice which were rolled (ROLL, bit i for dice i)
+ */
+public class SpectatorFeed implements GameListener {
+
+	public static final int DEFAULT_CAPACITY = 1024;	// about 3 games of 2 players
+	public static final long NO_EVENT = 0L;
+	// types of events
+	public static final int GAME_START = 1;
+	public static final int TURN_START = 2;
+	public static final int ROLL = 3;
+	public static final int SELECTION = 4;
+	public static final int CROSS_OUT = 5;
+	public static final int ROUND_END = 6;
+	public static final int WINNER = 7;
+	public static final int GAME_END = 8;
+
+	private final AtomicLongArray events;
+	private final int mask;			// capacity - 1 (the capacity is a power of 2)
+	private final AtomicLong published = new AtomicLong();	// the number of events published so far (only written by the game)
+
+	// constructor: the default capacity
+	public SpectatorFeed(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	// constructor: the capacity is rounded up to a power of 2
+	public SpectatorFeed(int capacity){
+
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.events = new AtomicLongArray(size);
+		this.mask = size - 1;
+	}
+
+	public int getCapacity(){
+		return events.length();
+	}
+
+	/**
+	 * this method returns a new subscription, which receives the events published from now on.
+	 * It can be called from any thread, and a subscription is read by one thread at a time.
+	 */
+	public Subscription subscribe(){
+		return new Subscription(published.get());
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										PUBLISHING (GAME LISTENER)
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	@Override
+	public void onGameStart(Player[] players, int round, int firstPlayer){
+		publish(pack(GAME_START, firstPlayer, round, players.length));
+	}
+
+	@Override
+	public void onTurnStart(int round, int playerIndex){
+		publish(pack(TURN_START, playerIndex, round, 0));
+	}
+
+	@Override
+	public void onRoll(int playerIndex, int rollNumber, boolean[] rolledDice, int[] diceValues){
+
+		long rolled = 0;
+		for(int i = 0; i < NUM_OF_DICE; i++)
+			if(rolledDice[i])
+				rolled |= 1 << i;
+		publish(pack(ROLL, playerIndex, rollNumber, GameProtocol.packDiceValues(diceValues)) | rolled << 48);
+	}
+
+	@Override
+	public void onSelection(int playerIndex, int field, int points){
+		publish(pack(SELECTION, playerIndex, field, points));
+	}
+
+	@Override
+	public void onCrossOut(int playerIndex, int field, int points){
+		publish(pack(CROSS_OUT, playerIndex, field, points));
+	}
+
+	@Override
+	public void onRoundEnd(int round){
+		publish(pack(ROUND_END, 0, round, 0));
+	}
+
+	@Override
+	public void onWinner(int playerIndex, int points){
+		publish(pack(WINNER, playerIndex, 0, points));
+	}
+
+	@Override
+	public void onGameEnd(Player[] players, boolean finished){
+		publish(pack(GAME_END, 0, 0, finished ? 1 : 0));
+	}
+
+	/**
+	 * this method writes an event into the next slot of the ring buffer (the oldest event is overwritten).
+	 * Only the thread of the game publishes, so the number of events is not contended. Both writes are ordered (release):
+	 * a spectator who sees the new event in a slot also sees the new number of events (see Subscription.poll()).
+	 */
+	private void publish(long event){
+
+		long sequence = published.get();
+		events.setRelease((int) sequence & mask, event);
+		published.setRelease(sequence + 1);
+	}
+
+	private static long pack(int type, int playerIndex, int argument, int value){
+		return type | (playerIndex & 0xFFL) << 8 | (argument & 0xFFL) << 16 | (value & 0xFFFFFFL) << 24;
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										READING THE EVENTS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	public static int getType(long event){
+		return (int) event & 0xFF;
+	}
+
+	public static int getPlayerIndex(long event){
+		return (int) (event >>> 8) & 0xFF;
+	}
+
+	/**
+	 * @return: the round (GAME_START, TURN_START, ROUND_END), the roll (ROLL) or the field (SELECTION, CROSS_OUT)
+	 */
+	public static int getArgument(long event){
+		return (int) (event >>> 16) & 0xFF;
+	}
+
+	/**
+	 * @return: the points (SELECTION, CROSS_OUT, WINNER), the number of players (GAME_START), 1 if the game was finished (GAME_END)
+	 */
+	public static int getValue(long event){
+		return (int) (event >>> 24) & 0xFFFFFF;
+	}
+
+	/**
+	 * this method unpacks the values of the dice of a ROLL event (0 - 5 represent the faces 1 - 6)
+	 */
+	public static void getDiceValues(long event, int[] diceValues){
+		GameProtocol.unpackDiceValues(getValue(event), diceValues);
+	}
+
+	/**
+	 * @return: the dice which were rolled (ROLL, bit i for dice i)
+	 */
+	public static int getRolledDice(long event){
+		return (int) (event >>> 48) & GameProtocol.ALL_DICE;
+	}
+
+	/**
+	 * this method describes an event in one line, starting with the type and followed by its values separated by spaces,
+	 * eg. "ROLL 0 2 3 5 1 6 6" (player 0, second roll, the faces of the dice). The players are numbered from 0 and the fields
+	 * are given by their abbreviations (see Yatzy.getAbbreviations()).
+	 */
+	public static String describe(long event){
+
+		switch(getType(event)){
+		case GAME_START:
+			return "GAME_START " + getValue(event) + " " + getPlayerIndex(event);
+		case TURN_START:
+			return "TURN " + getArgument(event) + " " + getPlayerIndex(event);
+		case ROLL:
+			StringBuilder line = new StringBuilder("ROLL ").append(getPlayerIndex(event)).append(' ').append(getArgument(event));
+			int[] diceValues = new int[NUM_OF_DICE];
+			getDiceValues(event, diceValues);
+			for(int value : diceValues)
+				line.append(' ').append(value + 1);
+			return line.toString();
+		case SELECTION:
+			return "SELECT " + getPlayerIndex(event) + " " + Yatzy.getAbbreviations()[getArgument(event)] + " " + getValue(event);
+		case CROSS_OUT:
+			return "CROSS_OUT " + getPlayerIndex(event) + " " + Yatzy.getAbbreviations()[getArgument(event)];
+		case ROUND_END:
+			return "ROUND_END " + getArgument(event);
+		case WINNER:
+			return "WINNER " + getPlayerIndex(event) + " " + getValue(event);
+		case GAME_END:
+			return "GAME_END " + getValue(event);
+		default:
+			return "UNKNOWN " + getType(event);
+		}
+	}
+
+	/**
+	 * the position of one spectator in the feed
+	 */
+	public class Subscription {
+
+		private long next;		// the sequence number of the next event
+		private long dropped;
+
+		// constructor
+		private Subscription(long next){
+			this.next = next;
+		}
+
+		/**
+		 * this method returns the next event, or NO_EVENT if the spectator has seen all events
+		 */
+		public long poll(){
+
+			while(true){
+				long available = published.getAcquire();
+				if(next == available)
+					return NO_EVENT;
+				// the spectator fell behind: skip the events which were overwritten (and the oldest one, which the game overwrites next)
+				if(available - next >= events.length()){
+					dropped += available - events.length() + 1 - next;
+					next = available - events.length() + 1;
+				}
+				long event = events.getAcquire((int) next & mask);
+				// the slot may have been overwritten while it was read: then the game has published at least one more round of the buffer
+				if(published.getAcquire() - next < events.length()){
+					next++;
+					return event;
+				}
+			}
+		}
+
+		/**
+		 * @return: the number of events this spectator missed because it fell behind
+		 */
+		public long getDropped(){
+			return dropped;
+		}
+
+		/**
+		 * @return: the number of events which were published but not read yet
+		 */
+		public long getLag(){
+			return Math.min(published.get() - next, events.length());
+		}
+	}
+}
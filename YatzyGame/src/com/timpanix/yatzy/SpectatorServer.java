@@ -0,0 +1,274 @@
+package com.timpanix.yatzy;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * this class sends the events of the tables of a server to the spectators (see SpectatorFeed): a spectator gets the list
+ * of the tables and chooses one, then every event is sent as one line until the session of the table ends ("END") or the
+ * spectator closes the connection. If the spectator falls too far behind, the events which were missed are reported
+ * ("DROPPED <number of events>").
+ *
+ * All spectators are handled by one thread with a selector (non-blocking I/O, like the YatzyNioServer): every 50 ms,
+ * the thread takes the new events of all subscriptions and sends them. No thread waits for a spectator: if a spectator
+ * doesn't read the events, no more events are taken from his/her subscription until the output was sent, so he/she
+ * misses events without slowing down the other spectators (or the players, who never wait for the feed).
+ * The server only accepts connections from the same computer (loopback address).
+ */
+public class SpectatorServer {
+
+	private static final long POLL_MILLIS = 50;		// how often the subscriptions are looked at
+	private static final int INPUT_BUFFER_SIZE = 64;		// the number of the table
+	private static final int OUTPUT_BUFFER_SIZE = 8 * 1024;
+	private static final int MAX_LINE_SIZE = 64;		// one event (see SpectatorFeed.describe()), "DROPPED <number>" or "END"
+	private static final byte[] END = "END\n".getBytes(StandardCharsets.US_ASCII);
+
+	private final ServerSocketChannel serverChannel;
+	private final Selector selector;
+	private final Map<Integer, SpectatorFeed> tables;		// the tables that can be watched (a table is removed when its session ends)
+	private int numOfSpectators;
+
+	// constructor: the server listens on the specified port of the loopback address (port 0: any free port)
+	public SpectatorServer(int port, Map<Integer, SpectatorFeed> tables) throws IOException{
+
+		this.tables = tables;
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	// getters
+	public int getPort(){
+		return serverChannel.socket().getLocalPort();
+	}
+
+	/**
+	 * @return: the number of connected spectators (only up to date on the thread of the server)
+	 */
+	public int getNumOfSpectators(){
+		return numOfSpectators;
+	}
+
+	/**
+	 * this method handles the spectators until the server is closed
+	 */
+	public void run() throws IOException{
+
+		try{
+			long nextPoll = System.nanoTime();
+			while(serverChannel.isOpen()){
+				long wait = nextPoll - System.nanoTime();
+				if(wait > 0)
+					selector.select(Math.max(wait / 1000000, 1));
+				else
+					selector.selectNow();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while(keys.hasNext()){
+					SelectionKey key = keys.next();
+					keys.remove();
+					if(!key.isValid())
+						continue;
+					if(key.isAcceptable())
+						accept();
+					else
+						handle(key);
+				}
+				if(System.nanoTime() - nextPoll >= 0){
+					sendEvents();
+					nextPoll = System.nanoTime() + POLL_MILLIS * 1000000;
+				}
+			}
+		}catch(ClosedSelectorException cse){
+			// the server was closed
+		}finally{
+			for(SelectionKey key : selector.keys())
+				if(key.isValid() && key.attachment() instanceof Spectator)
+					close(key);
+			selector.close();
+		}
+	}
+
+	/**
+	 * this method stops the server (from any thread). The connections of the spectators are closed.
+	 */
+	public void close() throws IOException{
+
+		serverChannel.close();
+		selector.wakeup();
+	}
+
+	/**
+	 * this method accepts the new spectators and sends them the list of the tables
+	 */
+	private void accept() throws IOException{
+
+		SocketChannel channel;
+		while((channel = serverChannel.accept()) != null){
+			channel.configureBlocking(false);
+			StringBuilder text = new StringBuilder("TABLES");
+			for(int tableId : new TreeSet<Integer>(tables.keySet()))
+				text.append(' ').append(tableId);
+			text.append("\nWhich table would you like to watch? ");
+			Spectator spectator = new Spectator();
+			print(spectator, text.toString());
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ, spectator);
+			numOfSpectators++;
+			send(key);
+		}
+	}
+
+	/**
+	 * this method reads the number of the table (anything a spectator sends afterwards is ignored) and sends the output
+	 * which is left
+	 */
+	private void handle(SelectionKey key){
+
+		SocketChannel channel = (SocketChannel) key.channel();
+		Spectator spectator = (Spectator) key.attachment();
+		try{
+			if(key.isReadable()){
+				if(channel.read(spectator.in) == -1){
+					close(key);
+					return;
+				}
+				if(spectator.subscription == null && !spectator.closing)
+					chooseTable(spectator);
+				else
+					spectator.in.clear();
+			}
+			send(key);
+		}catch(IOException ioe){
+			close(key);		// the connection was reset by the spectator
+		}
+	}
+
+	/**
+	 * this method subscribes the spectator to the table in the first line he/she sent
+	 */
+	private void chooseTable(Spectator spectator){
+
+		ByteBuffer in = spectator.in;
+		int end = 0;
+		while(end < in.position() && in.get(end) != '\n')
+			end++;
+		if(end == in.position() && in.hasRemaining())		// wait for the rest of the line
+			return;
+		String line = new String(in.array(), 0, end, StandardCharsets.UTF_8).trim();
+		in.clear();
+		try{
+			spectator.tableId = Integer.parseInt(line);
+			spectator.feed = tables.get(spectator.tableId);
+		}catch(NumberFormatException nfe){
+			// there is no such table
+		}
+		if(spectator.feed == null){
+			print(spectator, "There is no table " + line + ".\n");
+			spectator.closing = true;
+			return;
+		}
+		spectator.subscription = spectator.feed.subscribe();
+	}
+
+	/**
+	 * this method takes the new events of all spectators who watch a table and sends them (as much as each output
+	 * buffer can hold)
+	 */
+	private void sendEvents(){
+
+		for(SelectionKey key : selector.keys()){
+			if(!key.isValid() || !(key.attachment() instanceof Spectator))
+				continue;
+			Spectator spectator = (Spectator) key.attachment();
+			if(spectator.subscription == null || spectator.closing)
+				continue;
+			boolean open = tables.get(spectator.tableId) == spectator.feed;	// the events published before the session ended are sent as well
+			SpectatorFeed.Subscription subscription = spectator.subscription;
+			while(spectator.out.remaining() >= 2 * MAX_LINE_SIZE){
+				long event = subscription.poll();
+				if(event == SpectatorFeed.NO_EVENT){
+					if(!open){
+						spectator.out.put(END);
+						spectator.closing = true;
+					}
+					break;
+				}
+				if(subscription.getDropped() > spectator.dropped){
+					print(spectator, "DROPPED " + (subscription.getDropped() - spectator.dropped) + "\n");
+					spectator.dropped = subscription.getDropped();
+				}
+				print(spectator, SpectatorFeed.describe(event) + "\n");
+			}
+			try{
+				send(key);
+			}catch(IOException ioe){
+				close(key);
+			}
+		}
+	}
+
+	/**
+	 * this method sends as much of the output as the connection takes. The connection is closed when its last line was sent.
+	 */
+	private void send(SelectionKey key) throws IOException{
+
+		Spectator spectator = (Spectator) key.attachment();
+		spectator.out.flip();
+		((SocketChannel) key.channel()).write(spectator.out);
+		spectator.out.compact();
+		if(spectator.out.position() == 0 && spectator.closing){
+			close(key);
+			return;
+		}
+		key.interestOps(spectator.out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+	}
+
+	private static void print(Spectator spectator, String text){
+
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		if(spectator.out.remaining() < bytes.length){		// eg. the list of many tables
+			ByteBuffer out = ByteBuffer.allocate(spectator.out.position() + bytes.length + OUTPUT_BUFFER_SIZE);
+			spectator.out.flip();
+			spectator.out = out.put(spectator.out);
+		}
+		spectator.out.put(bytes);
+	}
+
+	private void close(SelectionKey key){
+
+		key.cancel();
+		try{
+			key.channel().close();
+		}catch(IOException ioe){
+			// the connection is closed anyway
+		}
+		numOfSpectators--;
+	}
+
+	/**
+	 * the state of a spectator: the buffers for the number of the table and the lines to send (in write mode between
+	 * the calls), and the table he/she watches
+	 */
+	private static class Spectator {
+
+		private final ByteBuffer in = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+		private ByteBuffer out = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+		private int tableId;
+		private SpectatorFeed feed;		// null until a table was chosen
+		private SpectatorFeed.Subscription subscription;
+		private long dropped;		// the missed events which were reported to the spectator
+		private boolean closing;	// the last line was added: the connection is closed when the output was sent
+	}
+}
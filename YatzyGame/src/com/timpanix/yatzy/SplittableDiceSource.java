@@ -0,0 +1,71 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.NUM_OF_FACES;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * this class is the default DiceSource. It is based on a SplittableRandom (no synchronization, no shared seed generator)
+ * and gets 23 dice out of one 64-bit random number: the number is reduced to the range 0 - 6^23 and every digit of
+ * the number with base 6 is one dice. Numbers above the largest multiple of 6^23 are rejected and drawn again, so all faces
+ * have exactly the same probability.
+ */
+public final class SplittableDiceSource implements DiceSource{
+
+	private static final int FACES_PER_DRAW = 23;
+	private static final long FACES_RANGE = 789730223053602816L;		// 6^23
+	private static final long REJECTION_LIMIT = Long.MAX_VALUE / FACES_RANGE * FACES_RANGE;
+	private final SplittableRandom random;
+	private final long seed;
+	private long faces;			// the faces which are not used yet, as digits of a number with base 6
+	private int facesLeft;
+
+	// constructor: the seed is selected at random
+	public SplittableDiceSource(){
+		this(ThreadLocalRandom.current().nextLong());
+	}
+
+	// constructor: the same seed always rolls the same dice
+	public SplittableDiceSource(long seed){
+		this(new SplittableRandom(seed), seed);
+	}
+
+	// constructor
+	private SplittableDiceSource(SplittableRandom random, long seed){
+		this.random = random;
+		this.seed = seed;
+	}
+
+	@Override
+	public int nextFace(){
+
+		if(facesLeft == 0){
+			long draw;
+			do{
+				draw = random.nextLong() >>> 1;		// 63 bits, so the numbers are positive
+			}while(draw >= REJECTION_LIMIT);
+			faces = draw % FACES_RANGE;
+			facesLeft = FACES_PER_DRAW;
+		}
+		int face = (int) (faces % NUM_OF_FACES);
+		faces /= NUM_OF_FACES;
+		facesLeft--;
+		return face;
+	}
+
+	@Override
+	public int nextInt(int bound){
+		return random.nextInt(bound);
+	}
+
+	@Override
+	public DiceSource split(){
+		return new SplittableDiceSource(random.split(), seed);
+	}
+
+	@Override
+	public long getSeed(){
+		return seed;
+	}
+}
@@ -0,0 +1,136 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+/**
+ * this class calculates the expected final score of optimal play (solitaire) for the rules implemented in the YatzyEngine,
+ * incl. the upper section bonus (35 points at 63) and the additional yatzy bonus (100 points).
+ *
+ * A state is the situation at the beginning of a turn:
+ * - the filled fields (13 bits, the upper bonus field is left out)
+ * - the sum of the upper section (capped at 63, more points don't make a difference)
+ * - whether a yatzy was scored in the yatzy field (needed for the additional yatzy bonus)
+ * The value of a state is the expected score of the rest of the game. The states are calculated backwards, starting with the
+ * states where only one field is empty. All states with the same number of filled fields only depend on states with one more
+ * filled field, so they are calculated in parallel.
+ */
+public final class StrategySolver {
+
+	public static final int NUM_OF_STATES = 1 << 20;		// 2^13 filled fields * 2 yatzy flags * 64 upper sums
+	private static final int NUM_OF_CATEGORIES = 13;
+	private static final int UPPER_SUMS = UPPER_BONUS_THRESHOLD + 1;
+	private static final int YATZY_SCORED_FLAG = 64;
+	private static final int NUM_OF_UPPER_MASKS = 64;
+	private static final boolean[] REACHABLE_UPPER_SUMS = new boolean[NUM_OF_UPPER_MASKS * UPPER_SUMS];
+
+	static{
+		// find out which upper sums can be reached with the filled upper section fields
+		for(int mask = 0; mask < NUM_OF_UPPER_MASKS; mask++){
+			REACHABLE_UPPER_SUMS[mask * UPPER_SUMS] = true;
+			for(int face = 0; face < NUM_OF_FACES; face++){
+				if((mask & (1 << face)) == 0)
+					continue;
+				boolean[] reachable = new boolean[UPPER_SUMS];
+				for(int sum = 0; sum < UPPER_SUMS; sum++)
+					if(REACHABLE_UPPER_SUMS[mask * UPPER_SUMS + sum])
+						for(int n = 0; n <= NUM_OF_DICE; n++)
+							reachable[Math.min(sum + n * (face + 1), UPPER_BONUS_THRESHOLD)] = true;
+				System.arraycopy(reachable, 0, REACHABLE_UPPER_SUMS, mask * UPPER_SUMS, UPPER_SUMS);
+			}
+		}
+	}
+
+	// no instances: all methods are static
+	private StrategySolver(){
+	}
+
+	/**
+	 * this method returns the index of a state in the table returned by solve()
+	 *
+	 * @param: the filled fields (see PackedState.getFilledFields()), the sum of the upper section,
+	 * 			true if a yatzy was scored in the yatzy field
+	 */
+	public static int getStateIndex(int filledFields, int upperSum, boolean yatzyScored){
+
+		int categories = (filledFields & 0x3F) | ((filledFields >>> (UPPER_BONUS_FIELD + 1)) << UPPER_BONUS_FIELD);	// leave out the upper bonus field
+		return categories << 7 | (yatzyScored ? YATZY_SCORED_FLAG : 0) | Math.min(upperSum, UPPER_BONUS_THRESHOLD);
+	}
+
+	/**
+	 * this method returns the index of the state of a packed game card (see PackedState)
+	 */
+	public static int getStateIndex(long card){
+		return getStateIndex(PackedState.getFilledFields(card), PackedState.getUpperSum(card), PackedState.isYatzyScored(card));
+	}
+
+	/**
+	 * this method returns the index of the state of a game card (int[16] as used by the Player class)
+	 */
+	public static int getStateIndex(int[] gameCard){
+		return getStateIndex(PackedState.packGameCard(gameCard));
+	}
+
+	/**
+	 * this method calculates the expected score of optimal play for all reachable states (the others are left at 0).
+	 * The calculation runs in parallel on the common ForkJoinPool.
+	 *
+	 * @return: the table of expected scores, indexed by getStateIndex()
+	 */
+	public static float[] solve(){
+
+		float[] values = new float[NUM_OF_STATES];
+		StrategyTable table = StrategyTable.of(values);
+		// the states where all fields are filled have the value 0. Go backwards from the states with 12 filled fields
+		for(int filled = NUM_OF_CATEGORIES - 1; filled >= 0; filled--){
+			final int numOfFilled = filled;
+			IntStream.range(0, 1 << NUM_OF_CATEGORIES)
+				.filter(categories -> Integer.bitCount(categories) == numOfFilled)
+				.parallel()
+				.forEach(categories -> solveCategories(values, table, categories));
+		}
+		return values;
+	}
+
+	/**
+	 * this method calculates all the states with the specified filled categories (13 bits)
+	 */
+	private static void solveCategories(float[] values, StrategyTable table, int categories){
+
+		TurnEvaluator evaluator = new TurnEvaluator(table);
+		int filledFields = (categories & 0x3F) | ((categories >>> UPPER_BONUS_FIELD) << (UPPER_BONUS_FIELD + 1));
+		boolean yatzyFilled = (filledFields & (1 << YATZY_FIELD)) != 0;
+		int upperMask = filledFields & 0x3F;
+		for(int yatzy = 0; yatzy <= (yatzyFilled ? 1 : 0); yatzy++){
+			for(int sum = 0; sum < UPPER_SUMS; sum++){
+				if(!REACHABLE_UPPER_SUMS[upperMask * UPPER_SUMS + sum])
+					continue;
+				values[getStateIndex(filledFields, sum, yatzy == 1)] = (float) evaluator.evaluate(filledFields, sum, yatzy == 1);
+			}
+		}
+	}
+
+	/**
+	 * this method calculates the state table, displays the expected score of optimal play and the time it took
+	 * and writes the table to a file (see StrategyTable). The name of the file can be passed as argument.
+	 */
+	public static void main(String[] args){
+
+		Path file = Paths.get(args.length > 0 ? args[0] : StrategyTable.DEFAULT_FILE_NAME);
+		long start = System.nanoTime();
+		float[] values = solve();
+		long millis = (System.nanoTime() - start) / 1000000;
+		System.out.println("Expected score of optimal play: " + values[getStateIndex(0, 0, false)]);
+		System.out.println("Calculated in " + millis + " ms");
+		try{
+			StrategyTable.of(values).write(file);
+			System.out.println("The strategy table was written to " + file);
+		}catch(IOException ioe){
+			System.out.println("The file " + file + " could not be written");
+		}
+	}
+}
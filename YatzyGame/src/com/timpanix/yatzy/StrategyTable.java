@@ -0,0 +1,148 @@
+package com.timpanix.yatzy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * this class holds the expected final scores of optimal play for all states (see StrategySolver) and stores them in a file.
+ * A table file is loaded through a read-only memory mapped FileChannel: the values are read directly from the mapped file
+ * (no deserialization), and several JVMs on the same computer share the same pages of the file.
+ *
+ * File format (big endian):
+ * - int:   magic number "YTZS"
+ * - int:   format version
+ * - int:   checksum of the rules the table was calculated for (see getRulesChecksum())
+ * - int:   number of states
+ * - float: expected score of every state, in the order of StrategySolver.getStateIndex()
+ */
+public class StrategyTable {
+
+	public static final String DEFAULT_FILE_NAME = "strategy.tbl";
+	private static final int MAGIC = 0x59545A53;		// "YTZS"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+
+	private final FloatBuffer values;
+
+	// constructor
+	private StrategyTable(FloatBuffer values){
+		this.values = values;
+	}
+
+	/**
+	 * this method wraps a table calculated by the StrategySolver (the array is not copied)
+	 */
+	public static StrategyTable of(float[] values){
+		return new StrategyTable(FloatBuffer.wrap(values));
+	}
+
+	/**
+	 * this method maps a table file into memory. The header is checked, so a file of another format or calculated for other rules
+	 * is not used.
+	 *
+	 * @throws IOException if the file cannot be read or is not a valid table file for the current rules
+	 */
+	public static StrategyTable open(Path file) throws IOException{
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			long expectedSize = HEADER_SIZE + 4L * StrategySolver.NUM_OF_STATES;
+			if(channel.size() != expectedSize)
+				throw new IOException("The file " + file + " has the wrong size (" + channel.size() + " bytes)");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, expectedSize);	// stays valid after closing the channel
+			if(buffer.getInt(0) != MAGIC)
+				throw new IOException("The file " + file + " is not a strategy table");
+			if(buffer.getInt(4) != VERSION)
+				throw new IOException("The file " + file + " has the unsupported version " + buffer.getInt(4));
+			if(buffer.getInt(8) != getRulesChecksum())
+				throw new IOException("The file " + file + " was calculated for other rules");
+			if(buffer.getInt(12) != StrategySolver.NUM_OF_STATES)
+				throw new IOException("The file " + file + " has the wrong number of states");
+			return new StrategyTable(buffer.position(HEADER_SIZE).slice().asFloatBuffer());
+		}
+	}
+
+	/**
+	 * this method maps the table file into memory if it is valid. Otherwise the table is calculated and written to the file
+	 * (if the file cannot be written, the calculated table is used anyway).
+	 */
+	public static StrategyTable openOrSolve(Path file){
+
+		try{
+			return open(file);
+		}catch(IOException ioe){
+			StrategyTable table = of(StrategySolver.solve());
+			try{
+				table.write(file);
+			}catch(IOException e){
+				System.out.println("The strategy table could not be written to " + file);
+			}
+			return table;
+		}
+	}
+
+	/**
+	 * this method writes the table to a file. The file is written to a temporary file first and then renamed,
+	 * so other processes never map a half written file.
+	 */
+	public void write(Path file) throws IOException{
+
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try(FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)){
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(getRulesChecksum()).putInt(StrategySolver.NUM_OF_STATES).flip();
+			while(header.hasRemaining())
+				channel.write(header);
+			ByteBuffer data = ByteBuffer.allocate(4 * StrategySolver.NUM_OF_STATES);
+			for(int i = 0; i < StrategySolver.NUM_OF_STATES; i++)
+				data.putFloat(values.get(i));
+			data.flip();
+			while(data.hasRemaining())
+				channel.write(data);
+			channel.force(true);
+		}
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * this method returns the expected score of the rest of the game for a state (see StrategySolver.getStateIndex())
+	 */
+	public float getValue(int stateIndex){
+		return values.get(stateIndex);
+	}
+
+	/**
+	 * this method returns the expected final score of a game card (int[16] as used by the Player class) with optimal play:
+	 * the points scored so far plus the expected score of the rest of the game
+	 */
+	public float getExpectedScore(int[] gameCard){
+		return gameCard[YatzyEngine.TOTALS_FIELD] + getValue(StrategySolver.getStateIndex(gameCard));
+	}
+
+	/**
+	 * this method calculates a checksum of the rules: the scores and valid options of all combinations and the bonuses.
+	 * A table file calculated for other rules has a different checksum.
+	 */
+	public static int getRulesChecksum(){
+
+		CRC32 crc = new CRC32();
+		for(int c = 0; c < ScoringTable.NUM_OF_COMBINATIONS; c++){
+			crc.update(ScoringTable.getPatternMask(c));		// update() uses the lowest 8 bits only
+			crc.update(ScoringTable.getPatternMask(c) >>> 8);
+			for(int field = 0; field < YatzyEngine.NUM_OF_FIELDS - 2; field++)
+				crc.update(ScoringTable.getScore(c, field));
+		}
+		crc.update(YatzyEngine.UPPER_BONUS_THRESHOLD);
+		crc.update(YatzyEngine.BONUS_UPPERSECTION);
+		crc.update(YatzyEngine.ADDITIONAL_YATZY_BONUS);
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,76 @@
+package com.timpanix.yatzy;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * this class keeps the best results (max. k) of any number of threads without a lock. The results are kept in a sorted array
+ * (best first) which is never changed: a submission copies the array, inserts the result and replaces the array with
+ * compareAndSet(). If another thread replaced the array in the meantime, the submission is tried again with the new array.
+ *
+ * A result which is not higher than the lowest of k results is rejected by reading the array only (no copy, no compareAndSet),
+ * which is the normal case once the table is full. Readers get the array as it is, so they always see a consistent snapshot.
+ * Results with the same score keep the order in which they were submitted (the older result ranks higher).
+ */
+public class TopScores {
+
+	private final int k;
+	private final AtomicReference<Highscore[]> scores;
+
+	// constructor
+	public TopScores(int k){
+		this.k = k;
+		this.scores = new AtomicReference<Highscore[]>(new Highscore[0]);
+	}
+
+	// constructor: the table starts with the specified results
+	public TopScores(int k, List<Highscore> highscores){
+
+		this(k);
+		for(Highscore h : highscores)
+			submit(h);
+	}
+
+	/**
+	 * this method adds a result if it is one of the best k results
+	 *
+	 * @return: true if the result was added, false if it was rejected
+	 */
+	public boolean submit(Highscore highscore){
+
+		int score = highscore.getScore();
+		while(true){
+			Highscore[] current = scores.get();
+			// fast path: the table is full and the score is not higher than the lowest score
+			if(current.length == k && current[k - 1].getScore() >= score)
+				return false;
+			// insert after all results with the same or a higher score
+			int position = current.length;
+			while(position > 0 && current[position - 1].getScore() < score)
+				position--;
+			Highscore[] updated = new Highscore[Math.min(current.length + 1, k)];
+			System.arraycopy(current, 0, updated, 0, position);
+			updated[position] = highscore;
+			System.arraycopy(current, position, updated, position + 1, updated.length - position - 1);
+			if(scores.compareAndSet(current, updated))
+				return true;
+		}
+	}
+
+	/**
+	 * this method returns the lowest score that is still in the table, or -1 if the table is not full
+	 * (a result must be higher to be added)
+	 */
+	public int getMinScore(){
+
+		Highscore[] current = scores.get();
+		return current.length < k ? -1 : current[k - 1].getScore();
+	}
+
+	/**
+	 * this method returns a snapshot of the results, best first (the list cannot be changed)
+	 */
+	public List<Highscore> getHighscores(){
+		return List.of(scores.get());
+	}
+}
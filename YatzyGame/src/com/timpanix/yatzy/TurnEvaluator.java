@@ -0,0 +1,286 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+/**
+ * this class calculates the expected score of one turn when the player plays optimally, given the expected final scores
+ * of all the states that can follow the turn (see StrategySolver). It is used by the StrategySolver to fill the state table
+ * and by automated players to decide which dice to keep and which field to select.
+ *
+ * A "keeper" is a set of 0 - 5 dice that the player keeps before rolling the other dice again (462 keepers in total).
+ * The expected value of a keeper is the average of the expected values of the keeper plus one more dice (for each face),
+ * so the values of all keepers are calculated from the 5 dice keepers (= combinations) in one pass.
+ *
+ * One instance holds the working memory for the calculation and must only be used by one thread at a time.
+ */
+public class TurnEvaluator {
+
+	public static final int NUM_OF_KEEPERS = 462;
+	private static final int NUM_OF_KEYS = 46656;		// 6^6 possible face counters as a number with base 6
+
+	private static final short[] KEEPER_BY_KEY = new short[NUM_OF_KEYS];
+	private static final int[] KEEPER_DICE = new int[NUM_OF_KEEPERS];		// the dice of a keeper (see PackedState)
+	private static final int[] KEEPER_COMBINATIONS = new int[NUM_OF_KEEPERS];		// the combination of a 5 dice keeper, -1 otherwise
+	private static final int[] KEEPER_CHILDREN = new int[NUM_OF_KEEPERS * NUM_OF_FACES];	// the keeper with one more dice of each face
+	private static final int[] SUB_KEEPERS_START = new int[ScoringTable.NUM_OF_COMBINATIONS + 1];
+	private static final int[] SUB_KEEPERS;		// all the keepers that can be kept from a combination
+	private static final int[] COMBINATION_KEEPERS = new int[ScoringTable.NUM_OF_COMBINATIONS];
+	private static final int EMPTY_KEEPER;
+
+	static{
+		// the keepers are ordered by number of dice (5 dice first), so every keeper comes after its children
+		int index = 0;
+		for(int size = NUM_OF_DICE; size >= 0; size--)
+			index = addKeepers(index, 0, 0, size);
+		EMPTY_KEEPER = NUM_OF_KEEPERS - 1;
+
+		int numOfSubKeepers = 0;
+		for(int c = 0; c < ScoringTable.NUM_OF_COMBINATIONS; c++){
+			int subKeepers = 1;
+			for(int f = 0; f < NUM_OF_FACES; f++)
+				subKeepers *= ScoringTable.getCounter(c, f) + 1;
+			numOfSubKeepers += subKeepers;
+		}
+		SUB_KEEPERS = new int[numOfSubKeepers];
+		for(int k = 0; k < NUM_OF_KEEPERS; k++){
+			for(int f = 0; f < NUM_OF_FACES; f++)
+				KEEPER_CHILDREN[k * NUM_OF_FACES + f] = PackedState.getNumOfDice(KEEPER_DICE[k]) < NUM_OF_DICE
+						? getKeeper(PackedState.addDice(KEEPER_DICE[k], f)) : -1;
+			KEEPER_COMBINATIONS[k] = PackedState.getNumOfDice(KEEPER_DICE[k]) == NUM_OF_DICE ? PackedState.getCombination(KEEPER_DICE[k]) : -1;
+		}
+		int position = 0;
+		int[] counters = new int[NUM_OF_FACES];
+		for(int c = 0; c < ScoringTable.NUM_OF_COMBINATIONS; c++){
+			SUB_KEEPERS_START[c] = position;
+			for(int f = 0; f < NUM_OF_FACES; f++)
+				counters[f] = ScoringTable.getCounter(c, f);
+			COMBINATION_KEEPERS[c] = getKeeper(PackedState.packDice(counters));
+			position = addSubKeepers(position, counters, 0, 0);
+		}
+		SUB_KEEPERS_START[ScoringTable.NUM_OF_COMBINATIONS] = position;
+	}
+
+	private final StrategyTable stateValues;
+	// index 0: values after the 1st roll, index 1: after the 2nd roll, index 2: after the 3rd roll
+	private final double[][] combinationValues = new double[MAX_ROLLS][ScoringTable.NUM_OF_COMBINATIONS];
+	// index 0: values before the 1st roll, index 1: before the 2nd roll, index 2: before the 3rd roll
+	private final double[][] keeperValues = new double[MAX_ROLLS][NUM_OF_KEEPERS];
+	// the points of an upper section field plus the expected score after it, for 0 - 5 dice with the field's face
+	private final double[] upperFieldValues = new double[UPPER_BONUS_FIELD * (NUM_OF_DICE + 1)];
+	// the expected score after a field of the lower section is filled (or any field is crossed out)
+	private final double[] nextValues = new double[NUM_OF_FIELDS - 2];
+	private final double[] crossOutValues = new double[NUM_OF_FIELDS - 2];
+	private final int[] bestFields = new int[ScoringTable.NUM_OF_COMBINATIONS];
+	private final boolean[] crossOut = new boolean[ScoringTable.NUM_OF_COMBINATIONS];
+	private int filledFields;
+	private int upperSum;
+	private boolean yatzyScored;
+
+	// constructor
+	public TurnEvaluator(StrategyTable stateValues){
+		this.stateValues = stateValues;
+	}
+
+	/**
+	 * this method adds all keepers with the specified number of dice (recursively, face by face)
+	 */
+	private static int addKeepers(int index, int dice, int face, int diceLeft){
+
+		if(face == NUM_OF_FACES - 1){
+			for(int i = 0; i < diceLeft; i++)
+				dice = PackedState.addDice(dice, face);
+			KEEPER_DICE[index] = dice;
+			KEEPER_BY_KEY[getKey(dice)] = (short) index;
+			return index + 1;
+		}
+		for(int n = diceLeft; n >= 0; n--){
+			int keeper = dice;
+			for(int i = 0; i < n; i++)
+				keeper = PackedState.addDice(keeper, face);
+			index = addKeepers(index, keeper, face + 1, diceLeft - n);
+		}
+		return index;
+	}
+
+	/**
+	 * this method adds all the keepers that can be kept from the dice with the specified counters (recursively, face by face)
+	 */
+	private static int addSubKeepers(int position, int[] counters, int dice, int face){
+
+		if(face == NUM_OF_FACES){
+			SUB_KEEPERS[position] = getKeeper(dice);
+			return position + 1;
+		}
+		for(int n = 0; n <= counters[face]; n++){
+			position = addSubKeepers(position, counters, dice, face + 1);
+			dice = PackedState.addDice(dice, face);
+		}
+		return position;
+	}
+
+	private static int getKey(int dice){
+
+		int key = 0;
+		for(int i = 0; i < NUM_OF_FACES; i++)
+			key = key * NUM_OF_FACES + PackedState.getCounter(dice, i);
+		return key;
+	}
+
+	/**
+	 * this method returns the index of the keeper with the specified dice (see PackedState)
+	 */
+	public static int getKeeper(int dice){
+		return KEEPER_BY_KEY[getKey(dice)];
+	}
+
+	/**
+	 * this method returns the dice of a keeper (see PackedState)
+	 */
+	public static int getKeeperDice(int keeper){
+		return KEEPER_DICE[keeper];
+	}
+
+	/**
+	 * this method calculates the expected values of all dice decisions for one turn, starting in the specified state.
+	 * The states that can follow the turn must already be calculated.
+	 *
+	 * @param: the filled fields (see PackedState.getFilledFields()), the sum of the upper section (capped at 63),
+	 * 			true if a yatzy was scored in the yatzy field
+	 * @return: the expected score of the rest of the game (this turn included)
+	 */
+	public double evaluate(int filledFields, int upperSum, boolean yatzyScored){
+
+		this.filledFields = filledFields;
+		this.upperSum = upperSum;
+		this.yatzyScored = yatzyScored;
+		prepareNextValues();
+
+		// after the 3rd roll: the best field for each combination
+		for(int c = 0; c < ScoringTable.NUM_OF_COMBINATIONS; c++)
+			combinationValues[MAX_ROLLS - 1][c] = selectBestField(c);
+		// before the 3rd, 2nd and 1st roll: the best keeper for each combination
+		for(int roll = MAX_ROLLS - 1; roll >= 0; roll--){
+			calculateKeeperValues(combinationValues[roll], keeperValues[roll]);
+			if(roll > 0)
+				for(int c = 0; c < ScoringTable.NUM_OF_COMBINATIONS; c++)
+					combinationValues[roll - 1][c] = keeperValues[roll][getBestKeeperIndex(roll, c)];
+		}
+		return keeperValues[0][EMPTY_KEEPER];
+	}
+
+	/**
+	 * this method looks up the expected scores of the states that can follow this turn, so that they don't need to be
+	 * looked up again for every combination
+	 */
+	private void prepareNextValues(){
+
+		int emptyFields = ~filledFields & ScoringTable.SELECTABLE_FIELDS;
+		for(int field = 0; field < NUM_OF_FIELDS - 2; field++){
+			if((emptyFields & (1 << field)) == 0)
+				continue;
+			int next = filledFields | (1 << field);
+			crossOutValues[field] = stateValues.getValue(StrategySolver.getStateIndex(next, upperSum, yatzyScored));
+			if(field < UPPER_BONUS_FIELD){
+				for(int n = 0; n <= NUM_OF_DICE; n++){
+					int points = n * (field + 1);
+					int newUpperSum = upperSum + points;
+					if(upperSum < UPPER_BONUS_THRESHOLD && newUpperSum >= UPPER_BONUS_THRESHOLD)
+						points += BONUS_UPPERSECTION;
+					upperFieldValues[field * (NUM_OF_DICE + 1) + n] = points + stateValues.getValue(StrategySolver.getStateIndex(next, newUpperSum, yatzyScored));
+				}
+			}else{
+				nextValues[field] = stateValues.getValue(StrategySolver.getStateIndex(next, upperSum, yatzyScored || field == YATZY_FIELD));
+			}
+		}
+	}
+
+	/**
+	 * this method finds the best field to select (or to cross out if there are no valid options) for a combination after the last roll
+	 *
+	 * @return: the expected score of the rest of the game
+	 */
+	private double selectBestField(int combination){
+
+		int emptyFields = ~filledFields & ScoringTable.SELECTABLE_FIELDS;
+		int validOptions = ScoringTable.getValidOptionsMask(combination, emptyFields, yatzyScored);
+		int bonus = (validOptions & ScoringTable.YATZY_BONUS_BIT) != 0 ? ADDITIONAL_YATZY_BONUS : 0;
+		int options = validOptions & ScoringTable.SELECTABLE_FIELDS;
+		boolean noOptions = options == 0;
+
+		double best = Double.NEGATIVE_INFINITY;
+		if(noOptions){
+			options = emptyFields;		// no valid options: one of the empty fields must be crossed out
+			for(; options != 0; options &= options - 1){
+				int field = Integer.numberOfTrailingZeros(options);
+				if(crossOutValues[field] > best){
+					best = crossOutValues[field];
+					bestFields[combination] = field;
+				}
+			}
+		}else{
+			for(; options != 0; options &= options - 1){
+				int field = Integer.numberOfTrailingZeros(options);
+				double value = field < UPPER_BONUS_FIELD
+						? upperFieldValues[field * (NUM_OF_DICE + 1) + ScoringTable.getCounter(combination, field)]
+						: ScoringTable.getScore(combination, field) + nextValues[field];
+				if(value > best){
+					best = value;
+					bestFields[combination] = field;
+				}
+			}
+		}
+		crossOut[combination] = noOptions;
+		return best + bonus;
+	}
+
+	/**
+	 * this method calculates the expected values of all keepers from the expected values of the combinations
+	 */
+	private static void calculateKeeperValues(double[] combinationValues, double[] keeperValues){
+
+		for(int k = 0; k < NUM_OF_KEEPERS; k++){
+			if(KEEPER_COMBINATIONS[k] != -1){
+				keeperValues[k] = combinationValues[KEEPER_COMBINATIONS[k]];
+			}else{
+				double sum = 0;
+				for(int f = 0; f < NUM_OF_FACES; f++)
+					sum += keeperValues[KEEPER_CHILDREN[k * NUM_OF_FACES + f]];
+				keeperValues[k] = sum / NUM_OF_FACES;
+			}
+		}
+	}
+
+	/**
+	 * this method returns the keeper with the highest expected value, before the specified roll (1 or 2)
+	 */
+	private int getBestKeeperIndex(int roll, int combination){
+
+		double[] values = keeperValues[roll];
+		int best = COMBINATION_KEEPERS[combination];		// keep all the dice (= don't roll again)
+		for(int i = SUB_KEEPERS_START[combination]; i < SUB_KEEPERS_START[combination + 1]; i++)
+			if(values[SUB_KEEPERS[i]] > values[best])
+				best = SUB_KEEPERS[i];
+		return best;
+	}
+
+	/**
+	 * this method decides which dice to keep after a roll (rollsDone: 1 or 2). The last call of evaluate() must have been for the current state.
+	 *
+	 * @return: the dice to keep (see PackedState). If all dice are kept, the player should select a field.
+	 */
+	public int getBestKeeper(int rollsDone, int combination){
+		return KEEPER_DICE[getBestKeeperIndex(rollsDone, combination)];
+	}
+
+	/**
+	 * this method returns the best field after the last roll. The last call of evaluate() must have been for the current state.
+	 * If isCrossOut() returns true for the combination, the field must be crossed out.
+	 */
+	public int getBestField(int combination){
+		return bestFields[combination];
+	}
+
+	public boolean isCrossOut(int combination){
+		return crossOut[combination];
+	}
+}
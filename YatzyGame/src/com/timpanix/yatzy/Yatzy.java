@@ -1,6 +1,7 @@
 package com.timpanix.yatzy;
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -8,57 +9,61 @@ import java.util.Date;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Locale;
-import java.util.Random;
-import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class Yatzy implements Pausable{
 
-	// static final variables to display the faces of the dice
-	private static final String DICE_NUMS = "     1           2           3           4           5"; 
-	private static final String TOPLINE   = " _________   _________   _________   _________   _________";
-	private static final String BOTTOMLINE = "|_________| |_________| |_________| |_________| |_________|";
-	private static final String TWO_DOTS =      " o   o ";
-	private static final String ONE_DOT_MIDDLE = "   o   ";
-	private static final String ONE_DOT_LEFT =   " o     ";
-	private static final String ONE_DOT_RIGHT =  "     o ";
-	private static final String NO_DOT =        "       ";
-	// the following three static final String arrays represent the 6 possible faces of the dice:
-	                                            // 1			  2               3               4         5               6
-	private static final String[] FACES_TOP    = {NO_DOT,  	      ONE_DOT_MIDDLE, ONE_DOT_LEFT,   TWO_DOTS, TWO_DOTS,       TWO_DOTS};
-	private static final String[] FACES_MIDDLE = {ONE_DOT_MIDDLE, NO_DOT,         ONE_DOT_MIDDLE, NO_DOT,   ONE_DOT_MIDDLE, TWO_DOTS};
-	private static final String[] FACES_BOTTOM = {NO_DOT,         ONE_DOT_MIDDLE, ONE_DOT_RIGHT,  TWO_DOTS, TWO_DOTS,       TWO_DOTS};
-	
-	private static final int NUM_OF_DICE = 5;
-	private static final int NUM_OF_FACES = 6;
+	// the rules constants are defined in the YatzyEngine class
+	private static final int NUM_OF_DICE = YatzyEngine.NUM_OF_DICE;
+	private static final int NUM_OF_FACES = YatzyEngine.NUM_OF_FACES;
 	private static final int NAME_MAXLENGTH = 10;
-	private static final int NUM_OF_FIELDS = 16;	// number of fields on the yatzy card
-	private static final int NUM_OF_ROUNDS = 13;
-	private static final int MAX_ROLLS = 3;
-	private static final int BONUS_UPPERSECTION = 35;
-	private static final int FULL_HOUSE_SCORE = 25;
-	private static final int SMALL_STRAIGHT_SCORE = 30;
-	private static final int LARGE_STRAIGHT_SCORE = 40;
-	private static final int YATZY_SCORE = 50;
-	private static final int ADDITIONAL_YATZY_BONUS = 100;
+	private static final int NUM_OF_FIELDS = YatzyEngine.NUM_OF_FIELDS;	// number of fields on the yatzy card
+	private static final int NUM_OF_ROUNDS = YatzyEngine.NUM_OF_ROUNDS;
+	private static final int MAX_ROLLS = YatzyEngine.MAX_ROLLS;
 	private static final String[] FIELD_NAMES = {"Aces", "Twos", "Threes", "Fours", "Fives", "Sixes", "    BONUS", "3 of a kind", "4 of a kind", "Full House", 
 		"Small Straight", "Large Straight", "YATZY", "Chance", " Y+ BONUS", "T O T A L S"};
 	private static final String[] ABBREVIATIONS = {"1", "2", "3", "4", "5", "6", "", "3k", "4k", "fh", "ss", "ls", "y", "c"};
-	// players are static, so some of the information (names) can be retained
-	private static Player[] players;
-	private static int numOfPlayers = 0;
+	// the highscores of all games of the program are recorded in the same log and kept in memory
+	private static final HighscoreLog HIGHSCORE_LOG = new HighscoreLog(Paths.get(HighscoreLog.DEFAULT_FILE_NAME));
+	private static final Leaderboard LEADERBOARD = new Leaderboard(HIGHSCORE_LOG);
+	private static volatile boolean oldHighscoresChecked = false;	// true after the highscores of an older version were looked for
+	private static SaveStore saveStore;		// the saved games of all games of the program (null until it is needed)
+	private static long saveCommitIntervalMillis = SaveStore.DEFAULT_COMMIT_INTERVAL_MILLIS;	// see setSaveCommitInterval()
+	private static RulesIndex rules;		// the rules text of all games of the program (null until it is needed)
+	// the saved games and highscores are written on the thread of this executor, so the game doesn't wait for the disk
+	private static final PersistenceExecutor PERSISTENCE = PersistenceExecutor.getShared();
 	private int[] currentDiceValues;
 	private int[] currentDiceValueCounters;	// this is used to count the identical dice faces (eg. currentDiceValueCounters[0] = 2 means that 2 dice were rolled with face 1)
 	private boolean[] diceRollStatus;	// this will be used to record which dice will be rolled
 	private boolean[] validOptions;		// this will be used to record the valid options for a player after the dice were rolled
+	private int resumedRolls;			// the rolls of a turn which was interrupted (see resumeTurn())
+	private final GameSession session;		// the players and the dice of this game (see GameSession)
+	private final ScreenRenderer screen;	// all the text of this game is written through the renderer of the session (see ScreenRenderer)
+	private final List<GameListener> gameListeners = new ArrayList<>();	// eg. the game journal
 	
 	
-	// constructor
+	// constructor: a game of a new session, the dice are rolled with a random seed
 	public Yatzy(){
+		this(new GameSession());
+	}
+	
+	// constructor: a game of a new session, the dice are rolled with the specified source (eg. with a known seed to reproduce a game)
+	public Yatzy(DiceSource diceSource){
+		this(new GameSession(diceSource));
+	}
+	
+	// constructor: the next game of a session (the players are retained)
+	public Yatzy(GameSession session){
 		
+		this.session = session;
+		this.screen = session.getScreen();
 		currentDiceValues = new int[getNumOfDice()];
 		diceRollStatus = new boolean[getNumOfDice()];
 		currentDiceValueCounters = new int[getNumOfFaces()];
 		validOptions = new boolean[getNumOfFields()];
+		if(session.getSpectatorFeed() != null)
+			addGameListener(session.getSpectatorFeed());	// the spectators follow every game of the session
 	}
 	
 	
@@ -75,21 +80,7 @@ public class Yatzy implements Pausable{
 	 */
 	public void displayDice(int[] diceValues){
 
-		// this labels the dice from 1 to 5
-		System.out.println(DICE_NUMS);
-		// this prints the top line of the five dice
-		System.out.println(TOPLINE);
-		// this prints the top third of the face (eg. 2 dots if a 6 was rolled) of all 5 dice
-		System.out.println("| " + FACES_TOP[diceValues[0]] + " | | " + FACES_TOP[diceValues[1]] + " | | " + FACES_TOP[diceValues[2]] + " | | "
-						        + FACES_TOP[diceValues[3]] + " | | " + FACES_TOP[diceValues[4]] + " |");
-		// this prints the middle third of the face (eg. 1 dot if a 5 was rolled) of all 5 dice
-		System.out.println("| " + FACES_MIDDLE[diceValues[0]] + " | | " + FACES_MIDDLE[diceValues[1]] + " | | " + FACES_MIDDLE[diceValues[2]] + " | | "
-		                        + FACES_MIDDLE[diceValues[3]] + " | | " + FACES_MIDDLE[diceValues[4]] + " |");
-		// this prints the bottom third of the face (eg. 1 dot in the right if a 3 was rolled) of all 5 dice
-		System.out.println("| " + FACES_BOTTOM[diceValues[0]] + " | | " + FACES_BOTTOM[diceValues[1]] + " | | " + FACES_BOTTOM[diceValues[2]] + " | | "
-								+ FACES_BOTTOM[diceValues[3]] + " | | " + FACES_BOTTOM[diceValues[4]] + " |");
-		// this prints the bottom line of the five dice
-		System.out.println(BOTTOMLINE);
+		screen.dice(diceValues);
 	}
 	
 	/**
@@ -100,7 +91,7 @@ public class Yatzy implements Pausable{
 	 * 
 	 * @return: true if no options are available, false if there ARE still options available
 	 */
-	public boolean rollDice(Scanner sc, int playerIndex) {
+	public boolean rollDice(InputSource in, int playerIndex) {
 		
 		boolean[] rollAll = {true, true, true, true, true};
 		int flag = 0;
@@ -109,40 +100,51 @@ public class Yatzy implements Pausable{
 		boolean noOptionsAvailable = true;
 		
 		
-		// 1st roll: roll all dice
-		rollDiceOnce(rollAll);
-		rollCounter++;		// increment counter
+		if(resumedRolls > 0){	// an interrupted turn: it is continued with the dice of its last roll
+			rollCounter = resumedRolls;
+			resumedRolls = 0;
+			YatzyEngine.countDice(getCurrentDiceValues(), getCurrentDiceValueCounters());
+			displayDice(getCurrentDiceValues());
+			fireRoll(playerIndex, rollCounter, rollAll);	// so the listeners know the dice of the turn
+		}else{
+			// 1st roll: roll all dice
+			rollDiceOnce(rollAll);
+			rollCounter++;		// increment counter
+			fireRoll(playerIndex, rollCounter, rollAll);
+		}
 		setValidOptions(playerIndex);
 		
 		noOptionsAvailable = displayOptionsForConsideration();	// display current valid options (eg. small straight, 3 of a kind)
 		
 		while(rollCounter < getMaxRolls()){	// loops max. 2 times
 			// ask the player if he/she wants to roll again
-			switch (wantToRollAgain(sc)) {
+			switch (wantToRollAgain(in)) {
 			case 1:		// player decides NOT to roll again
 				rollCounter = 3;
 				break;	
 			case 2:			// player decides to roll ALL dice again
 				rollDiceOnce(rollAll);	// roll the dice
 				rollCounter++;
+				fireRoll(playerIndex, rollCounter, rollAll);
 				setValidOptions(playerIndex);	// establish all the valid options and
 				noOptionsAvailable = displayOptionsForConsideration();	// display them
 				break;
 			case 3:			// player decides to roll SOME dice again
 				validDiceInput = false;
 				while(!validDiceInput){	// loop until valid input
-					flag = rollWhichDiceAgain(sc);	// roll the specified dice again
+					flag = rollWhichDiceAgain(in);	// roll the specified dice again
 					if(flag == 1)	// valid input	// if the dice specified were valid,
 						validDiceInput = true;		// set the boolean flag to true to break the while loop
 					else if(flag == 0 || flag > 5){	// no input, invalid input (eg. a letter) or too much input was provided
-						System.out.println("Invalid input. You asked for " + flag + " dice to be rolled again.");
+						screen.line("Invalid input. You asked for " + flag + " dice to be rolled again.");
 					}
 					else if(flag == -1)				// an int was input but not within the range specified (eg. dice no. 7)
-						System.out.println("Invalid input. There are 5 dice to chose from.");
+						screen.line("Invalid input. There are 5 dice to chose from.");
 				}
 				// roll dice again
 				rollDiceOnce(getDiceStatus());
 				rollCounter++;
+				fireRoll(playerIndex, rollCounter, getDiceStatus());
 				setValidOptions(playerIndex);
 				noOptionsAvailable = displayOptionsForConsideration();
 				break;
@@ -153,37 +155,30 @@ public class Yatzy implements Pausable{
 	
 	
 	/**
-	 * this method organises one roll of all 5 dice. It also records how many times each face was rolled. 
-	 * 1. all face counter are set to 0.
-	 * 2. all the dice are rolled by calling the rollOneDice() method and the values are stored in the currentDiceValues.
-	 * 3. the face counters are calculated
-	 * 4. the dice are displayed by calling the displayDice() method
+	 * this method continues a turn which was interrupted (see GameJournal): the next call of rollDice() doesn't roll the dice,
+	 * but starts with the specified dice after the specified number of rolls
 	 */
-	public void rollDiceOnce(boolean[] rollTheseDice){
-		
-		// reset Counters to 0
-		for(int i = 0; i < getNumOfFaces(); i++)
-			setCurrentDiceValueCounter(i, 0);
-		
-		// roll the dice
-		for(int i = 0; i < getNumOfDice(); i++)
-			if(rollTheseDice[i])		// if the player decided to roll this dice
-				setCurrentDiceValue(i, rollOneDice()); // roll dice and store value in currentDiceValues (otherwise the old value for the dice will be kept)	
-		
-		// calculate updated counters:
-		for(int i = 0; i < getNumOfDice(); i++)
-			increaseCurrentDiceValueCounter(getCurrentDiceValues()[i]);	// increase the counter (eg. if a 3 was rolled : currentDiceValuesCounter[3]++  )	
+	public void resumeTurn(int[] diceValues, int rollsMade){
 		
-		// display dice
-		displayDice(getCurrentDiceValues());
+		System.arraycopy(diceValues, 0, getCurrentDiceValues(), 0, NUM_OF_DICE);
+		resumedRolls = rollsMade;
 	}
 	
 	
 	/**
-	 * this simple method increments one element of the currentDiceValueCounters array. The element is specified by the parameter (index)
+	 * this method organises one roll of all 5 dice. It also records how many times each face was rolled. 
+	 * 1. the dice are rolled by the YatzyEngine and the values are stored in the currentDiceValues
+	 *    (the dice which are not rolled again keep their old values).
+	 * 2. the face counters are calculated by the YatzyEngine
+	 * 3. the dice are displayed by calling the displayDice() method
 	 */
-	private void increaseCurrentDiceValueCounter(int index) {
-		this.currentDiceValueCounters[index]++;
+	public void rollDiceOnce(boolean[] rollTheseDice){
+		
+		// roll the dice and calculate updated counters
+		YatzyEngine.rollDice(getCurrentDiceValues(), rollTheseDice, getCurrentDiceValueCounters(), getDiceSource());
+		
+		// display dice
+		displayDice(getCurrentDiceValues());
 	}
 	
 	
@@ -192,35 +187,32 @@ public class Yatzy implements Pausable{
 	 * (will be used to represent dice values 1 - 6)
 	 */
 	public int rollOneDice(){
-		
-		Random r = new Random();
-		return (r.nextInt(6));	// r.next(6) generates pseudo random values from 0 - 5
+		return getDiceSource().nextFace();
 	}
 	
 	/**
 	 * this method asks the player if he/she wants to roll the dice again and returns the user input.
 	 */
-	public int wantToRollAgain(Scanner sc){
+	public int wantToRollAgain(InputSource in){
 		
 		int option = -1;
 		boolean isOk = false;
-		System.out.println("\nWould you like to select one of your current options?");
-		System.out.println("  Yes ................................. 1");
-		System.out.println("  No, roll ALL dice again, please. .... 2");
-		System.out.println("  No, roll SOME dice again, please. ... 3");
-		System.out.print("Your selection: ");
+		screen.line("\nWould you like to select one of your current options?");
+		screen.line("  Yes ................................. 1");
+		screen.line("  No, roll ALL dice again, please. .... 2");
+		screen.line("  No, roll SOME dice again, please. ... 3");
+		screen.text("Your selection: ");
 
 		while(!isOk){
 			try{
-				option = sc.nextInt();
+				option = screen.readInt(in, InputSource.ROLL_AGAIN);
 				while(option < 1 || option > 3){
-					System.out.print("Invalid input. Please try again: ");
-					option = sc.nextInt();
+					screen.text("Invalid input. Please try again: ");
+					option = screen.readInt(in, InputSource.ROLL_AGAIN);
 				}
 				isOk = true;
 			}catch(InputMismatchException e){
-				System.out.print("Invalid input. Please input 1, 2 or 3: ");
-				sc.next();
+				screen.text("Invalid input. Please input 1, 2 or 3: ");	// the invalid input was skipped
 			}
 		}
 		displayLine();
@@ -233,7 +225,7 @@ public class Yatzy implements Pausable{
 	 * 
 	 * @return: 1 if valid input was provided, the length of the user input if invalid input was provided
 	 */
-	public int rollWhichDiceAgain(Scanner sc){
+	public int rollWhichDiceAgain(InputSource in){
 		
 		int temp = 0;
 		int counter = 0;
@@ -245,13 +237,13 @@ public class Yatzy implements Pausable{
 			//diceRollStatus[i] = false;
 		}
 		
-		System.out.println("Please select the dice you would like to roll again.");
-		System.out.println("(Format: no spaces, please!) eg. 1,2,3 or 123 or 1-2-3 etc.");
-		System.out.print("Your selection: ");
+		screen.line("Please select the dice you would like to roll again.");
+		screen.line("(Format: no spaces, please!) eg. 1,2,3 or 123 or 1-2-3 etc.");
+		screen.text("Your selection: ");
 		
 		// read in the numbers of the dice that the player wants to roll again
-		input = sc.next();
-		System.out.println("input: " + input);
+		input = screen.read(in, InputSource.DICE_TO_ROLL);
+		screen.line("input: " + input);
 		String[] numbers = {"1", "2", "3", "4", "5"};
 		for(int i = 0; i < input.length(); i++){
 			for(int j  = 0; j < numbers.length; j++){
@@ -276,12 +268,7 @@ public class Yatzy implements Pausable{
 	 * this method calculates the sum of all current dice faces
 	 */
 	public int sumOfAllDiceValues(){
-		
-		int sum = 0;
-		for(int i = 0; i < getCurrentDiceValues().length; i++){
-			sum += getCurrentDiceValues()[i] + 1;	// + 1 because the dice values are stored as 0,1,2,3,4,5
-		}
-		return sum;
+		return YatzyEngine.sumOfAllDiceValues(getCurrentDiceValueCounters());
 	}
 	
 	
@@ -297,14 +284,14 @@ public class Yatzy implements Pausable{
 	public void displayTitle(){
 		
 		displayDoubleLine();
-		System.out.println(" _________                _______  _____             _________ ");
-		System.out.println("|  o   o  |   \\    /  /\\     |         /  \\    /    |  o      |");
-		System.out.println("|  o   o  |    \\  /  /  \\    |      __/_   \\  /     |    o    |");
-		System.out.println("|  o   o  |     \\/  /____\\   |      /       \\/      |      o  |");
-		System.out.println("|_________|     |  /      \\  |     /____     |      |_________|\n");	
-		System.out.println("\t       Created by Daniel Bertschi, 2013");
+		screen.line(" _________                _______  _____             _________ ");
+		screen.line("|  o   o  |   \\    /  /\\     |         /  \\    /    |  o      |");
+		screen.line("|  o   o  |    \\  /  /  \\    |      __/_   \\  /     |    o    |");
+		screen.line("|  o   o  |     \\/  /____\\   |      /       \\/      |      o  |");
+		screen.line("|_________|     |  /      \\  |     /____     |      |_________|\n");	
+		screen.line("\t       Created by Daniel Bertschi, 2013");
 		displayDoubleLine();
-		System.out.println("");
+		screen.line("");
 
 	}
 	
@@ -313,49 +300,29 @@ public class Yatzy implements Pausable{
 	 * this method displays a double separating line
 	 */
 	public void displayDoubleLine() {
-		System.out.println("===============================================================");
+		screen.line("===============================================================");
 	}
 	
 	/**
 	 * this method displays a single separating line
 	 */
 	public void displayLine() {
-		System.out.println("- - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -");
+		screen.line("- - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -");
 	}
 	
-	/**
-	 * this method displays a double line on the game card (the length depends on the amount of players involved)
-	 */
-	private void displayDoubleDivider() {
-		System.out.print("================");
-		for(int i = 0; i < getNumOfPlayers(); i++)
-			System.out.print("================");
-		System.out.println("");
-		
-	}
-
-	/**
-	 * this method displays a single line on the game card (the length depends on the amount of players involved)
-	 */
-	private void displayDivider() {
-		System.out.print("----------------");
-		for(int i = 0; i < getNumOfPlayers(); i++)
-			System.out.print("----------------");
-		System.out.println("");
-		
-	}
-	
-	
 	/**
 	 * this method displays a simple version of a progress bar (used during saving and restoring of a game)
 	 */
 	public void displayProgressBar(){
 		try {
 			for(int i = 0; i < 20; i++){
-				Thread.sleep(50);		// pause for 50 ms
-				System.out.print("..");	// and display 2 dots
+				screen.text("..");	// display 2 dots
+				if(session.isInteractive()){	// a script or a program doesn't wait
+					screen.flush();			// the dots are displayed one after the other
+					Thread.sleep(50);		// pause for 50 ms
+				}
 			}
-			System.out.println("");
+			screen.line("");
 		} catch (InterruptedException ie) {
 				ie.printStackTrace();
 		}
@@ -400,42 +367,22 @@ public class Yatzy implements Pausable{
 		return NAME_MAXLENGTH;
 	}
 	
-	private static int getBonusUpperSection(){
-		return BONUS_UPPERSECTION;
-	}
-	
-	private static int getFullHouseScore(){
-		return FULL_HOUSE_SCORE;
-	}
-	
-	private static int getSmallStraightScore(){
-		return SMALL_STRAIGHT_SCORE;
-	}
-	
-	private static int getLargeStraightScore(){
-		return LARGE_STRAIGHT_SCORE;
-	}
-	
-	private static int getYatzyScore(){
-		return YATZY_SCORE;
-	}
-	
-	private static int getAdditionalYatzyBonus(){
-		return ADDITIONAL_YATZY_BONUS;
-	}
-	
 	
 	/*-------------------------------------------------------------------------------------------------------
 	 * 						SIMPLE GETTER AND SETTER METHODS FOR STATIC AND INSTANCE VARIABLES
 	 * ------------------------------------------------------------------------------------------------------
 	 */
 	
-	public static int getNumOfPlayers(){
-		return numOfPlayers;
+	public int getNumOfPlayers(){
+		return session.getNumOfPlayers();
+	}
+	
+	public Player[] getPlayers(){
+		return session.getPlayers();
 	}
 	
-	public static Player[] getPlayers(){
-		return players;
+	public GameSession getSession(){
+		return this.session;
 	}
 	
 	public boolean[] getDiceStatus(){
@@ -453,17 +400,13 @@ public class Yatzy implements Pausable{
 		return this.currentDiceValueCounters;
 	}
 	
-	private void setCurrentDiceValueCounter(int index, int value) {
-		this.currentDiceValueCounters[index] = value;
+	public DiceSource getDiceSource(){
+		return session.getDiceSource();
 	}
-
+	
 	public void setDiceRollStatus(int diceIndex, boolean value){
 		this.diceRollStatus[diceIndex] = value;
 	}
-	
-	private void setCurrentDiceValue(int index, int value){
-		this.currentDiceValues[index] = value;
-	}
 
 
 	
@@ -477,7 +420,7 @@ public class Yatzy implements Pausable{
 	 * this method asks for the player's names and checks that they don't exceed the allowed max length
 	 * and that they are unique
 	 */
-	public void setPlayers(Scanner sc) {
+	public void setPlayers(InputSource in) {
 		
 		boolean[] playersAreOk = new boolean[getNumOfPlayers()];
 		boolean isDuplicateName;
@@ -485,10 +428,10 @@ public class Yatzy implements Pausable{
 		
 		for(int i = 0; i < getNumOfPlayers(); i++){
 			displayNumber = i + 1;
-			System.out.print("Name of Player " + displayNumber + ": ");
+			screen.text("Name of Player " + displayNumber + ": ");
 			while(!playersAreOk[i]){
 				isDuplicateName = false;
-				String name = sc.next();		// get input from the player
+				String name = screen.read(in, InputSource.PLAYER_NAME);		// get input from the player
 				if(name.length() <= getNameMaxLength()){		// check that the input is not longer than 10 chars
 					// check that the input is unique
 					for(int j = 0; j < getNumOfPlayers(); j++){
@@ -496,13 +439,13 @@ public class Yatzy implements Pausable{
 							isDuplicateName = true;		// set boolean value to true
 					}
 					if(isDuplicateName)
-						System.out.print("This name was chosen already, please chose a unique name: ");
+						screen.text("This name was chosen already, please chose a unique name: ");
 					else{	
 						getPlayers()[i].setName(name);
 						playersAreOk[i] = true;
 					}
 				}else
-					System.out.print("Name is too long (max. 10 letters). Please use a shorter name: ");
+					screen.text("Name is too long (max. 10 letters). Please use a shorter name: ");
 			}
 		}
 	}
@@ -511,30 +454,31 @@ public class Yatzy implements Pausable{
 	 * this method asks for the amount of players involved in the game. It checks that the number of players is in the allowed
 	 * range (1-4 players) and that an actual number is input by the user/player
 	 */
-	public void setNumOfPlayers(Scanner sc) {
+	public void setNumOfPlayers(InputSource in) {
 
 		boolean isOk = false;
 		int temp = 0;
+		int numOfPlayers = 0;
 		
-		System.out.print("How many players are involved in this game? ");
+		screen.text("How many players are involved in this game? ");
 		while(!isOk){
 			try{
-				temp = sc.nextInt();	// try to store the input value in temp
+				temp = screen.readInt(in, InputSource.NUM_OF_PLAYERS);	// try to store the input value in temp
 				if(temp > 0 && temp < 5){	// check that it is a value from 1 - 4
 					numOfPlayers = temp;	// if yes: store it in the proper variable
 					isOk = true;			// and set the flag to true
 				}else			// if it was an int but not between 1 and 4, print out error message
-					System.out.print("Invalid input. Number of players allowed: 1 - 4. Please try again: ");
+					screen.text("Invalid input. Number of players allowed: 1 - 4. Please try again: ");
 			}catch(InputMismatchException e){	// if it wasn't a number: print out error message
-				System.out.print("Invalid input. Please try again: ");
-				sc.next();
+				screen.text("Invalid input. Please try again: ");	// the invalid input was skipped
 			}
 		}
 		
 		// instantiate array of class Player
-		players = new Player[getNumOfPlayers()];
-		for(int i = 0; i < getNumOfPlayers(); i++)
+		Player[] players = new Player[numOfPlayers];
+		for(int i = 0; i < numOfPlayers; i++)
 			players[i] = new Player();	///// IMPORTANT: initialise every single element of the array!!! ///// 
+		session.setPlayers(players);
 	}
 	
 	/**
@@ -545,9 +489,7 @@ public class Yatzy implements Pausable{
 	 */
 	public int selectRandomPlayer() {
 		
-		Random r = new Random();
-		int i = r.nextInt(getNumOfPlayers());
-		return i;
+		return getDiceSource().nextInt(getNumOfPlayers());
 	}
 	
 	
@@ -557,18 +499,18 @@ public class Yatzy implements Pausable{
 	 * 
 	 * @return: the index of the starting player (int)
 	 */
-	public int whoStartsTheGame(Scanner sc) {
+	public int whoStartsTheGame(InputSource in) {
 		
 		String starter = new String();
 		int starterIndex = -1;
 		displayLine();
-		System.out.println("Who makes the first move?");
-		System.out.println("Please type \n - the starting player's name OR\n - select \"R\" for random selection");
+		screen.line("Who makes the first move?");
+		screen.line("Please type \n - the starting player's name OR\n - select \"R\" for random selection");
 		
 		boolean selectionOk = false;
 		while(!selectionOk){
-			System.out.print("Your selection: ");
-			starter = sc.next();
+			screen.text("Your selection: ");
+			starter = screen.read(in, InputSource.FIRST_PLAYER);
 			if(starter.toUpperCase().equals("R")){		// random selection was chosen
 				starterIndex = selectRandomPlayer();
 				selectionOk = true;
@@ -580,14 +522,14 @@ public class Yatzy implements Pausable{
 						break;	// break loop immediately
 					}
 					if((i == getNumOfPlayers() - 1) && !selectionOk){// invalid input
-						System.out.println("This is not a valid selection. Please try again.");
+						screen.line("This is not a valid selection. Please try again.");
 					}
 				}
 			}
 		}
 
 		displayDoubleLine();
-		System.out.println(getPlayers()[starterIndex].getName() + " starts the game."); 
+		screen.line(getPlayers()[starterIndex].getName() + " starts the game."); 
 		
 		return starterIndex;
 	}
@@ -596,10 +538,7 @@ public class Yatzy implements Pausable{
 	 * this method returns the next player of the game
 	 */
 	public int getNextPlayer(int currentPlayerIndex) {
-		
-		// if the currentPlayer is the last one in the array, the next player will be the first one in the array (return 0)
-		// otherwise the next player is the one after the current player
-		return (currentPlayerIndex == getNumOfPlayers() - 1) ? 0 : currentPlayerIndex + 1;
+		return YatzyEngine.getNextPlayer(currentPlayerIndex, getNumOfPlayers());
 	}
 	
 	
@@ -612,93 +551,49 @@ public class Yatzy implements Pausable{
 	 * this method is in charge of the whole process involved in selecting a field from the currently valid options 
 	 * (depending on the currently rolled dice).
 	 * 1. it checks that the user inputs a valid option (a field abbreviation displayed for selection).
-	 * 2. it defines for every field on the card, how the points are calculated.
-	 * 3. it updates the player's game card accordingly.
+	 * 2. it lets the YatzyEngine calculate the points and update the player's game card accordingly.
 	 * 
-	 * Additional checks:
+	 * Additional checks (done by the YatzyEngine):
 	 * - every time a field from the upper section is selection, it checks if the upper section bonus applies
 	 * 	 (if the sum of all upper section scores is at least 63)
 	 * - if an additional yatzy bonus applies, it is also updated on the player's card
 	 */
-	public void makeSelection(Scanner sc, int playerIndex) {
+	public void makeSelection(InputSource in, int playerIndex) {
 		
-		boolean isOk = false;
-		int points = 0;
+		int selectedField = -1;
 		
 		displayOptionsForSelection();
-		System.out.print("Your selection: ");
-		String input = sc.next();
+		screen.text("Your selection: ");
+		String input = screen.read(in, InputSource.SELECT_FIELD);
 		
 		// make sure that the input represents a valid option
-		Outerloop: while(!isOk){
+		while(selectedField == -1){
 			for(int i = 0; i < getNumOfFields() - 2; i++){
 				// if the input is a correct abbreviation and was one of the abbreviations that were displayed (= a valid option)
 				if(input.equals(getAbbreviations()[i]) && getValidOptions()[i] == true){
-					isOk = true;
-					// register the selection and update the player's card
-					switch(i){
-					case 0:		// aces
-					case 1:		// twos
-					case 2:		// threes
-					case 3:		// fours
-					case 4:		// fives
-					case 5:		// sixes
-						// the following applies to all the above cases:
-									// value of face * number of dice with that face
-						points = getCurrentDiceValueCounters()[i] * (i + 1);  // eg. 4 dice were rolled with face 5 : 4 * 5 = 20 points
-						// update the player's gamecard
-						getPlayers()[playerIndex].updateGameCard(i, points);
-						// if the player hasn't won the bonus for the upper section yet, check again
-						if(getPlayers()[playerIndex].getGameCard(6) == -1)
-							checkForUpperBonus(playerIndex);
-						break;
-					case 7:		// player selected 3 of a kind
-					case 8:		// player selected 4 of a kind
-					case 13:	// player selected chance
-						getPlayers()[playerIndex].updateGameCard(i, sumOfAllDiceValues());	// this applies to 3 of a kind, 4 of a kind and chance
-						break;
-					case 9:		// player selected Full House
-						getPlayers()[playerIndex].updateGameCard(i, getFullHouseScore());
-						break;
-					case 10:		// player selected Small Straight
-						getPlayers()[playerIndex].updateGameCard(i, getSmallStraightScore());
-						break;
-					case 11:	// player selected Large Straight
-						getPlayers()[playerIndex].updateGameCard(i, getLargeStraightScore());
-						break;
-					case 12:	// player selected Yatzy
-						getPlayers()[playerIndex].updateGameCard(i, getYatzyScore());
-						break;	
-					}
-					break Outerloop;
+					selectedField = i;
+					break;
 				}
 			}
-			System.out.print("This is not an option. Please try again: ");
-			input = sc.next();
+			if(selectedField == -1){
+				screen.text("This is not an option. Please try again: ");
+				input = screen.read(in, InputSource.SELECT_FIELD);
+			}
 		}
-		// if an additional yatzy bonus applies, write it "to card"
-		if(getValidOptions()[14] == true)
-			getPlayers()[playerIndex].updateGameCard(14, getAdditionalYatzyBonus());
-		displayDoubleLine();
-	}
-	
-	/**
-	 * this method checks if the upper section bonus applies (if the sum of all upper section scores is at least 63).
-	 * If this is the case, a congratulatory message is displayed and the player's game card is updated accordingly.
-	 */
-	private void checkForUpperBonus(int playerIndex) {
 		
-		int sum = 0;
-		for(int i = 0; i < 6; i++)
-			sum += getPlayers()[playerIndex].getGameCard(i);
-		if(sum >= 63){
-			System.out.println("Congratulations! You just won a bonus of 35 points\n" +
+		Player player = getPlayers()[playerIndex];
+		boolean hadUpperBonus = player.getGameCard(6) != -1;
+		// register the selection and update the player's card
+		int points = YatzyEngine.makeSelection(player, selectedField, getCurrentDiceValueCounters(), getValidOptions());
+		for(GameListener listener : gameListeners)
+			listener.onSelection(playerIndex, selectedField, points);
+		// if the upper section bonus was won with this selection, display a congratulatory message
+		if(!hadUpperBonus && player.getGameCard(6) != -1)
+			screen.line("Congratulations! You just won a bonus of 35 points\n" +
 					"because you collected at least 63 points in the upper section");
-			getPlayers()[playerIndex].updateGameCard(6, getBonusUpperSection());
-		}
-		
+		displayDoubleLine();
 	}
-
+	
 	/**
 	 * this method displays the complete game card (summary of all fields for all the players).
 	 * Scores are shown as follows: 
@@ -733,30 +628,7 @@ public class Yatzy implements Pausable{
 	 */
 	public void displayCard(){
 		
-		// display the player's names
-		for(int i = 0; i < getNumOfPlayers(); i++)
-			System.out.print("\t\t" + getPlayers()[i].getName());
-		System.out.println("");	// new line
-		displayDivider();	// displays a dividing line
-		// display the field name (eg. "Aces")
-		for(int i = 0; i < getNumOfFields(); i++){
-			System.out.print(getFieldNames()[i]);	
-			if(i < 6 || i == 12 || i == 13)		// if the field name is short, 
-				System.out.print("\t");			// add an extra tab to get an even looking display
-			// display stored values ...
-			for(int j = 0; j < getNumOfPlayers(); j++){
-				if(getPlayers()[j].getGameCard()[i] != -1)	// ... if they're not equal to -1
-					System.out.print("\t" + getPlayers()[j].getGameCard()[i] + "\t");
-				else
-					System.out.print("\t-\t");				// otherwise just display a hyphon
-			}
-			System.out.println(""); // new line
-			if(i == 5 || i == 6 || i == 13 || i == 14)	// display a horizontal line before and after the Bonus fields
-				displayDivider();
-			if(i == 15)		// display double horizontal line after the totals field
-				displayDoubleDivider();
-			
-		}
+		screen.gameCard(getPlayers());
 	}
 	
 
@@ -764,27 +636,16 @@ public class Yatzy implements Pausable{
 	 * this method is called, when the player decides to select one of the currently available valid options.
 	 * If an additional yatzy bonus applies, a congratulatory message is displayed first.
 	 * Otherwise just all the currently available options and their abbreviations are displayed. 
+	 * The options are written together with the prompt of makeSelection() (see ScreenRenderer.read()).
 	 */
 	public void displayOptionsForSelection(){
 		
-		boolean additionalYatzyBonus = false;
-		
-		System.out.println("\nPlease make a selection: ");
-	
+		screen.line("\nPlease make a selection: ");
 		if(getValidOptions()[14] == true){
-			System.out.println("!! ADDITIONAL YATZY BONUS (100 Points) !!");
-			System.out.println("In order to get the bonus, you need to select one of the following options: ");
-			additionalYatzyBonus = true;
-		}
-		// loop through all fields except the 2 last ones	
-		for(int i = 0; i < getNumOfFields() - 2; i++){		// -2: don't need to check for additional yatzy bonus or totals
-			if(getValidOptions()[i] == true){
-				System.out.println(" " + getAbbreviations()[i] + "\t" + getFieldNames()[i]);
-				// if an additional yatzy bonus applies: if the appropriate upper section field has not been played yet, it MUST be selected now
-				if(additionalYatzyBonus && i < 6)	// as soon as the first valid field  in the upper section is found, break the loop
-					break;
-			}
+			screen.bonus("!! ADDITIONAL YATZY BONUS (100 Points) !!");
+			screen.line("In order to get the bonus, you need to select one of the following options: ");
 		}
+		screen.fieldList("SELECT", getOptionsToDisplay());
 	}
 	
 	
@@ -797,124 +658,40 @@ public class Yatzy implements Pausable{
 	 */
 	public boolean displayOptionsForConsideration(){
 	
-		boolean OptionsAvailable = false;
-		boolean firstToDisplay = true;
-		boolean additionalYatzyBonus = false;
-		System.out.println("\nYour current options: ");
+		screen.line("\nYour current options: ");
+		if(getValidOptions()[14] == true)
+			screen.bonus(" !! ----- ADDITIONAL YATZY BONUS (100 Points) ----- !!");
+		int options = getOptionsToDisplay();
+		screen.options(options);
+		return options != 0;
+	}
+	
+	/**
+	 * this method returns the valid options which are displayed to the player (bit i for field i).
+	 * If an additional yatzy bonus applies and the appropriate upper section field has not been played yet,
+	 * only this field is returned (it MUST be selected now).
+	 */
+	private int getOptionsToDisplay(){
 		
-		if(getValidOptions()[14] == true){
-			System.out.println(" !! ----- ADDITIONAL YATZY BONUS (100 Points) ----- !!");
-			additionalYatzyBonus = true;
-		}
+		int options = 0;
+		// loop through all fields except the 2 last ones	
 		for(int i = 0; i < getNumOfFields() - 2; i++){		// -2: don't need to check for additional yatzy bonus or totals
 			if(getValidOptions()[i] == true){
-				if(!firstToDisplay)		// print a comma before every field name except the first one
-					System.out.print(", ");
-				System.out.print(getFieldNames()[i]);	// print field name
-				OptionsAvailable = true;
-				firstToDisplay = false;
-				// if an additional yatzy bonus applies: if the appropriate upper section field has not been played yet, it MUST be selected now
-				if(additionalYatzyBonus && i < 6)	// as soon as the first valid field  in the upper section is found, break the loop
+				options |= 1 << i;
+				if(getValidOptions()[14] == true && i < 6)	// as soon as the first valid field in the upper section is found, break the loop
 					break;
 			}
 		}
-		System.out.println("");	// end with a new line
-		
-		if(!OptionsAvailable)	// display empty line if no options are available
-			System.out.println(" ---------- ");
-		
-		return OptionsAvailable;
+		return options;
 	}
 	
 	/**
-	 * this method contains all the logic in relation to what it means for a particular field to be a valid option.
-	 * It uses the currentDiceValueCounters to check for every field of the game whether it is a valid option for the currently rolled dice.
+	 * this method establishes the valid options of a player for the currently rolled dice.
+	 * The logic of what it means for a particular field to be a valid option is in the YatzyEngine.
 	 * If a field is found to be a valid option, the corresponding element of the boolean[] validOptions is set to true.
 	 */
 	public void setValidOptions(int playerIndex){
-		
-		boolean has2 = false;
-		boolean has3 = false;
-		boolean additionalYatzyBonus = false;
-		
-		// reset the valid options to false
-		for(int i = 0; i < getValidOptions().length; i++)
-			validOptions[i] = false;
-		// field indices: 0 "Aces", 1 "Twos", 2 "Threes", 3 "Fours", 4 "Fives", 5 "Sixes", 6 upper bonus, 7 "3 of a kind", 
-		//	8 "4 of a kind", 9 "Full House", 10 "Small Straight", 11 "Large Straight", 12 "YATZY", 13 "Chance", 14 yatzy bonus,
-		// 15 totals
-		
-		int straightCounter = 0;
-		
-		for(int i = 0; i < getNumOfFaces(); i++){
-			// check if Yatzy was rolled	
-			if(getCurrentDiceValueCounters()[i] == 5)
-				if(getEmptyFields(playerIndex)[12])		// if it wasn't played before	
-					validOptions[12] = true;		// Yatzy!
-				// special case: 
-				else if(getPlayers()[playerIndex].getGameCard()[12] != 0){	// if the yatzy field wasn't crossed out
-					validOptions[14] = true;		// additional yatzy bonus !! 
-					additionalYatzyBonus = true;
-				}	
-			// check for all fields of the upper section
-			if(getCurrentDiceValueCounters()[i] >= 1){	
-				if(getEmptyFields(playerIndex)[i]){	// if it hasn't been played yet
-					validOptions[i]= true;	// eg. if at least one "6" was rolled, then it is a valid "sixes"
-					if(additionalYatzyBonus)	// if an additional yatzy bonus applies (and the relevant upper section field is unused) ...
-						return;			// don't perform the rest of the tests (because this is the only valid or feasible option)
-				}
-				// pre-check for large/small straight:
-				straightCounter++;		// counter is incremented if subsequent faces are represented at least once
-			}
-			// check if 4 of a kind were rolled and if they weren't played before
-			if(getCurrentDiceValueCounters()[i] >= 4 && getEmptyFields(playerIndex)[8]){
-				validOptions[8] = true;		// 4 of a kind!
-			}
-			// check if 3 of a kind were rolled
-			if(getCurrentDiceValueCounters()[i] >= 3){
-				if(getEmptyFields(playerIndex)[7])	// check if it hasn't been played yet
-					validOptions[7] = true;		// 3 of a kind!
-					// 3 of a kind is also a condition for full house:
-					has3 = true;
-			}	
-			// check if 2 of a kind were rolled (2nd condition for full house)
-			if(getCurrentDiceValueCounters()[i] == 2)
-					has2 = true;
-			if(getCurrentDiceValueCounters()[i] == 0 && straightCounter < 4)
-				straightCounter = 0;	// otherwise counter is reset to 0 (unless a straight was found already)
-		}
-		// check for full house
-		if(getEmptyFields(playerIndex)[9]){	// if it hasn't been played yet
-			// full House is an option if one of the following applies:
-			//  - 3 of a kind and 2 of a kind were rolled  OR
-			//  - an additional yatzy was rolled (allLowerAllowed)
-			if((has3 && has2) || additionalYatzyBonus)
-			validOptions[9] = true;		// Full House!
-		
-		// check for large straight
-		// large straight is an option if it hasn't been used before and one of the following applies:
-		// - straightCounter is 5  OR
-		// - additional yatzy was rolled
-		// IMPORTANT: in case a player already played large straight, we also need to show that it is a valid small straight
-		}
-		if(straightCounter == 5 || additionalYatzyBonus){
-			if(getEmptyFields(playerIndex)[11])
-				validOptions[11] = true;	// Large Straight!
-			if(getEmptyFields(playerIndex)[10])
-				validOptions[10] = true;		// also valid small straight
-		}
-		
-		// check for small straight
-		// small straight is an option if it hasn't been used before and one of the following applies:
-		// - straightCounter is 4  OR
-		// - additional yatzy was rolled
-		if(getEmptyFields(playerIndex)[10])
-			if(straightCounter == 4 || additionalYatzyBonus)
-				validOptions[10] = true;		// Small Straight!
-		
-		// chance is always an option, so we only need to check whether it has been played already
-		if(getEmptyFields(playerIndex)[13])
-			validOptions[13] = true;
+		YatzyEngine.setValidOptions(getPlayers()[playerIndex].getGameCard(), getCurrentDiceValueCounters(), validOptions);
 	}
 
 
@@ -925,70 +702,44 @@ public class Yatzy implements Pausable{
 	 * one of the remaining fields in order to get the bonus.
 	 * The method then checks that the input is valid.
 	 */
-	public void crossOutField(Scanner sc, int playerIndex) {
+	public void crossOutField(InputSource in, int playerIndex) {
 		
 		boolean isOk = false;
+		int emptyFields = ScoringTable.getEmptyFieldsMask(getPlayers()[playerIndex].getGameCard());
 		
 		if(getValidOptions()[14] == true){
-			System.out.println("!! ADDITIONAL YATZY BONUS (100 Points) !!");
-			System.out.println("In order to get the bonus, you need to cross out an empty field.");
-			getPlayers()[playerIndex].updateGameCard(14, getAdditionalYatzyBonus());
+			screen.bonus("!! ADDITIONAL YATZY BONUS (100 Points) !!");
+			screen.line("In order to get the bonus, you need to cross out an empty field.");
 		}else
-			System.out.println("Sorry, there are no options available. You need to cross out an empty field.");
-		System.out.println("Please select one from the following list:");
+			screen.line("Sorry, there are no options available. You need to cross out an empty field.");
+		screen.line("Please select one from the following list:");
 		
-		// loop through all fields except the 2 last ones and display all the remaining empty fields
-		for(int i = 0; i < getNumOfFields() - 2; i++){		// -2: don't need to check for additional yatzy bonus or totals
-			if(getEmptyFields(playerIndex)[i] == true){	
-				System.out.println(" " + getAbbreviations()[i] + "\t" + getFieldNames()[i]);
-			}
-		}
-		System.out.println("");	// end with a new line
-		System.out.print("Your selection: ");
+		// display all the remaining empty fields
+		screen.fieldList("CROSS_OUT", emptyFields);
+		screen.line("");	// end with a new line
+		screen.text("Your selection: ");
 		// get the chosen field to be set to 0 from player
-		String input = sc.next();
+		String input = screen.read(in, InputSource.CROSS_OUT_FIELD);
 		
 		// make sure that the input represents a valid option
 		Outerloop: while(!isOk){
 			for(int i = 0; i < getNumOfFields() - 2; i++){		// don't need to loop through the yatzy bonus and the totals
 				// if the input is a correct abbreviation and was one of the abbreviations that were displayed (= a valid empty field)
-				if(input.equals(getAbbreviations()[i]) && getEmptyFields(playerIndex)[i] == true){
-					// set chosen field to 0
-					getPlayers()[playerIndex].updateGameCard(i, 0);
+				if(input.equals(getAbbreviations()[i]) && (emptyFields & (1 << i)) != 0){
+					// set chosen field to 0 (and write the additional yatzy bonus "to card" if it applies)
+					int points = YatzyEngine.crossOutField(getPlayers()[playerIndex], i, getValidOptions());
+					for(GameListener listener : gameListeners)
+						listener.onCrossOut(playerIndex, i, points);
 					isOk = true;
 					break Outerloop;
 				}
 			}
-			System.out.print("This is not an option. Please try again: ");
-			input = sc.next();
+			screen.text("This is not an option. Please try again: ");
+			input = screen.read(in, InputSource.CROSS_OUT_FIELD);
 		}
 		displayDoubleLine();
 	}
 
-	/**
-	 * this method is called by the crossOutField() and the setValidOptions() methods to get an array of all the currently unused fields of a particular player.
-	 * It runs through all the fields of a player's card and checks if their value is equal to -1 (this means unplayed).
-	 * It does NOT check the 6th element of the array which represents the upper bonus field (the player should never be able to select this field).
-	 * 
-	 * @return: a boolean array. If an element is set to true, it means that this field is currently free. 
-	 */
-	private boolean[] getEmptyFields(int playerIndex) {
-		
-		boolean[] emptyFields = new boolean[getNumOfFields()];
-		for(int i = 0; i < getNumOfFields(); i++){
-			if( (getPlayers()[playerIndex].getGameCard(i) == -1)  &&  (i != 6))	// i = 6 represents the upper section bonus field 
-				emptyFields[i] = true;											// which should not be valid even if it is empty
-			else
-				emptyFields[i] = false;
-		}
-		
-		return emptyFields;
-	}
-
-	
-	
-	
-	
 	/*-------------------------------------------------------------------------------------------------------
 	 * 								METHODS TO ACCESS THE YATZY RULES
 	 * ------------------------------------------------------------------------------------------------------
@@ -998,33 +749,32 @@ public class Yatzy implements Pausable{
 	 * this method displays all the different options regarding the display of yatzy rules. The player is asked to select an option.
 	 * The method loops until the player provides valid input and then calls the displayRules() method to display the selected rule.
 	 */
-	public void displayWhichRule(Scanner sc){
+	public void displayWhichRule(InputSource in){
 		
 		displayLine();
-		System.out.println("\nOptions:");
-		System.out.println(" - All rules..............................1");
-		System.out.println(" - Goal of the game.......................2");
-		System.out.println(" - Rolling the dice.......................3");
-		System.out.println(" - Scoring................................4");
-		System.out.println(" - Upper section scoring..................5");
-		System.out.println(" - Lower section scoring..................6");
-		System.out.println(" - Additional Yatzy rules.................7");
-		System.out.println(" - What to do if no options available.....8");
-		System.out.print("Your selection: ");
+		screen.heading("\nOptions:");
+		screen.line(" - All rules..............................1");
+		screen.line(" - Goal of the game.......................2");
+		screen.line(" - Rolling the dice.......................3");
+		screen.line(" - Scoring................................4");
+		screen.line(" - Upper section scoring..................5");
+		screen.line(" - Lower section scoring..................6");
+		screen.line(" - Additional Yatzy rules.................7");
+		screen.line(" - What to do if no options available.....8");
+		screen.text("Your selection: ");
 
 		boolean isOk = false;
 		String errorMessage = "Invalid input. Please try again:";
 		int input = 0;
 		while(!isOk){
 			try{
-				input = sc.nextInt();
+				input = screen.readInt(in, InputSource.RULES_SECTION);
 				if(input >= 1 && input <= 8)
 					isOk = true;
 				else
-					System.out.print(errorMessage);
+					screen.text(errorMessage);
 			}catch (InputMismatchException imme){
-				System.out.print(errorMessage);
-				sc.next();	// IMPORTANT: this is needed for the scanner to wait for the next input
+				screen.text(errorMessage);	// the invalid input was skipped
 			}
 		}	
 		displayRules(input);
@@ -1033,48 +783,60 @@ public class Yatzy implements Pausable{
 	
 	
 	/**
-	 * this method takes the user input from the displayWhichRule() method and calls the readFromFile() method 
-	 * with the relevant startPositions and number of Lines.
+	 * this method takes the user input from the displayWhichRule() method and displays the selected section of the rules.
+	 * The sections are found by their headings (see RulesIndex), so the rules file is read only once.
 	 */
 	private void displayRules(int option){
 		
-		final int[] startPositions = {0, 0, 374, 628, 816, 1406, 2197, 3157};
-		final int[] numOfLines = {76, 7, 5, 56, 12, 38, 10, 4};
-		
 		displayLine();
-		System.out.println("");
+		screen.line("");
 		try{
-			RandomAccessFile file = new RandomAccessFile("yatzyrules.txt", "r");
-			boolean success = readFromFile(file, startPositions[option - 1], numOfLines[option - 1]);
-			if(!success){
-				System.out.println("There was a problem with reading data from the file");
+			RulesIndex rules = getRules();
+			List<String> text;
+			switch(option){
+			case 2:
+				text = rules.getSection("Goal of the game");
+				break;
+			case 3:
+				text = rules.getSection("Rolling the dice");
+				break;
+			case 4:
+				text = rules.getSections("Scoring", "Lower Section Scoring");	// incl. the scoring of both sections
+				break;
+			case 5:
+				text = rules.getSection("Upper Section Scoring");
+				break;
+			case 6:
+				text = rules.getSection("Lower Section Scoring");
+				break;
+			case 7:
+				text = rules.getSection("Additional Yatzy");
+				break;
+			case 8:
+				text = rules.getSection("What to do if no option available?");
+				break;
+			default:
+				text = rules.getAllLines();
+			}
+			if(text == null){
+				screen.line("The selected rules could not be found in the file.");
+				return;
 			}
-			file.close();
+			for(String line : text)
+				screen.line(line);
 		}catch (IOException ioe){
-			System.out.println("The file could not be found.");
-		}finally{
-			
+			screen.line("The file could not be found.");
 		}
 	}
 	
 	/**
-	 * this method is called from the displayRules(int option) method. It reads from the specified RandomAccessFile from the
-	 * indicated starting position (parameter 2) and displays the specified number of lines (parameter 3)
-	 * 
-	 * @return: true if everything worked, false if there was a problem
+	 * this method returns the rules of the program. The rules file is read the first time they are needed.
 	 */
-	private boolean readFromFile(RandomAccessFile file, int startPosition, int numOfLines){
+	private static synchronized RulesIndex getRules() throws IOException{
 		
-		try{
-			// move the "cursor" in the file to the specified position
-			file.seek(startPosition);
-			for(int i = 0; i < numOfLines; i++){	// read the specified number of lines
-				System.out.println(file.readLine());	// and display them on the screen
-			}
-			return true;
-		}catch (IOException ioe){
-			return false;
-		}
+		if(rules == null)
+			rules = RulesIndex.load(Paths.get(RulesIndex.DEFAULT_FILE_NAME));
+		return rules;
 	}
 	
 	
@@ -1085,18 +847,30 @@ public class Yatzy implements Pausable{
 	
 	
 	/**
-	 * this method is called at the end of every game to update the highscores. It checks if the file is empty and can be read. 
-	 * If the file can be read but is empty, the current player's score is automatically added.
-	 * In the normal case, where the file is not empty, all the existing highscores are read in from the file.
-	 * If there are less than 10 highscores in the file, the current one is added automatically, otherwise the current score is
-	 * compared to the lowest score in the list. If it is higher than the currently lowest score, it replaces the currently lowest score.
-	 * The whole list is then sorted and serialized again.
+	 * this method is called at the end of every game to update the highscores with the scores of all players.
+	 * The highscores in memory are updated immediately, and all scores are appended to the highscore log in one write
+	 * shortly afterwards (see Leaderboard).
 	 * 
-	 * @return: true if everything worked, false if there was a problem.
+	 * @return: a future which is completed when the scores were added to the highscores (exceptionally if there was a problem)
 	 */
-	public boolean updateHighScores(int currentPlayer){
+	public CompletableFuture<Void> updateHighScores(){
 		
-		final int maxNumOfElements = 10;
+		// get today's date in its String representation
+		String today = getTodaysDate();
+		
+		List<Highscore> scores = new ArrayList<Highscore>(getNumOfPlayers());
+		for(int i = 0; i < getNumOfPlayers(); i++)
+			scores.add(new Highscore(getPlayers()[i].getName(), today, getPlayers()[i].getGameCard(15)));
+		return submitHighScores(scores);
+	}
+	
+	/**
+	 * this method updates the highscores with the score of one player. The highscores in memory are updated immediately,
+	 * and the current player's score is appended to the highscore log shortly afterwards (see Leaderboard).
+	 * 
+	 * @return: a future which is completed when the score was added to the highscores (exceptionally if there was a problem)
+	 */
+	public CompletableFuture<Void> updateHighScores(int currentPlayer){
 		
 		// get today's date in its String representation
 		String today = getTodaysDate();
@@ -1105,46 +879,79 @@ public class Yatzy implements Pausable{
 		Highscore currentScore = new Highscore(getPlayers()[currentPlayer].getName(),
 										  today,
 				                          getPlayers()[currentPlayer].getGameCard(15));
+		return submitHighScores(Collections.singletonList(currentScore));
+	}
+	
+	/**
+	 * this method adds the scores to the highscores on the thread of the PersistenceExecutor (the first time, the highscores
+	 * are read from the disk). The game doesn't wait: if there is a problem, it is displayed before the next main menu
+	 * (see GameSession.reportProblem()).
+	 */
+	private CompletableFuture<Void> submitHighScores(List<Highscore> scores){
 		
-		// instantiate new file object
-		File scoreFile = new File("highscores.ser");
-		//	check: if file doesn't exist, cannot be read or is empty, write the current score to the file 
-		//  (the file will be created automatically as part of the writing operation if it doesn't exist)
-		if( (!scoreFile.exists()) || (!scoreFile.canRead()) || scoreFile.length() == 0){
-			List<Highscore> newList = new ArrayList<Highscore>();	// instantiate new List,
-			newList.add(currentScore);								// add the current score to it
-			return writeHighScoresToFile(newList, scoreFile);		// and write it to the file
-		}	
-		// if everything is fine and the file is not empty (normal case):
-		else{
-			try{
-				// open stream
-				ObjectInputStream in = new ObjectInputStream(new FileInputStream(scoreFile));
-				try{
-					// read the whole ArrayList in from the file
-					@SuppressWarnings("unchecked")
-					List<Highscore> list = (ArrayList<Highscore>)in.readObject();
-					// if there are less than 10 elements in the list, ...
-					if(list.size() < maxNumOfElements)	
-						list.add(currentScore);	// ... add the current score to the list
-					// if the last element of the list is less than the score of the current player, ...
-					else if(list.get(list.size() - 1).getScore() < getPlayers()[currentPlayer].getGameCard(15))
-						list.set(list.size() - 1, currentScore); 	// replace the last element of the list with the current score
-					
-					// sort the list again
-					Collections.sort(list);	// sorting is done according to the implementation of the compareTo method
-					in.close();
-					return writeHighScoresToFile(list, scoreFile);			// SUCCESS !!!!
-				} catch (ClassNotFoundException cnfe){
-					System.out.println("Update: The object could not found");
-					in.close();
-					return false;
-				}
-			}catch (IOException ioe){
-				System.out.println("Update: The file " + scoreFile + " could not be opened.");
-				return false;
+		return PERSISTENCE.run(() -> getSessionLeaderboard().submit(scores)).whenComplete((result, e) -> {
+			if(e != null)
+				session.reportProblem("The highscores could not be updated: " + e.getMessage());
+		});
+	}
+	
+	/**
+	 * this method writes the highscores which were not written to the highscore log yet on the thread of the PersistenceExecutor
+	 * (usually the log is written shortly after a game, see Leaderboard)
+	 * 
+	 * @return: a future which is completed when the highscores were written (exceptionally if there was a problem)
+	 */
+	public static CompletableFuture<Void> flushHighScores(){
+		return PERSISTENCE.run(() -> getLeaderboard().flush());
+	}
+	
+	/**
+	 * this method reads the highscores from the disk on the thread of the PersistenceExecutor, so they are in memory
+	 * when they are displayed or updated for the first time (eg. while the title is displayed)
+	 */
+	public CompletableFuture<Void> preloadHighScores(){
+		return PERSISTENCE.run(() -> getSessionLeaderboard().getHighscores());
+	}
+	
+	/**
+	 * this method returns the highscores of the session, or the highscores of the program if the session has none
+	 * (see GameSession.setLeaderboard())
+	 */
+	private Leaderboard getSessionLeaderboard() throws IOException{
+		return (session.getLeaderboard() != null) ? session.getLeaderboard() : getLeaderboard();
+	}
+	
+	/**
+	 * this method returns the highscores of the program. If there is no highscore log yet, but a file with the highscores
+	 * of an older version of the game (highscores.ser), these highscores are copied into the log first.
+	 * Only the first call is synchronized.
+	 */
+	private static Leaderboard getLeaderboard() throws IOException{
+		
+		if(!oldHighscoresChecked)
+			importOldHighscores();
+		return LEADERBOARD;
+	}
+	
+	/**
+	 * this method copies the highscores of an older version of the game (highscores.ser) into the highscore log,
+	 * if there is no highscore log yet
+	 */
+	private static synchronized void importOldHighscores() throws IOException{
+		
+		if(oldHighscoresChecked)
+			return;
+		File oldScoreFile = new File("highscores.ser");
+		if(!new File(HighscoreLog.DEFAULT_FILE_NAME).exists() && oldScoreFile.exists() && oldScoreFile.length() > 0){
+			try(ObjectInputStream in = new ObjectInputStream(new FileInputStream(oldScoreFile))){
+				@SuppressWarnings("unchecked")
+				List<Highscore> list = (ArrayList<Highscore>)in.readObject();
+				HIGHSCORE_LOG.recordAll(list);
+			}catch (ClassNotFoundException cnfe){
+				System.out.println("The highscores of the file " + oldScoreFile + " could not be read");
 			}
 		}
+		oldHighscoresChecked = true;
 	}
 		
 	/**
@@ -1164,32 +971,7 @@ public class Yatzy implements Pausable{
 	}
 
 	/**
-	 * this method is called by the updateHighScores() method to write a list of highscore objects to file.
-	 * 
-	 * @param: list of highscore objects, file
-	 * @return:	true if success, false if there was  a problem
-	 */
-	private boolean writeHighScoresToFile(List<Highscore> list, File file) {
-			
-		// write the updated highscores back to the file
-		try{
-			ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
-			try{
-				out.writeObject(list);
-				out.close();
-				return true;		// SUCCESS !!!
-			} catch(NotSerializableException nse){
-				System.out.println("this object cannot be serialized");
-				return false;
-			}
-		}catch(IOException ioe){
-			System.out.println("File could not be opened");
-			return false;
-		}
-	}
-
-	/**
-	 * this method reads the serialized data from the file and stores all the highscore elements in a list. 
+	 * this method reads the highscores from memory (see Leaderboard). 
 	 * For each high score (max. 10),it displays the rank, name of the player, the date of the game and the score itself.
 	 * An example display of the highscores looks like this:
 	 * 				  =========================
@@ -1212,36 +994,25 @@ public class Yatzy implements Pausable{
 	 */
 	public void displayHighScores() {
 
-		File scoreFile = new File("highscores.ser");
 		int rank = 1;
 		displayLine();
-		System.out.println("\n\t\t =========================");
-		System.out.println("\t\t |  H I G H S C O R E S  |");
-		System.out.println("\t\t =========================\n");
-		System.out.println("\tRank\tPlayer\t\tDate\t\tScore");
-		System.out.println("\t---------------------------------------------");
+		screen.line("\n\t\t =========================");
+		screen.heading("\t\t |  H I G H S C O R E S  |");
+		screen.line("\t\t =========================\n");
+		screen.line("\tRank\tPlayer\t\tDate\t\tScore");
+		screen.line("\t---------------------------------------------");
 		
-		// open txt file with the highscores
 		try {
-			ObjectInputStream stream = new ObjectInputStream(new FileInputStream(scoreFile));
-			try{
-				@SuppressWarnings("unchecked")
-				List<Highscore> list = (ArrayList<Highscore>) stream.readObject();
-				for(Highscore h : list){
-					System.out.print("\t" + rank++ + "\t" + h.getName() + "\t");
-					if(h.getName().length() < getNameMaxLength())
-						System.out.print("\t");
-					System.out.print(h.getDate() + "\t" + h.getScore() + "\n");
-				}
-				System.out.println("\t---------------------------------------------");
-
-				stream.close();		//important: close stream!	
-			} catch (ClassNotFoundException cnfe){
-				System.out.println("The object could not found");
-				stream.close();
+			List<Highscore> list = getSessionLeaderboard().getHighscores();
+			for(Highscore h : list){
+				screen.text("\t" + rank++ + "\t" + h.getName() + "\t");
+				if(h.getName().length() < getNameMaxLength())
+					screen.text("\t");
+				screen.text(h.getDate() + "\t" + h.getScore() + "\n");
 			}
+			screen.line("\t---------------------------------------------");
 		}catch (IOException ioe){
-			System.out.println("display problem! The file " + scoreFile + " could not be opened.");
+			screen.line("display problem! The file " + HighscoreLog.DEFAULT_FILE_NAME + " could not be opened.");
 		}
 	}
 
@@ -1258,34 +1029,48 @@ public class Yatzy implements Pausable{
 	 * (non-Javadoc)
 	 * @see com.timpanix.yatzy.Pausable#saveGameState(com.timpanix.yatzy.Player[], int)
 	 * 
-	 * It copies the static players array into a new non-static array, so that it can be serialized.
-	 * Then it serializes this new players array.
+	 * It saves the players, the round and the next player in an empty slot of the save store (see SaveStore),
+	 * in the compact binary format of the class SavedGame. Any number of games can be saved.
+	 * This method waits until the game was saved: the game is written at once (with the games queued by
+	 * saveGameStateAsync() in the meantime), it doesn't wait for the commit interval.
 	 * 
 	 * @return: true if everything worked, false if there was a problem
 	 */
 	@Override
 	public boolean saveGameState(Player[] players, int round, int currentPlayer) {
 		
-		// copy the players into a new non-static Player[], so that it can be serialized
-		Player[] SavedPlayers = players;
+		SavedGame game = SavedGame.copyOf(players, round, getNextPlayer(currentPlayer));
+		return waitFor(PERSISTENCE.submit(() -> getSessionSaveStore().save(game)));
+	}
+	
+	/**
+	 * this method saves the game like saveGameState(), but on the thread of the PersistenceExecutor: the state of the game
+	 * is copied, so the game can go on while it is written. The games saved by all games of the program within the
+	 * commit interval are written to the disk together (see SaveStore.saveLater() and setSaveCommitInterval()), so this
+	 * method is meant for saves which nobody waits for at once (eg. while the progress bar is displayed).
+	 * 
+	 * @return: a future which is completed with the slot id when the game is on the disk, or exceptionally if the game could not be saved
+	 */
+	public CompletableFuture<Integer> saveGameStateAsync(Player[] players, int round, int currentPlayer) {
+		
+		SavedGame game = SavedGame.copyOf(players, round, getNextPlayer(currentPlayer));
+		return PERSISTENCE.submit(() -> getSessionSaveStore()).thenCompose(store -> store.saveLater(game));
+	}
+	
+	/**
+	 * this method waits until a file operation of the PersistenceExecutor is completed
+	 * 
+	 * @return: true if everything worked, false if there was a problem (the problem is displayed)
+	 */
+	private boolean waitFor(CompletableFuture<?> operation) {
 		
-		// serialize the players array
-		String filename = "pausedGame.ser";
 		try{
-			ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename));
-			try{
-				out.write(round);
-				out.write(getNextPlayer(currentPlayer));
-				out.writeObject(SavedPlayers);
-				out.close();
-				return true;
-			} catch(NotSerializableException nse){
-				System.out.println("this object cannot be serialized");
-			}
-		}catch(IOException ioe){
-			System.out.println("File could not be opened");
+			operation.join();
+			return true;
+		}catch(CompletionException ce){
+			screen.line("File could not be opened: " + ce.getCause().getMessage());
+			return false;
 		}
-		return false;
 	}
 
 	/**
@@ -1293,71 +1078,258 @@ public class Yatzy implements Pausable{
 	 * (non-Javadoc)
 	 * @see com.timpanix.yatzy.Pausable#restoreGame()
 	 * 
-	 * this method restores a saved game. It reads the following serialized data back from the file:
-	 * 	- how many rounds were played before the game was saved
-	 *  - which player played last
-	 *  - all the player information (names, game cards etc.)
-	 * After the data has been read back successfully, the content of the serial file is wiped (this avoids that the same game can be restored more than once)
+	 * this method restores the game that was saved last (see restoreGame(int)).
 	 * 
-	 * @return: an int array consisting of the last round played and the last player involved if everything worked,
+	 * @return: an int array consisting of the last round played and the next player if everything worked,
 	 * 			otherwise an int array with values {-1,0} to indicate that there was a problem
 	 */
 	@Override
 	public int[] restoreGame() {
 		
-		int[] roundAndNextPlayer = new int[2];
 		int[] didntWork = {-1,0};
-		Player[] restoredPlayers = new Player[getNumOfPlayers()];
-		File file = new File("pausedGame.ser");
-		
-		if(! (file.exists() || file.canRead())){
-			System.out.println("Sorry, the file " + file + " could not be found");
+		try{
+			SaveStore.SlotInfo last = null;
+			for(SaveStore.SlotInfo slot : getSessionSaveStore().list())
+				if(last == null || slot.getSavedAt() >= last.getSavedAt())
+					last = slot;
+			if(last == null){
+				screen.line("Sorry, no saved game was found.");
+				return didntWork;
+			}
+			return restoreGame(last.getSlotId());
+		}catch (IOException ioe){
+			screen.line("Sorry, the saved games could not be read.");
 			return didntWork;
 		}
+	}
+
+	/**
+	 * this is the implementation of the restoreGame(int) method from the interface Pausable
+	 * (non-Javadoc)
+	 * @see com.timpanix.yatzy.Pausable#restoreGame(int)
+	 * 
+	 * this method restores the game saved in the specified slot. It reads the following data back from the save store (see SavedGame):
+	 * 	- how many rounds were played before the game was saved
+	 *  - which player plays next
+	 *  - all the player information (names, game cards etc.)
+	 * The data is checked before the game is restored. Afterwards the slot is deleted (this avoids that the same game
+	 * can be restored more than once)
+	 * 
+	 * @return: an int array consisting of the last round played and the next player if everything worked,
+	 * 			otherwise an int array with values {-1,0} to indicate that there was a problem
+	 */
+	@Override
+	public int[] restoreGame(int slotId) {
+		return restoreGame(slotId, loadSavedGame(slotId));
+	}
+	
+	/**
+	 * this method reads the game saved in the specified slot on the thread of the PersistenceExecutor
+	 * (eg. while the progress bar is displayed, see restoreGame(int, CompletableFuture))
+	 */
+	public CompletableFuture<SavedGame> loadSavedGame(int slotId) {
+		return PERSISTENCE.submit(() -> getSessionSaveStore().load(slotId));
+	}
+	
+	/**
+	 * this method restores the game which is read by loadSavedGame() (see restoreGame(int)). The slot is deleted
+	 * on the thread of the PersistenceExecutor, the game doesn't wait for it.
+	 * 
+	 * @return: an int array consisting of the last round played and the next player if everything worked,
+	 * 			otherwise an int array with values {-1,0} to indicate that there was a problem
+	 */
+	public int[] restoreGame(int slotId, CompletableFuture<SavedGame> loading) {
 		
+		int[] didntWork = {-1,0};
+		SavedGame savedGame;
 		try{
-			ObjectInputStream in = new ObjectInputStream(new FileInputStream(file));
-			try{
-				// read serialized data back from file
-				roundAndNextPlayer[0] = (int) in.read();	// read round from file
-				roundAndNextPlayer[1] = (int) in.read();	// read playerIndex from file
-				restoredPlayers = (Player[]) in.readObject();	// read players (names, gamecards etc.) from file
-				resetPlayers(restoredPlayers);
-				in.close();
-			} catch (ClassNotFoundException cnfe){
-				System.out.println("The object could not found");
-				in.close();
-				return didntWork;	// -1 flags that it didnt't work
-			}
-		}catch (IOException ioe){
-			System.out.println("Sorry, no saved game was found.");
+			savedGame = loading.join();
+		}catch (CompletionException ce){
+			screen.line("Sorry, the saved game could not be restored: " + ce.getCause().getMessage());
 			return didntWork;		// -1 flags that it didn't work
 		}
+		resetPlayers(savedGame.getPlayers());
+		
+		// delete the slot (the game has been restored, so the information in the slot is not needed anymore)
+		PERSISTENCE.run(() -> getSessionSaveStore().delete(slotId)).whenComplete((result, e) -> {
+			if(e != null)
+				session.reportProblem("The saved game could not be deleted: " + e.getMessage());
+		});
+		return new int[]{savedGame.getRound(), savedGame.getNextPlayer()};		// SUCCESS !!!!!
+	}
+	
+	/**
+	 * this method lists the saved games and asks the players which one they would like to restart.
+	 * If there is only one saved game, it is selected without asking.
+	 * 
+	 * @return: the slot id of the selected game, -1 if there are no saved games
+	 */
+	public int selectSavedGame(InputSource in) {
 		
-		// delete the content of the file (the game has been restored, so the information in the file is not needed anymore)
+		List<SaveStore.SlotInfo> slots;
 		try{
-			ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+			slots = getSessionSaveStore().list();
+		}catch (IOException ioe){
+			screen.line("Sorry, the saved games could not be read.");
+			return -1;
+		}
+		if(slots.isEmpty()){
+			screen.line("Sorry, no saved game was found.");
+			return -1;
+		}
+		if(slots.size() == 1)
+			return slots.get(0).getSlotId();
+		
+		DateFormat format = DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.SHORT, Locale.getDefault());
+		screen.line("\n\tGame\tPlayers\tRound\tSaved on");
+		screen.line("\t---------------------------------------------");
+		for(SaveStore.SlotInfo slot : slots)
+			screen.line("\t" + slot.getSlotId() + "\t" + slot.getNumOfPlayers() + "\t" + slot.getRound() + "\t"
+					+ format.format(new Date(slot.getSavedAt())));
+		screen.text("Which game would you like to restart? ");
+		while(true){
 			try{
-				out.writeChar(' ');	// delete all the contents of the file (replace them with a space char)
-				out.close();
-				return roundAndNextPlayer;			// SUCCESS !!!!!
-			} catch(NotSerializableException nse){
-				System.out.println("this object cannot be serialized");
-				out.close();
-				return didntWork;
+				int slotId = screen.readInt(in, InputSource.SAVED_GAME);
+				for(SaveStore.SlotInfo slot : slots)
+					if(slot.getSlotId() == slotId)
+						return slotId;
+				screen.text("This is not an option. Please try again: ");
+			}catch(InputMismatchException e){
+				screen.text("This is not an option. Please try again: ");	// the invalid input was skipped
 			}
-		}catch (IOException ioe){
-			System.out.println("The file " + file + " could not be opened");
-			return didntWork;
 		}
 	}
+	
+	/**
+	 * this method returns the saved games of the session, or the save store of the program if the session has none
+	 * (see GameSession.setSaveStore())
+	 */
+	private SaveStore getSessionSaveStore() throws IOException{
+		return (session.getSaveStore() != null) ? session.getSaveStore() : getSaveStore();
+	}
+	
+	/**
+	 * this method returns the save store of the program. It is opened the first time it is needed.
+	 */
+	private static synchronized SaveStore getSaveStore() throws IOException{
+		
+		if(saveStore == null)
+			saveStore = SaveStore.open(Paths.get(SaveStore.DEFAULT_FILE_NAME), saveCommitIntervalMillis);
+		return saveStore;
+	}
+	
+	/**
+	 * this method sets how long the games saved with saveGameStateAsync() are collected before they are written together
+	 * (default 20 ms, 0: at once). A server with many sessions can use a longer interval to write more games with one
+	 * write to the disk. It must be called before the first game is saved or restored.
+	 */
+	public static synchronized void setSaveCommitInterval(long commitIntervalMillis){
+		
+		if(saveStore != null)
+			throw new IllegalStateException("The save store is already open");
+		saveCommitIntervalMillis = commitIntervalMillis;
+	}
 
 	/**
 	 * this method resets the players and the number of players. This method is called when a paused game is resumed.
 	 */
 	private void resetPlayers(Player[] restoredPlayers) {
-		players = restoredPlayers;
-		numOfPlayers = players.length;
+		session.setPlayers(restoredPlayers);
+	}
+
+	/**
+	 * this method looks for a game that was interrupted (eg. the program crashed) in the journal and asks the players
+	 * if they would like to continue it. If not, the journal is deleted.
+	 * 
+	 * @return: the recovered game (the players are reset), null if there is no game to continue
+	 */
+	public GameJournal.RecoveredGame recoverGame(InputSource in, GameJournal journal) {
+		
+		GameJournal.RecoveredGame recovered;
+		try{
+			recovered = journal.recover();
+		}catch (IOException ioe){
+			screen.line("Sorry, the interrupted game could not be recovered: " + ioe.getMessage());
+			journal.delete();
+			return null;
+		}
+		if(recovered == null)
+			return null;
+		if(recovered.getRound() >= getNumOfRounds()){	// all rounds were played already
+			journal.delete();
+			return null;
+		}
+		
+		screen.text("The last game was interrupted in round " + (recovered.getRound() + 1) + " (players:");
+		for(Player player : recovered.getPlayers())
+			screen.text(" " + player.getName());
+		screen.text(").\nWould you like to continue it? (Y/N)");
+		String continueOption = screen.read(in, InputSource.RECOVER_GAME).toUpperCase();
+		while(! (continueOption.equals("N") || continueOption.equals("Y"))){
+			screen.text("This is not an option. Please try again:");
+			continueOption = screen.read(in, InputSource.RECOVER_GAME).toUpperCase();
+		}
+		if(continueOption.equals("N")){
+			journal.delete();
+			return null;
+		}
+		resetPlayers(recovered.getPlayers());
+		return recovered;
+	}
+
+	
+	/*-------------------------------------------------------------------------------------------------------
+	 * 								METHODS FOR GAME LISTENERS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+	
+	/**
+	 * this method adds a listener which is informed about the events of the game (see GameListener)
+	 */
+	public void addGameListener(GameListener listener){
+		gameListeners.add(listener);
+	}
+	
+	/**
+	 * this method informs the listeners that the game starts (round: the number of rounds played so far)
+	 */
+	public void fireGameStart(int round, int firstPlayer){
+		for(GameListener listener : gameListeners)
+			listener.onGameStart(getPlayers(), round, firstPlayer);
+	}
+	
+	/**
+	 * this method informs the listeners that a player's turn starts
+	 */
+	public void fireTurnStart(int round, int playerIndex){
+		for(GameListener listener : gameListeners)
+			listener.onTurnStart(round, playerIndex);
+	}
+	
+	private void fireRoll(int playerIndex, int rollNumber, boolean[] rolledDice){
+		for(GameListener listener : gameListeners)
+			listener.onRoll(playerIndex, rollNumber, rolledDice, getCurrentDiceValues());
+	}
+	
+	/**
+	 * this method informs the listeners that every player played in the round
+	 */
+	public void fireRoundEnd(int round){
+		for(GameListener listener : gameListeners)
+			listener.onRoundEnd(round);
+	}
+	
+	private void fireWinner(int winner, int points){
+		for(GameListener listener : gameListeners)
+			listener.onWinner(winner, points);
+	}
+	
+	/**
+	 * this method informs the listeners that the game ends (finished: true if all rounds were played)
+	 */
+	public void fireGameEnd(boolean finished){
+		for(GameListener listener : gameListeners)
+			listener.onGameEnd(getPlayers(), finished);
 	}
 
 	
@@ -1371,29 +1343,30 @@ public class Yatzy implements Pausable{
 	 * 
 	 * @return: the menu option that the user selected (int)
 	 */
-	public int displayMainMenu(Scanner sc) {
+	public int displayMainMenu(InputSource in) {
 		
 		int menuChoice = -1;
 		boolean validInput = false;
 		String errorMessage = "This is not an option. Please try again: ";
 		
-		System.out.println("\nMain Menu:");
-		System.out.println(" Play new game...................1");
-		System.out.println(" Restart paused game.............2");
-		System.out.println(" Yatzy Rules.....................3");
-		System.out.println(" High scores.....................4");
-		System.out.println(" Quit the game...................5");
-		System.out.print("Your choice: ");
+		session.displayProblems();		// the problems of the operations in the background (eg. the highscores of the last game)
+		screen.heading("\nMain Menu:");
+		screen.line(" Play new game...................1");
+		screen.line(" Restart paused game.............2");
+		screen.line(" Yatzy Rules.....................3");
+		screen.line(" High scores.....................4");
+		screen.line(" Quit the game...................5");
+		screen.text("Your choice: ");
 		
 		while(!validInput){
 			try{
-				menuChoice = sc.nextInt();
+				menuChoice = screen.readInt(in, InputSource.MAIN_MENU);
 				if(menuChoice > 0 && menuChoice < 6)
 					validInput = true;
 				else
-					System.out.println(errorMessage);	
+					screen.line(errorMessage);	
 			}catch(InputMismatchException e){
-				System.out.print(errorMessage);
+				screen.text(errorMessage);	// the invalid input was skipped
 			}
 		}
 		return menuChoice;
@@ -1404,14 +1377,14 @@ public class Yatzy implements Pausable{
 	 * 
 	 * @return: true if the player wants to continue, false if the player decides to quit
 	 */
-	public boolean continueTheGame(Scanner sc) {
+	public boolean continueTheGame(InputSource in) {
 		
-		System.out.print("\nPress \"C\" to continue the game or \"E\"to exit/pause the game: ");
+		screen.text("\nPress \"C\" to continue the game or \"E\"to exit/pause the game: ");
 	
-		String continueGame = sc.next().toUpperCase();
+		String continueGame = screen.read(in, InputSource.CONTINUE_GAME).toUpperCase();
 		while(! (continueGame.equals("C") || continueGame.equals("E"))){
-			System.out.print("This is not a valid option. Please try again:");
-			continueGame = sc.next().toUpperCase();
+			screen.text("This is not a valid option. Please try again:");
+			continueGame = screen.read(in, InputSource.CONTINUE_GAME).toUpperCase();
 		}
 		// return true if the player inputs C, otherwise false
 		return (continueGame.equals("C")) ? true : false;
@@ -1420,33 +1393,38 @@ public class Yatzy implements Pausable{
 	
 	/**
 	 * this method is called at the end of the game.
-	 * If the player quits at the end of the game (saveOptionEnabled = false), it just displays a little message, closes the scanner and shuts down the program.
+	 * If the player quits at the end of the game (saveOptionEnabled = false), it just displays a little message.
 	 * If the player quits during the game, the save option is enabled and the player is asked if he/she wants to save the game. If yes, a method is called to save the game.
+	 * The session ends afterwards: the caller returns (the program or the connection of the player is closed by its owner).
 	 */
-	public void exitGame(Scanner sc, int round, int currentPlayer, boolean saveOptionEnabled) {
+	public void exitGame(InputSource in, int round, int currentPlayer, boolean saveOptionEnabled) {
 
 		displayLine();
 		
 		if(saveOptionEnabled){
-			System.out.print("Would you like to save the current game? (Y/N)");
-			String saveOption = sc.next().toUpperCase();
+			screen.text("Would you like to save the current game? (Y/N)");
+			String saveOption = screen.read(in, InputSource.SAVE_GAME).toUpperCase();
 			while(! (saveOption.equals("N") || saveOption.equals("Y"))){
-				System.out.print("This is not an option. Please try again:");
-				saveOption = sc.next().toUpperCase();
+				screen.text("This is not an option. Please try again:");
+				saveOption = screen.read(in, InputSource.SAVE_GAME).toUpperCase();
 			}
 			if(saveOption.equals("Y")){
-				System.out.print("Saving game");
+				// the game is written while the progress bar is displayed
+				CompletableFuture<Integer> saving = saveGameStateAsync(getPlayers(), round, currentPlayer);
+				screen.text("Saving game");
 				displayProgressBar();
-				if(saveGameState(getPlayers(), round, currentPlayer))
-					System.out.println("Game was saved successfully!");
+				if(waitFor(saving))
+					screen.line("Game was saved successfully!");
 				else
-					System.out.println("Sorry, there was a problem. The game could not be saved.");
+					screen.line("Sorry, there was a problem. The game could not be saved.");
 			}
+			fireGameEnd(false);		// the game was not finished
 		}
-		System.out.println("\n\t     Thank you for playing Yatzy. Goodbye!");
+		session.displayProblems();
+		screen.line("\n\t     Thank you for playing Yatzy. Goodbye!");
 		displayDoubleLine();
-		sc.close();		// close the Scanner
-		System.exit(0);	// shut down the JVM
+		screen.flush();		// the end of the session: there is no next question
+		session.getOutput().flush();
 	}
 
 	
@@ -1457,17 +1435,11 @@ public class Yatzy implements Pausable{
 	 */
 	public int displayWinner() {
 		
-		int winner = - 1;
-		int max = -1;
-		
 		// find the highest amount of points
-		for(int i = 0; i < getNumOfPlayers(); i++){
-			if(getPlayers()[i].getGameCard(15) > max){
-				max = getPlayers()[i].getGameCard(15);
-				winner = i;
-			}
-		}
-		System.out.println("\n\t\t" + getPlayers()[winner].getName().toUpperCase() + " won the game with " + max + " points.\n");
+		int winner = YatzyEngine.findWinner(getPlayers());
+		int max = getPlayers()[winner].getGameCard(15);
+		fireWinner(winner, max);
+		screen.line("\n\t\t" + getPlayers()[winner].getName().toUpperCase() + " won the game with " + max + " points.\n");
 		return winner;
 	}
 
@@ -1477,24 +1449,24 @@ public class Yatzy implements Pausable{
 	public void displayStatistics(int winnerIndex) {
 		
 		getPlayers()[winnerIndex].updateNoOfWins();	// first update the players wins
-		System.out.println("\nStatistics:");
-		System.out.println("-----------");
+		screen.line("\nStatistics:");
+		screen.line("-----------");
 		for(int i = 0; i < getNumOfPlayers(); i++){
-			System.out.print("Wins for " + getPlayers()[i].getName() + ":");
+			screen.text("Wins for " + getPlayers()[i].getName() + ":");
 			if(getPlayers()[i].getName().length() < 6)
-				System.out.print("\t");	// add extra tab for short names
-			System.out.print("\t " + getPlayers()[i].getNoOfWins() + "\n");
+				screen.text("\t");	// add extra tab for short names
+			screen.text("\t " + getPlayers()[i].getNoOfWins() + "\n");
 		}
 	}
 
 	/**
 	 * this method displays a summary of the game (full game card)
 	 */
-	public void displaySummary(Scanner sc){
+	public void displaySummary(InputSource in){
 		
-		System.out.print("Press any letter or number to display a summary of the game: ");
-		sc.next();	// get input
-		System.out.println("\nSummary of the game:");
+		screen.text("Press any letter or number to display a summary of the game: ");
+		screen.read(in, InputSource.ANY_KEY);	// get input
+		screen.line("\nSummary of the game:");
 		// display card
 		displayCard();
 	}
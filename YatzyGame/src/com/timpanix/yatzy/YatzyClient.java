@@ -0,0 +1,47 @@
+package com.timpanix.yatzy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * this class contains the main method of a simple client for the YatzyServer: the input of the console is sent to the
+ * server and everything the server sends is displayed on the console (so the game looks like the console game).
+ */
+public class YatzyClient {
+
+	/**
+	 * @param args: the port of the server (default 4711), the server must run on the same computer
+	 */
+	public static void main(String[] args) throws IOException{
+
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : YatzyServer.DEFAULT_PORT;
+		try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)){
+			// send the input of the console on a separate thread
+			Thread input = new Thread(() -> {
+				try{
+					copy(System.in, socket.getOutputStream());
+					socket.shutdownOutput();
+				}catch(IOException ioe){
+					// the connection was closed by the server
+				}
+			}, "yatzy-client-input");
+			input.setDaemon(true);
+			input.start();
+			// display the output of the server until it closes the connection
+			copy(socket.getInputStream(), System.out);
+		}
+	}
+
+	private static void copy(InputStream in, OutputStream out) throws IOException{
+
+		byte[] buffer = new byte[1024];
+		int length;
+		while((length = in.read(buffer)) != -1){
+			out.write(buffer, 0, length);
+			out.flush();
+		}
+	}
+}
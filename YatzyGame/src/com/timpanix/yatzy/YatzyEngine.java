@@ -0,0 +1,258 @@
+package com.timpanix.yatzy;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * this class contains the rules of the game without any input or output (no Scanner, no System.out).
+ * It takes the state of a game (the player's game card), a roll of the dice and the field chosen by the player,
+ * and returns the points scored. The console game (class Yatzy) uses this class for all its rules decisions,
+ * so the interactive game and games that are played directly from code share one implementation of the rules.
+ *
+ * field indices: 0 "Aces", 1 "Twos", 2 "Threes", 3 "Fours", 4 "Fives", 5 "Sixes", 6 upper bonus, 7 "3 of a kind",
+ * 8 "4 of a kind", 9 "Full House", 10 "Small Straight", 11 "Large Straight", 12 "YATZY", 13 "Chance", 14 yatzy bonus,
+ * 15 totals
+ */
+public final class YatzyEngine {
+
+	public static final int NUM_OF_DICE = 5;
+	public static final int NUM_OF_FACES = 6;
+	public static final int NUM_OF_FIELDS = 16;		// number of fields on the yatzy card
+	public static final int NUM_OF_ROUNDS = 13;
+	public static final int MAX_ROLLS = 3;
+	public static final int UPPER_BONUS_FIELD = 6;
+	public static final int THREE_OF_A_KIND_FIELD = 7;
+	public static final int FOUR_OF_A_KIND_FIELD = 8;
+	public static final int FULL_HOUSE_FIELD = 9;
+	public static final int SMALL_STRAIGHT_FIELD = 10;
+	public static final int LARGE_STRAIGHT_FIELD = 11;
+	public static final int YATZY_FIELD = 12;
+	public static final int CHANCE_FIELD = 13;
+	public static final int YATZY_BONUS_FIELD = 14;
+	public static final int TOTALS_FIELD = 15;
+	public static final int UPPER_BONUS_THRESHOLD = 63;
+	public static final int BONUS_UPPERSECTION = 35;
+	public static final int FULL_HOUSE_SCORE = 25;
+	public static final int SMALL_STRAIGHT_SCORE = 30;
+	public static final int LARGE_STRAIGHT_SCORE = 40;
+	public static final int YATZY_SCORE = 50;
+	public static final int ADDITIONAL_YATZY_BONUS = 100;
+
+	// no instances: all methods are static
+	private YatzyEngine(){
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										DICE OPERATIONS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method rolls the dice specified by rollTheseDice and stores the values in diceValues (0 - 5 represent the faces 1 - 6).
+	 * The dice which are not rolled keep their old values. Afterwards the face counters are recalculated.
+	 * The dice are taken from the specified DiceSource, so the same seed always rolls the same dice.
+	 */
+	public static void rollDice(int[] diceValues, boolean[] rollTheseDice, int[] diceValueCounters, DiceSource dice){
+
+		for(int i = 0; i < NUM_OF_DICE; i++)
+			if(rollTheseDice[i])		// if the player decided to roll this dice
+				diceValues[i] = dice.nextFace();
+		countDice(diceValues, diceValueCounters);
+	}
+
+	/**
+	 * this method rolls the dice like rollDice(int[], boolean[], int[], DiceSource), but with the random numbers of the
+	 * current thread (not reproducible)
+	 */
+	public static void rollDice(int[] diceValues, boolean[] rollTheseDice, int[] diceValueCounters){
+
+		for(int i = 0; i < NUM_OF_DICE; i++)
+			if(rollTheseDice[i])		// if the player decided to roll this dice
+				diceValues[i] = rollOneDice();
+		countDice(diceValues, diceValueCounters);
+	}
+
+	/**
+	 * this method generates a pseudo random number in the range 0 - 5
+	 * (will be used to represent dice values 1 - 6). The random numbers of the current thread are used
+	 * (no new Random object per dice, no contention between threads).
+	 */
+	public static int rollOneDice(){
+		return ThreadLocalRandom.current().nextInt(NUM_OF_FACES);
+	}
+
+	/**
+	 * this method counts the identical dice faces (eg. diceValueCounters[0] = 2 means that 2 dice were rolled with face 1)
+	 */
+	public static void countDice(int[] diceValues, int[] diceValueCounters){
+
+		for(int i = 0; i < NUM_OF_FACES; i++)
+			diceValueCounters[i] = 0;
+		for(int i = 0; i < NUM_OF_DICE; i++)
+			diceValueCounters[diceValues[i]]++;
+	}
+
+	/**
+	 * this method calculates the sum of all dice faces from the face counters
+	 */
+	public static int sumOfAllDiceValues(int[] diceValueCounters){
+
+		int sum = 0;
+		for(int i = 0; i < NUM_OF_FACES; i++)
+			sum += diceValueCounters[i] * (i + 1);	// + 1 because the dice values are stored as 0,1,2,3,4,5
+		return sum;
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										RULES OPERATIONS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method checks if a field of the game card is still unused (value -1).
+	 * The upper bonus field is never an empty field, as the player should never be able to select this field.
+	 */
+	public static boolean isEmptyField(int[] gameCard, int field){
+		return gameCard[field] == -1 && field != UPPER_BONUS_FIELD;
+	}
+
+	/**
+	 * this method establishes the valid options of a player for the currently rolled dice.
+	 * The logic of what it means for a particular field to be a valid option is precomputed in the ScoringTable,
+	 * so this is only a lookup of the rolled combination masked with the player's empty fields.
+	 * If a field is found to be a valid option, the corresponding element of the boolean[] validOptions is set to true.
+	 * Element 14 is set to true if an additional yatzy bonus applies.
+	 */
+	public static void setValidOptions(int[] gameCard, int[] diceValueCounters, boolean[] validOptions){
+
+		int mask = getValidOptionsMask(gameCard, ScoringTable.indexOf(diceValueCounters));
+		for(int i = 0; i < validOptions.length; i++)
+			validOptions[i] = (mask & (1 << i)) != 0;
+	}
+
+	/**
+	 * this method returns the valid options of a player for a combination of the ScoringTable as a bitmask
+	 * (bit i is set if field i is a valid option, bit 14 is set if an additional yatzy bonus applies).
+	 */
+	public static int getValidOptionsMask(int[] gameCard, int combination){
+		return ScoringTable.getValidOptionsMask(combination, ScoringTable.getEmptyFieldsMask(gameCard), gameCard[YATZY_FIELD] > 0);
+	}
+
+	/**
+	 * this method checks if at least one field (apart from the additional yatzy bonus) is a valid option.
+	 * If not, the player needs to cross out a field.
+	 */
+	public static boolean hasValidOptions(boolean[] validOptions){
+
+		for(int i = 0; i < NUM_OF_FIELDS - 2; i++)		// -2: don't need to check for additional yatzy bonus or totals
+			if(validOptions[i])
+				return true;
+		return false;
+	}
+
+	/**
+	 * this method calculates the points that the current dice would score in the specified field
+	 * (regardless of whether the field is a valid option or not).
+	 */
+	public static int getScore(int field, int[] diceValueCounters){
+
+		if(field < 0 || field >= NUM_OF_FIELDS - 2 || field == UPPER_BONUS_FIELD)
+			throw new IllegalArgumentException("Field " + field + " cannot be selected");
+		return ScoringTable.getScore(ScoringTable.indexOf(diceValueCounters), field);
+	}
+
+	/**
+	 * this method registers the selection of a valid option and updates the player's game card accordingly.
+	 * Every time a field from the upper section is selected, it checks if the upper section bonus applies.
+	 * If an additional yatzy bonus applies, it is also updated on the player's card.
+	 *
+	 * @return: the points scored with this selection (incl. bonuses)
+	 */
+	public static int makeSelection(Player player, int field, int[] diceValueCounters, boolean[] validOptions){
+
+		if(field < 0 || field >= NUM_OF_FIELDS - 2 || !validOptions[field])
+			throw new IllegalArgumentException("Field " + field + " is not a valid option");
+
+		int totalBefore = player.getGameCard(TOTALS_FIELD);
+		player.updateGameCard(field, getScore(field, diceValueCounters));
+		// if the player hasn't won the bonus for the upper section yet, check again
+		if(field < UPPER_BONUS_FIELD && player.getGameCard(UPPER_BONUS_FIELD) == -1)
+			checkForUpperBonus(player);
+		// if an additional yatzy bonus applies, write it "to card"
+		if(validOptions[YATZY_BONUS_FIELD])
+			player.updateGameCard(YATZY_BONUS_FIELD, ADDITIONAL_YATZY_BONUS);
+		return player.getGameCard(TOTALS_FIELD) - totalBefore;
+	}
+
+	/**
+	 * this method crosses out an empty field (sets it to 0). This is the only move available when there are no valid options.
+	 * If an additional yatzy bonus applies, it is written to the player's card as well.
+	 *
+	 * @return: the points scored with this move (the additional yatzy bonus or 0)
+	 */
+	public static int crossOutField(Player player, int field, boolean[] validOptions){
+
+		if(field < 0 || field >= NUM_OF_FIELDS - 2 || !isEmptyField(player.getGameCard(), field))
+			throw new IllegalArgumentException("Field " + field + " is not an empty field");
+
+		int totalBefore = player.getGameCard(TOTALS_FIELD);
+		if(validOptions[YATZY_BONUS_FIELD])
+			player.updateGameCard(YATZY_BONUS_FIELD, ADDITIONAL_YATZY_BONUS);
+		player.updateGameCard(field, 0);
+		return player.getGameCard(TOTALS_FIELD) - totalBefore;
+	}
+
+	/**
+	 * this method checks if the upper section bonus applies (if the sum of all upper section scores is at least 63).
+	 * If this is the case, the player's game card is updated accordingly.
+	 *
+	 * @return: true if the bonus was awarded
+	 */
+	public static boolean checkForUpperBonus(Player player){
+
+		int sum = 0;
+		for(int i = 0; i < UPPER_BONUS_FIELD; i++)
+			if(player.getGameCard(i) != -1)		// empty fields (-1) must not reduce the sum
+				sum += player.getGameCard(i);
+		if(sum >= UPPER_BONUS_THRESHOLD){
+			player.updateGameCard(UPPER_BONUS_FIELD, BONUS_UPPERSECTION);
+			return true;
+		}
+		return false;
+	}
+
+
+	/*-------------------------------------------------------------------------------------------------------
+	 * 										GAME FLOW OPERATIONS
+	 * ------------------------------------------------------------------------------------------------------
+	 */
+
+	/**
+	 * this method returns the index of the player who plays after the current player
+	 */
+	public static int getNextPlayer(int currentPlayerIndex, int numOfPlayers){
+
+		// if the currentPlayer is the last one in the array, the next player will be the first one in the array (return 0)
+		// otherwise the next player is the one after the current player
+		return (currentPlayerIndex == numOfPlayers - 1) ? 0 : currentPlayerIndex + 1;
+	}
+
+	/**
+	 * this method establishes the winner by comparing the totals on the player's game cards.
+	 *
+	 * @return: the winning player's index in the player array (the first one in case of a tie)
+	 */
+	public static int findWinner(Player[] players){
+
+		int winner = -1;
+		int max = -1;
+		for(int i = 0; i < players.length; i++){
+			if(players[i].getGameCard(TOTALS_FIELD) > max){
+				max = players[i].getGameCard(TOTALS_FIELD);
+				winner = i;
+			}
+		}
+		return winner;
+	}
+}
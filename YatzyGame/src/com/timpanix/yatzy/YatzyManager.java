@@ -1,39 +1,104 @@
 package com.timpanix.yatzy;
-import static com.timpanix.yatzy.Yatzy.*;  // import all static methods
+import java.nio.file.Paths;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 public class YatzyManager {
 
 	/**
-	 * @param args
+	 * @param args: the seed of the dice (optional). The seed is displayed at the start, so the dice of a game can be
+	 * 				rolled again (eg. to reproduce a bug).
+	 * 				The output mode plain, ansi or machine (optional, default plain, see ScreenRenderer).
 	 */
 	public static void main(String[] args) {
 		
+		// all games of this session have the same players and roll the dice from the same source
+		DiceSource diceSource = new SplittableDiceSource();
+		int outputMode = ScreenRenderer.PLAIN;
+		for(String arg : args){
+			if(ScreenRenderer.parseMode(arg) != -1)
+				outputMode = ScreenRenderer.parseMode(arg);
+			else
+				diceSource = new SplittableDiceSource(Long.parseLong(arg));
+		}
+		ScannerInput in = new ScannerInput(new Scanner(System.in));
+		// every move is written to the journal, so the game can be continued if the program crashes
+		GameJournal journal = new GameJournal(Paths.get(GameJournal.DEFAULT_FILE_NAME));
+		// every game is recorded, so it can be replayed (see GameReplayer)
+		GameRecorder recorder = new GameRecorder(Paths.get(GameRecorder.DEFAULT_FILE_NAME));
+		
+		GameSession session = new GameSession(diceSource);
+		session.setOutputMode(outputMode);
+		playSession(session, in, journal, recorder);
+		in.close();		// close the Scanner
+		PersistenceExecutor.getShared().drain();	// wait until the files of the last game were written
+	}
+	
+	/**
+	 * this method runs a session: the games are played one after the other until the player(s) decide to quit.
+	 * It is used by the console (main method), by the YatzyServer (one session per connection) and by the SessionDriver
+	 * (scripts and automated players).
+	 * 
+	 * @param: the session (players, dice, output), the input of the player(s) (an input which is a GameListener,
+	 * 			eg. a PolicyInput, follows every game), the journal (null: interrupted games can't be continued),
+	 * 			the recorder (null: the games are not recorded)
+	 */
+	public static void playSession(GameSession session, InputSource in, GameJournal journal, GameRecorder recorder) {
+		
 		boolean firstGame = true;
 		boolean OptionsAvailable = false;
 		boolean playGame;
 		boolean restarted = false;
 		boolean lastRound = false;
-		Scanner sc = new Scanner(System.in);
+		ScreenRenderer screen = session.getScreen();	// all the text of the session is written when a question is asked
 		int currentPlayerIndex = -1;
 		int lastPlayerOfRound = -1;			// the player who plays last during one round of the game
 		int round;
+		int turnsPlayed = 0;				// the number of players who played in the current round before the game was recovered
+		session.setInteractive(in.isInteractive());
+		if(journal != null)
+			journal.setSession(session);	// the problems of the files are displayed before the next question
+		if(recorder != null)
+			recorder.setSession(session);
 		
 		while(true){	// runs until the player(s) decide to quit the game	
 			// instantiate a new game
-			Yatzy game = new Yatzy();
+			Yatzy game = new Yatzy(session);
+			if(journal != null)
+				game.addGameListener(journal);
+			if(recorder != null)
+				game.addGameListener(recorder);
+			if(in instanceof GameListener)
+				game.addGameListener((GameListener) in);
 			playGame = false;	// this will be used for the main menu
 			round = 0;
 			
-			if(firstGame)
+			if(firstGame){
+				game.preloadHighScores();	// the highscores are read while the title is displayed
 				game.displayTitle();	// display the tile (only if first game)
+				screen.line("Dice seed: " + session.getDiceSource().getSeed() + "\n");
+				// if the last game was interrupted, the players can continue it
+				GameJournal.RecoveredGame recovered = (journal != null) ? game.recoverGame(in, journal) : null;
+				if(recovered != null){
+					round = recovered.getRound();
+					currentPlayerIndex = recovered.getNextPlayer();
+					turnsPlayed = recovered.getTurnsPlayed();
+					if(recovered.getRollsMade() > 0)	// the turn which was interrupted is continued with its dice
+						game.resumeTurn(recovered.getDiceValues(), recovered.getRollsMade());
+					screen.line("\nSuccess!");
+					game.displayCard();
+					playGame = true;	// don't display the main menu
+					firstGame = false;	// to avoid asking for player's names etc.
+					restarted = true;	// to avoid asking for starting order
+				}
+			}
 			
 			//--------------------------- run the main menu ----------------------------------------------------
 			
 			
 			while(!playGame){		// run the main menu until the player choses to play a new game, restore an existing game or to quit
 				// display the main menu and return the chosen option
-				switch(game.displayMainMenu(sc)){
+				switch(game.displayMainMenu(in)){
 				// option 1: play a new game
 				case 1:
 					playGame = true;		// this breaks the menu display loop
@@ -41,15 +106,20 @@ public class YatzyManager {
 					break;
 				// option 2: continue an existing game that was saved
 				case 2:
-					System.out.print("Restoring the game ");					
-					game.displayProgressBar();	// this is not necessary, but it looks nice :-)
+					int slotId = game.selectSavedGame(in);		// which saved game? (-1 if there are none)
+					int[] roundAndNextPlayer = {-1, 0};
+					if(slotId != -1){
+						CompletableFuture<SavedGame> loading = game.loadSavedGame(slotId);	// the game is read while the progress bar is displayed
+						screen.text("Restoring the game ");					
+						game.displayProgressBar();	// this is not necessary, but it looks nice :-)
+						roundAndNextPlayer = game.restoreGame(slotId, loading);
+					}
 					// if it didn't work
-					int[] roundAndNextPlayer = game.restoreGame();
 					if(roundAndNextPlayer[0] == -1){	// - 1 flags no success
-						System.out.println("Please select another option from the menu underneath.");
+						screen.line("Please select another option from the menu underneath.");
 						game.displayLine();
 					}else{
-						System.out.println("\nSuccess!");
+						screen.line("\nSuccess!");
 						round = roundAndNextPlayer[0];
 						currentPlayerIndex = roundAndNextPlayer[1];
 						game.displayCard();
@@ -60,27 +130,29 @@ public class YatzyManager {
 					break;
 				// option 3: display the Yatzy rules
 				case 3:
-					game.displayWhichRule(sc);	// which rule?
-					System.out.print("\nPlease press C to close. ");
-					while(! sc.next().toUpperCase().equals("C")){
-						System.out.println("This is not an option. Please try again:");
+					game.displayWhichRule(in);	// which rule?
+					screen.text("\nPlease press C to close. ");
+					while(! screen.read(in, InputSource.CLOSE).toUpperCase().equals("C")){
+						screen.line("This is not an option. Please try again:");
 					}
 					game.displayLine();
 					break;
 				// option 4: display the high scores
 				case 4:
 					game.displayHighScores();
-					System.out.print("\nPlease press C to close. ");
-					while(! sc.next().toUpperCase().equals("C")){
-						System.out.print("This is not an option. Please try again:");
+					screen.text("\nPlease press C to close. ");
+					while(! screen.read(in, InputSource.CLOSE).toUpperCase().equals("C")){
+						screen.text("This is not an option. Please try again:");
 					}
 					game.displayLine();
 					break;
 				// option 5: quit the game
 				case 5:
-					game.exitGame(sc, round, currentPlayerIndex, false); 	// the 4th argument "false" means that the player will not be asked 
-				}														 	// if he/she wants to save the current game 
+					game.exitGame(in, round, currentPlayerIndex, false); 	// the 4th argument "false" means that the player will not be asked 
+																			// if he/she wants to save the current game 
 																			// (this wouldn't make any sense as the game was finished anyway)
+					return;
+				}
 			}
 			
 			// --------------------establish names & number of players and who starts the game ------------------------
@@ -89,69 +161,76 @@ public class YatzyManager {
 			if(firstGame){
 				game.displayLine();
 				// ask how many players
-				game.setNumOfPlayers(sc);
+				game.setNumOfPlayers(in);
 				// ask for player's names
-				game.setPlayers(sc);
+				game.setPlayers(in);
 			// if it's not the first game or a restarted game, reset the player's game cards
 			}else if(!firstGame && !restarted){
-				for(int i = 0; i < getNumOfPlayers(); i++)
-					getPlayers()[i].resetGameCard();
+				for(int i = 0; i < game.getNumOfPlayers(); i++)
+					game.getPlayers()[i].resetGameCard();
 				lastRound = false;	
 			}
 			// if there is more than one player involved in the game
-			if(getNumOfPlayers() > 1){
+			if(game.getNumOfPlayers() > 1){
 				if(!restarted)	// if the game wasn't restarted
-					currentPlayerIndex = game.whoStartsTheGame(sc);	// ask which player would like to start the game
+					currentPlayerIndex = game.whoStartsTheGame(in);	// ask which player would like to start the game
 			
 				// establish which player will be the last one to play in each round
 				// (this will be used to display the gamecard after each round)
-				lastPlayerOfRound = currentPlayerIndex - 1;		// eg. if currentPlayer is at index 3, the last player will be at index 2
+				lastPlayerOfRound = currentPlayerIndex - turnsPlayed - 1;	// eg. if currentPlayer is at index 3, the last player will be at index 2
 				// special case: if the player who starts the game is at index 0, the last player is at the last index, NOt at -1!
-				if(lastPlayerOfRound == -1)
-					lastPlayerOfRound = getNumOfPlayers() - 1;
+				if(lastPlayerOfRound < 0)
+					lastPlayerOfRound += game.getNumOfPlayers();
 			}else{		// only one player
 				currentPlayerIndex = lastPlayerOfRound = 0;		// the one player is the current player and the last player of the round
 			}
 			
 			// ------------------------ START OF THE GAME ---------------------------------
 			
-			while(round < getNumOfRounds()){		// game runs until all rounds are played
+			game.fireGameStart(round, game.getNextPlayer(lastPlayerOfRound));
+			
+			while(round < Yatzy.getNumOfRounds()){		// game runs until all rounds are played
 				
 				// display round number
-				System.out.println("\n----------------");
-				System.out.print("| Round No. ");
+				screen.line("\n----------------");
+				screen.text("| Round No. ");
 				if(++round < 10)	// if only one digit, add extra space to make it look nice
-					System.out.print(" ");
-				System.out.print(round + " |\n");
-				System.out.println("----------------\n");
+					screen.text(" ");
+				screen.text(round + " |\n");
+				screen.line("----------------\n");
 
 				// if this is the last round
-				if(round == getNumOfRounds())
+				if(round == Yatzy.getNumOfRounds())
 					lastRound = true;	// set the boolean value to true (this will be used to do different things after the last round)
 				// ----------------- one round -------------------------------
-				for(int i = 0; i < getNumOfPlayers(); i++){		// loops until one round is played
+				for(int i = turnsPlayed; i < game.getNumOfPlayers(); i++){		// loops until one round is played
+					game.fireTurnStart(round, currentPlayerIndex);
+					screen.turn(round, currentPlayerIndex);
 					// display name of the current player (only if more than one player)
-					if(getNumOfPlayers() > 1)
-						System.out.println("Player: " + getPlayers()[currentPlayerIndex].getName() + "\n");
+					if(game.getNumOfPlayers() > 1)
+						screen.line("Player: " + game.getPlayers()[currentPlayerIndex].getName() + "\n");
 					// roll the dice (max. 3 times)
-					OptionsAvailable = game.rollDice(sc, currentPlayerIndex);
+					OptionsAvailable = game.rollDice(in, currentPlayerIndex);
 					
 					if(OptionsAvailable){		// if options are available (normal case)
 						// player selects a possible combination and the points are "written to card"
-						game.makeSelection(sc, currentPlayerIndex);
+						game.makeSelection(in, currentPlayerIndex);
 					}else{						// otherwise 
 						// player needs to select a field to be crossed out (set to 0)
-						game.crossOutField(sc, currentPlayerIndex);
+						game.crossOutField(in, currentPlayerIndex);
 					}	
 				
+					if(currentPlayerIndex == lastPlayerOfRound)
+						game.fireRoundEnd(round);
 					// if the end of the round has been reached (but NOT the last round)
 					if(currentPlayerIndex == lastPlayerOfRound && !lastRound){
-						System.out.println("End of Round " + round);
-						System.out.println("---------------\n");
+						screen.line("End of Round " + round);
+						screen.line("---------------\n");
 						game.displayCard();			// display the game card
-						if(!game.continueTheGame(sc)){	// and ask if player(s) want(s) to quit the game
+						if(!game.continueTheGame(in)){	// and ask if player(s) want(s) to quit the game
 							//showSaveOption = true;		//  switch the save option on and
-							game.exitGame(sc, round, currentPlayerIndex, true);	// true means that the player will be asked if he/she would like to save the game
+							game.exitGame(in, round, currentPlayerIndex, true);	// true means that the player will be asked if he/she would like to save the game
+							return;
 						}
 					}
 					// ----------------- end of one round ------------------------	
@@ -159,32 +238,32 @@ public class YatzyManager {
 					// get next player's index
 					currentPlayerIndex = game.getNextPlayer(currentPlayerIndex);
 				}
+				turnsPlayed = 0;	// the next round starts with the first player
 				
 			// ------------------- END OF GAME --------------------------------------------------------------------
 				
 				if(lastRound){	// if at the end of the last round
 					// display a little title
-					System.out.println("\t\t\t T H E   E N D");
-					System.out.println("\t\t\t -------------");
+					screen.line("\t\t\t T H E   E N D");
+					screen.line("\t\t\t -------------");
 					// display the name of the winner and the amount of points scored (only if more than 1 player)
-					if(getNumOfPlayers() > 1){
+					if(game.getNumOfPlayers() > 1){
 						int winnerIndex = game.displayWinner();	
-						game.displaySummary(sc);				// display summary of the game (complete game card)
+						game.displaySummary(in);				// display summary of the game (complete game card)
 						game.displayStatistics(winnerIndex);	// display statistics (showing the no. of wins for each player)
 					// if there is only one player
 					}else
-						game.displaySummary(sc);		// just display the complete gamecard
+						game.displaySummary(in);		// just display the complete gamecard
 					
-					// update the highscores (loop through all players)
-					for(int i = 0; i < getNumOfPlayers(); i++)
-						if(!game.updateHighScores(i))		// display error message if they couldn't be updated (otherwise display nothing)
-							System.out.println("Highscores could not be updated. There was a problem");
+					// update the highscores (all players at once, a problem is displayed when it happens)
+					game.updateHighScores();
+					game.fireGameEnd(true);
 					firstGame = false;
-					System.out.print("\nWhat would you like to do next? \nPlease press any letter of number to go back to the main menu:");
-					sc.next();
+					screen.text("\nWhat would you like to do next? \nPlease press any letter of number to go back to the main menu:");
+					screen.read(in, InputSource.ANY_KEY);
 					game.displayDoubleLine();
 				} // end of if
 			}	// end of while loop (one game)
 		}	// end of while(true) loop
-	} // end of main method
+	} // end of playSession method
 }	// end of class
@@ -0,0 +1,190 @@
+package com.timpanix.yatzy;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+
+/**
+ * this class contains the main method of the binary server mode: the clients (eg. bots or graphical front ends) play
+ * with the commands of the GameProtocol and only receive the changes of the game, no text. Every connection plays its
+ * own games (class RemoteGame), one after the other.
+ *
+ * All connections are handled by one thread with a selector (non-blocking I/O): a command is applied as soon as it was
+ * received completely, and the deltas of all commands received at the same time are sent in one write. No thread waits
+ * for a player, so a command is answered within microseconds, however many connections are open.
+ * The server only accepts connections from the same computer (loopback address).
+ */
+public class YatzyNioServer {
+
+	public static final int DEFAULT_PORT = 4712;
+	private static final int INPUT_BUFFER_SIZE = 4 * GameProtocol.MAX_FRAME_SIZE;
+	private static final int OUTPUT_BUFFER_SIZE = 16 * GameProtocol.MAX_FRAME_SIZE;
+	// the deltas of one command (incl. a new game or the end of the game) always fit into this space
+	private static final int MAX_DELTAS_SIZE = 64;
+
+	private final ServerSocketChannel serverChannel;
+	private final Selector selector;
+	private final DiceSource diceSource;		// every connection gets its own stream (split from this source)
+	private final Path replayFile;		// the games are recorded in this file (null: the games are not recorded)
+	private int numOfConnections;
+
+	// constructor: the server listens on the specified port of the loopback address (port 0: any free port)
+	public YatzyNioServer(int port, DiceSource diceSource, Path replayFile) throws IOException{
+
+		this.diceSource = diceSource;
+		this.replayFile = replayFile;
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	// getters
+	public int getPort(){
+		return serverChannel.socket().getLocalPort();
+	}
+
+	/**
+	 * @return: the number of open connections (only up to date on the thread of the server)
+	 */
+	public int getNumOfConnections(){
+		return numOfConnections;
+	}
+
+	/**
+	 * this method handles the connections until the server is closed
+	 */
+	public void run() throws IOException{
+
+		try{
+			while(serverChannel.isOpen()){
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while(keys.hasNext()){
+					SelectionKey key = keys.next();
+					keys.remove();
+					if(!key.isValid())
+						continue;
+					if(key.isAcceptable())
+						accept();
+					else
+						handle(key);
+				}
+			}
+		}catch(ClosedSelectorException cse){
+			// the server was closed
+		}finally{
+			for(SelectionKey key : selector.keys())
+				if(key.attachment() instanceof Connection)
+					close(key);
+			selector.close();
+		}
+	}
+
+	/**
+	 * this method stops the server (from any thread). The open connections are closed and their games end without a winner.
+	 */
+	public void close() throws IOException{
+
+		serverChannel.close();
+		selector.wakeup();
+	}
+
+	private void accept() throws IOException{
+
+		SocketChannel channel;
+		while((channel = serverChannel.accept()) != null){
+			channel.configureBlocking(false);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);		// the deltas are small and must not wait
+			RemoteGame game = new RemoteGame(new GameSession(diceSource.split()));
+			if(replayFile != null)
+				game.addGameListener(new GameRecorder(replayFile));
+			channel.register(selector, SelectionKey.OP_READ, new Connection(game));
+			numOfConnections++;
+		}
+	}
+
+	/**
+	 * this method reads the commands which were received and sends the deltas. If the client doesn't read the deltas,
+	 * no more commands are read until the output was sent (so the memory of a connection is limited). The commands
+	 * which were received already are applied as soon as there is space for their deltas again.
+	 */
+	private void handle(SelectionKey key){
+
+		SocketChannel channel = (SocketChannel) key.channel();
+		Connection connection = (Connection) key.attachment();
+		try{
+			if(key.isReadable() && channel.read(connection.in) == -1){
+				close(key);
+				return;
+			}
+			connection.in.flip();
+			do{
+				int size;
+				while(connection.out.remaining() >= MAX_DELTAS_SIZE && (size = GameProtocol.frameSize(connection.in)) != -1)
+					connection.game.handle(connection.in, size, connection.out);
+				connection.out.flip();
+				channel.write(connection.out);
+				connection.out.compact();
+				// the commands which are left are applied if the write made space for their deltas
+			}while(connection.out.remaining() >= MAX_DELTAS_SIZE && GameProtocol.frameSize(connection.in) != -1);
+			connection.in.compact();
+			// wait for the client to read the output before more commands are read
+			boolean pending = connection.out.position() > 0;
+			key.interestOps(pending ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+		}catch(IOException ioe){
+			close(key);		// the connection was reset by the client
+		}
+	}
+
+	private void close(SelectionKey key){
+
+		((Connection) key.attachment()).game.close();
+		key.cancel();
+		try{
+			key.channel().close();
+		}catch(IOException ioe){
+			// the connection is closed anyway
+		}
+		numOfConnections--;
+	}
+
+	/**
+	 * the state of a connection: the game and the buffers for the commands and the deltas (in write mode between the calls)
+	 */
+	private static class Connection {
+
+		private final RemoteGame game;
+		private final ByteBuffer in = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+		private final ByteBuffer out = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+
+		// constructor
+		Connection(RemoteGame game){
+			this.game = game;
+		}
+	}
+
+	/**
+	 * @param args: the port (default 4712), the seed of the dice (optional, the connections get their own streams of this seed)
+	 */
+	public static void main(String[] args) throws IOException{
+
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		DiceSource diceSource = args.length > 1 ? new SplittableDiceSource(Long.parseLong(args[1])) : new SplittableDiceSource();
+		YatzyNioServer server = new YatzyNioServer(port, diceSource, Paths.get(GameRecorder.DEFAULT_FILE_NAME));
+		System.out.println("The Yatzy server (binary protocol) is listening on " + InetAddress.getLoopbackAddress().getHostAddress()
+				+ ":" + server.getPort() + " (dice seed: " + diceSource.getSeed() + ")");
+		server.run();
+	}
+}
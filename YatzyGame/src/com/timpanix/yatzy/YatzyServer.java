@@ -0,0 +1,247 @@
+package com.timpanix.yatzy;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * this class contains the main method of the server mode: the players connect to the server (eg. with the YatzyClient)
+ * and every connection plays its own session, exactly like on the console (see YatzyManager.playSession()).
+ * The lines sent by the players are the input, the output is sent back over the connection.
+ *
+ * Every session runs on a virtual thread, which only needs memory while it is running, so a server can hold many thousands
+ * of mostly idle sessions. So the server mode needs Java 21 or newer: with older versions, main() doesn't start the server.
+ * (A YatzyServer created by another program, eg. a test, runs every session on a platform thread with older versions,
+ * see usesVirtualThreads().)
+ * The server only accepts connections from the same computer (loopback address). A session ends when the players quit,
+ * when the connection is closed or when nothing was received for 30 minutes.
+ *
+ * Every session is a table which can be watched by any number of spectators (see SpectatorFeed): the spectators connect
+ * to the spectator port (see openSpectatorPort()), choose a table and receive the events of its games, one line per event
+ * (see SpectatorFeed.describe()), until the session ends. All spectators are served by one thread (see SpectatorServer),
+ * and they never slow down the players.
+ */
+public class YatzyServer {
+
+	public static final int DEFAULT_PORT = 4711;
+	public static final int DEFAULT_SPECTATOR_PORT = 4713;
+	private static final int IDLE_TIMEOUT_MILLIS = 30 * 60 * 1000;
+	private static final int OUTPUT_BUFFER_SIZE = 1024;		// the output is sent when the session waits for input
+
+	private static final boolean VIRTUAL_THREADS = Runtime.version().feature() >= 21;
+
+	private final ServerSocket serverSocket;
+	private final ExecutorService sessions = newSessionExecutor();
+	private final DiceSource diceSource;		// every session gets its own stream (split from this source)
+	private final AtomicInteger numOfSessions = new AtomicInteger();
+	private final int outputMode;		// how the games are displayed (see ScreenRenderer)
+	private final AtomicInteger nextTableId = new AtomicInteger(1);
+	private final ConcurrentHashMap<Integer, SpectatorFeed> tables = new ConcurrentHashMap<Integer, SpectatorFeed>();	// the sessions being played
+	private SpectatorServer spectators;		// null until the spectator port was opened
+
+	// constructor: the server listens on the specified port of the loopback address (port 0: any free port)
+	public YatzyServer(int port, DiceSource diceSource) throws IOException{
+		this(port, diceSource, ScreenRenderer.PLAIN);
+	}
+
+	// constructor: the games are displayed in the specified output mode (see ScreenRenderer)
+	public YatzyServer(int port, DiceSource diceSource, int outputMode) throws IOException{
+		this.serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		this.diceSource = diceSource;
+		this.outputMode = outputMode;
+	}
+
+	// getters
+	public int getPort(){
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return: true if the sessions run on virtual threads (Java 21 or newer), false if every session needs a platform thread
+	 */
+	public static boolean usesVirtualThreads(){
+		return VIRTUAL_THREADS;
+	}
+
+	/**
+	 * @return: the number of sessions that are being played
+	 */
+	public int getNumOfSessions(){
+		return numOfSessions.get();
+	}
+
+	/**
+	 * this method accepts connections until the server is closed. Every connection is played on its own thread.
+	 */
+	public void run(){
+
+		while(!serverSocket.isClosed()){
+			try{
+				Socket socket = serverSocket.accept();
+				DiceSource sessionDice = diceSource.split();
+				sessions.execute(() -> playSession(socket, sessionDice));
+			}catch(SocketException se){
+				// the server was closed
+			}catch(IOException ioe){
+				System.out.println("A connection could not be accepted: " + ioe.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * this method opens the port for the spectators (port 0: any free port). All spectators are served by one thread
+	 * (see SpectatorServer) until the server is closed.
+	 *
+	 * @return: the port for the spectators
+	 */
+	public int openSpectatorPort(int port) throws IOException{
+
+		spectators = new SpectatorServer(port, tables);
+		SpectatorServer server = spectators;
+		Thread thread = new Thread(() -> {
+			try{
+				server.run();
+			}catch(IOException ioe){
+				System.out.println("The spectator port was closed with an error: " + ioe.getMessage());
+			}
+		}, "yatzy-spectators");
+		thread.setDaemon(true);
+		thread.start();
+		return server.getPort();
+	}
+
+	/**
+	 * this method stops accepting connections and closes the server. The sessions are ended when their connections are closed.
+	 */
+	public void close() throws IOException{
+
+		serverSocket.close();
+		if(spectators != null)
+			spectators.close();
+		sessions.shutdown();
+	}
+
+	/**
+	 * this method waits until all sessions have ended (after close())
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException{
+		return sessions.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * this method plays the session of one connection. The games are recorded, but there is no journal
+	 * (an interrupted game cannot be continued, as the server doesn't know the players of a new connection).
+	 */
+	private void playSession(Socket socket, DiceSource sessionDice){
+
+		numOfSessions.incrementAndGet();
+		int tableId = nextTableId.getAndIncrement();
+		try(socket){
+			socket.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+			PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream(), OUTPUT_BUFFER_SIZE),
+					false, StandardCharsets.UTF_8);
+			Scanner sc = new Scanner(new FlushingInputStream(socket.getInputStream(), out), StandardCharsets.UTF_8);
+			GameRecorder recorder = new GameRecorder(Paths.get(GameRecorder.DEFAULT_FILE_NAME));
+			GameSession session = new GameSession(sessionDice, out);
+			session.setOutputMode(outputMode);
+			session.setSpectatorFeed(new SpectatorFeed());
+			tables.put(tableId, session.getSpectatorFeed());
+			YatzyManager.playSession(session, new ScannerInput(sc), null, recorder);
+		}catch(NoSuchElementException nsee){
+			// the connection was closed (or timed out) while the session waited for input
+		}catch(IOException ioe){
+			System.out.println("A session ended with an error: " + ioe.getMessage());
+		}finally{
+			tables.remove(tableId);
+			numOfSessions.decrementAndGet();
+		}
+	}
+
+	/**
+	 * this method returns an executor which runs every task on a new virtual thread (Java 21 or newer).
+	 * With older versions of Java, the tasks run on a pool of platform threads (a new thread is created when all are busy).
+	 */
+	static ExecutorService newSessionExecutor(){
+
+		if(VIRTUAL_THREADS){
+			try{
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			}catch(ReflectiveOperationException e){
+				throw new IllegalStateException("Virtual threads are not available", e);
+			}
+		}
+		return Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(null, task, "yatzy-session", 256 * 1024);	// small stacks: sessions don't recurse
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * this input stream sends the buffered output of the session before it waits for input (eg. a question to the player)
+	 */
+	private static class FlushingInputStream extends FilterInputStream {
+
+		private final PrintStream out;
+
+		// constructor
+		FlushingInputStream(InputStream in, PrintStream out){
+			super(in);
+			this.out = out;
+		}
+
+		@Override
+		public int read() throws IOException{
+			out.flush();
+			return super.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException{
+			out.flush();
+			return super.read(b, off, len);
+		}
+	}
+
+	/**
+	 * @param args: the port (default 4711), the seed of the dice (optional, the sessions get their own streams of this seed),
+	 * 				the output mode plain, ansi or machine (optional, default plain, see ScreenRenderer),
+	 * 				the port for the spectators (default 4713)
+	 */
+	public static void main(String[] args) throws IOException{
+
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		DiceSource diceSource = args.length > 1 ? new SplittableDiceSource(Long.parseLong(args[1])) : new SplittableDiceSource();
+		int outputMode = args.length > 2 ? ScreenRenderer.parseMode(args[2]) : ScreenRenderer.PLAIN;
+		if(outputMode == -1){
+			System.out.println("Unknown output mode " + args[2] + " (plain, ansi or machine)");
+			return;
+		}
+		if(!usesVirtualThreads()){
+			System.out.println("The Yatzy server needs Java 21 or newer (virtual threads): with Java " + Runtime.version().feature()
+					+ ", every session would need a platform thread.");
+			return;
+		}
+		YatzyServer server = new YatzyServer(port, diceSource, outputMode);
+		int spectatorPort = server.openSpectatorPort(args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_SPECTATOR_PORT);
+		System.out.println("The Yatzy server is listening on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort()
+				+ " (dice seed: " + diceSource.getSeed() + ", the sessions run on virtual threads)"
+				+ ", spectators can watch the tables on port " + spectatorPort);
+		server.run();
+	}
+}
@@ -0,0 +1,91 @@
+package com.timpanix.yatzy;
+
+import static com.timpanix.yatzy.YatzyEngine.*;
+
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * this class contains the main method of the batch mode: it plays a number of complete single player games with an
+ * automated player (Policy) and displays the statistics of the results. The games are played on a ForkJoinPool
+ * (see SimulationTask), without any console input or output and without the static state of the class Yatzy.
+ *
+ * Usage: YatzySimulation [number of games] [greedy|optimal] [seed]
+ */
+public class YatzySimulation {
+
+	/**
+	 * this method plays a number of games in parallel on the specified pool
+	 *
+	 * @param: the number of games, a supplier that creates one policy per worker, the seed of the random numbers, the pool
+	 */
+	public static SimulationStats simulate(long numOfGames, Supplier<Policy> policies, long seed, ForkJoinPool pool){
+		return pool.invoke(new SimulationTask(numOfGames, new SplittableDiceSource(seed), policies));
+	}
+
+	/**
+	 * this method plays one complete game (13 turns) with the specified policy and records the results in the statistics
+	 *
+	 * @return: the final score
+	 */
+	public static int playGame(Policy policy, DiceSource random, SimulationStats stats){
+
+		long card = PackedState.NEW_GAME;
+		for(int turn = 0; turn < NUM_OF_ROUNDS; turn++){
+			// roll the dice (max. 3 times)
+			int dice = PackedState.rollDice(0, random);
+			for(int rollsDone = 1; rollsDone < MAX_ROLLS; rollsDone++){
+				int keep = policy.chooseDiceToKeep(card, dice, rollsDone);
+				if(keep == dice)		// all dice are kept
+					break;
+				dice = PackedState.rollDice(keep, random);
+			}
+			// select a field or cross one out
+			int combination = PackedState.getCombination(dice);
+			int validOptions = PackedState.getValidOptions(card, combination);
+			int field = policy.chooseField(card, dice, validOptions);
+			int upperSum = PackedState.getUpperSum(card);
+			if((validOptions & ScoringTable.SELECTABLE_FIELDS) != 0){
+				card = PackedState.makeSelection(card, combination, field, validOptions);
+				stats.addFieldScore(field, ScoringTable.getScore(combination, field));
+			}else{
+				card = PackedState.crossOutField(card, field, validOptions);
+			}
+			if(upperSum < UPPER_BONUS_THRESHOLD && PackedState.getUpperSum(card) >= UPPER_BONUS_THRESHOLD)
+				stats.addFieldScore(UPPER_BONUS_FIELD, BONUS_UPPERSECTION);
+			if((validOptions & ScoringTable.YATZY_BONUS_BIT) != 0)
+				stats.addFieldScore(YATZY_BONUS_FIELD, ADDITIONAL_YATZY_BONUS);
+		}
+		int score = PackedState.getTotal(card);
+		stats.addFieldScore(TOTALS_FIELD, score);
+		stats.addGame(score);
+		return score;
+	}
+
+	/**
+	 * @param args: number of games (default 1000000), policy "greedy" or "optimal" (default), seed (default: random)
+	 */
+	public static void main(String[] args){
+
+		long numOfGames = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+		String policyName = args.length > 1 ? args[1] : "optimal";
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+		Supplier<Policy> policies;
+		if(policyName.equalsIgnoreCase("greedy")){
+			policies = GreedyPolicy::new;
+		}else{
+			StrategyTable table = StrategyTable.openOrSolve(Paths.get(StrategyTable.DEFAULT_FILE_NAME));
+			policies = () -> new OptimalPolicy(table);
+		}
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		System.out.println("Simulating " + numOfGames + " games (policy: " + policyName + ", seed: " + seed + ", workers: " + pool.getParallelism() + ")");
+		long start = System.nanoTime();
+		SimulationStats stats = simulate(numOfGames, policies, seed, pool);
+		long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+		stats.display();
+		System.out.println("\nTime: " + millis + " ms (" + (numOfGames * 1000 / millis) + " games per second)");
+	}
+}